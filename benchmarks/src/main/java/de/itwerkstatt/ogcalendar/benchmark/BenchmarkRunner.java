@@ -0,0 +1,28 @@
+package de.itwerkstatt.ogcalendar.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks headless with the GC profiler, so every result also
+ * shows the allocation rate. The usual JMH command line options can be
+ * given, e.g. a regular expression to select benchmarks
+ */
+public class BenchmarkRunner
+{
+
+    public static void main( String[] args ) throws RunnerException, CommandLineOptionException
+    {
+        Options options = new OptionsBuilder()
+                .parent( new CommandLineOptions( args ) )
+                .addProfiler( GCProfiler.class )
+                .jvmArgsAppend( "-Djava.awt.headless=true" )
+                .build();
+        new Runner( options ).run();
+    }
+}
@@ -0,0 +1,137 @@
+package de.itwerkstatt.ogcalendar.benchmark;
+
+import de.itwerkstatt.ogcalendar.OGCalendar;
+import de.itwerkstatt.ogcalendar.OGDayChooser;
+import de.itwerkstatt.ogcalendar.OGMonthChooser;
+import de.itwerkstatt.ogcalendar.OGYearChooser;
+import java.awt.Component;
+import java.awt.Container;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JSpinner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the whole OGCalendar: setting a date by the API and changing
+ * month and year with the spin buttons, including all listeners and the
+ * refresh of the days. The refresh delay is 0, the acceleration of the
+ * spin buttons and the prefetching of the day chooser are off, so every
+ * step refreshes the days on the benchmark thread and no timer touches the
+ * calendar on the EDT meanwhile
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( value = 1, jvmArgsAppend = "-Djava.awt.headless=true" )
+public class CalendarBenchmark
+{
+
+    @Param(
+    {
+        "COMPONENTS", "PAINTED"
+    } )
+    public OGDayChooser.RenderMode renderMode;
+
+    private OGCalendar calendar;
+    private JSpinner monthSpinner;
+    private JSpinner yearSpinner;
+    private YearMonth[] months;
+    private int next;
+    private int direction = 1;
+
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        calendar = new OGCalendar( YearMonth.of( 2018, 1 ), renderMode );
+        calendar.setRefreshDelay( 0 );
+        calendar.setSize( 400, 300 );
+        calendar.validate();
+        for ( Component component : calendar.getComponents() )
+        {
+            if ( component instanceof OGMonthChooser )
+            {
+                ( (OGMonthChooser) component ).setAccelerationEnabled( false );
+                monthSpinner = findSpinner( (Container) component );
+            }
+            else if ( component instanceof OGYearChooser )
+            {
+                ( (OGYearChooser) component ).setAccelerationEnabled( false );
+                yearSpinner = findSpinner( (Container) component );
+            }
+            else if ( component instanceof OGDayChooser )
+            {
+                ( (OGDayChooser) component ).setPrefetchEnabled( false );
+            }
+        }
+        months = new YearMonth[24];
+        for ( int i = 0; i < months.length; i++ )
+        {
+            months[i] = YearMonth.of( 2018, 1 ).plusMonths( i );
+        }
+    }
+
+    @Benchmark
+    public OGCalendar setCurrentDate()
+    {
+        next = ( next + 1 ) % months.length;
+        calendar.setCurrentDate( months[next] );
+        return calendar;
+    }
+
+    /**
+     * Spins the month forward, which includes a year wrap every 12 steps
+     * @return OGCalendar
+     */
+    @Benchmark
+    public OGCalendar spinMonth()
+    {
+        monthSpinner.setValue( monthSpinner.getNextValue() );
+        return calendar;
+    }
+
+    /**
+     * Spins the year up and down, so the value stays in a small range
+     * @return OGCalendar
+     */
+    @Benchmark
+    public OGCalendar spinYear()
+    {
+        Object value = direction > 0 ? yearSpinner.getNextValue() : yearSpinner.getPreviousValue();
+        direction = -direction;
+        yearSpinner.setValue( value );
+        return calendar;
+    }
+
+    private static JSpinner findSpinner( Container container )
+    {
+        for ( Component component : container.getComponents() )
+        {
+            if ( component instanceof JSpinner )
+            {
+                return (JSpinner) component;
+            }
+            if ( component instanceof Container )
+            {
+                JSpinner spinner = findSpinner( (Container) component );
+                if ( spinner != null )
+                {
+                    return spinner;
+                }
+            }
+        }
+        return null;
+    }
+}
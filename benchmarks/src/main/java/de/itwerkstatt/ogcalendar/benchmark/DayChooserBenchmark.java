@@ -0,0 +1,98 @@
+package de.itwerkstatt.ogcalendar.benchmark;
+
+import de.itwerkstatt.ogcalendar.OGDayChooser;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the month change and the painting of an OGDayChooser.
+ * No window is shown, the sheet is painted into an offscreen image. As the
+ * component never becomes visible it is used from the benchmark thread
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( value = 1, jvmArgsAppend = "-Djava.awt.headless=true" )
+public class DayChooserBenchmark
+{
+
+    @Param(
+    {
+        "COMPONENTS", "PAINTED"
+    } )
+    public OGDayChooser.RenderMode renderMode;
+
+    private OGDayChooser dayChooser;
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private YearMonth[] months;
+    private int next;
+
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        dayChooser = new OGDayChooser( YearMonth.of( 2018, 1 ), renderMode );
+        dayChooser.setSize( 350, 250 );
+        dayChooser.doLayout();
+        image = new BufferedImage( 350, 250, BufferedImage.TYPE_INT_RGB );
+        graphics = image.createGraphics();
+        //Two years, so every month length and start day occurs
+        months = new YearMonth[24];
+        for ( int i = 0; i < months.length; i++ )
+        {
+            months[i] = YearMonth.of( 2018, 1 ).plusMonths( i );
+        }
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown()
+    {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public OGDayChooser setCurrentYearAndMonth()
+    {
+        dayChooser.setCurrentYearAndMonth( nextMonth() );
+        return dayChooser;
+    }
+
+    @Benchmark
+    public BufferedImage paintMonth()
+    {
+        dayChooser.paint( graphics );
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage setCurrentYearAndMonthAndPaint()
+    {
+        dayChooser.setCurrentYearAndMonth( nextMonth() );
+        dayChooser.validate();
+        dayChooser.paint( graphics );
+        return image;
+    }
+
+    private YearMonth nextMonth()
+    {
+        next = ( next + 1 ) % months.length;
+        return months[next];
+    }
+}
@@ -0,0 +1,52 @@
+package de.itwerkstatt.ogcalendar.benchmark;
+
+import de.itwerkstatt.ogcalendar.MonthGrid;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the date arithmetic of a month sheet without any user interface
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class MonthGridBenchmark
+{
+
+    private final YearMonth month = YearMonth.of( 2018, 2 );
+    private final LocalDate today = LocalDate.of( 2018, 2, 14 );
+
+    @Benchmark
+    public MonthGrid create()
+    {
+        return MonthGrid.of( month );
+    }
+
+    @Benchmark
+    public int createAndScan()
+    {
+        MonthGrid grid = MonthGrid.of( month );
+        int sum = grid.indexOf( today );
+        for ( int i = 0; i < MonthGrid.CELL_COUNT; i++ )
+        {
+            if ( grid.isInMonth( i ) )
+            {
+                sum += grid.getDayOfMonth( i );
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,443 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.MonthDay;
+import java.time.Year;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Knows the working days, days which are neither part of the weekend nor a
+ * holiday. The non working days of a year are computed once from the rules
+ * and kept as a bitset of 366 bits, so checking a day takes constant time
+ * and counting or adding working days counts the bits of whole words. At
+ * most 64 years are kept, if more are used they are computed again.
+ * Instances are immutable and thread safe
+ */
+public final class BusinessCalendar
+{
+
+    //Words of the bitset of a year, bit i stands for day of year i + 1
+    private static final int WORDS = 6;
+    //Number of years kept, a long lived calendar used for wide ranges must not grow forever
+    private static final int MAX_YEARS = 64;
+
+    private final int weekendMask;
+    private final HolidayRule[] rules;
+    private final ConcurrentHashMap<Integer, long[]> years = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor with saturday and sunday as weekend
+     * @param rules the holidays
+     */
+    public BusinessCalendar( HolidayRule... rules )
+    {
+        this( new DayOfWeek[] { DayOfWeek.SATURDAY, DayOfWeek.SUNDAY }, rules );
+    }
+
+    /**
+     * Constructor which sets the days of the weekend
+     * @param weekend at most six days
+     * @param rules the holidays
+     */
+    public BusinessCalendar( DayOfWeek[] weekend, HolidayRule... rules )
+    {
+        int mask = 0;
+        for ( DayOfWeek day : weekend )
+        {
+            mask |= 1 << ( day.getValue() - 1 );
+        }
+        if ( mask == 0x7F )
+        {
+            throw new IllegalArgumentException( "At least one day of the week must be a working day" );
+        }
+        weekendMask = mask;
+        this.rules = rules.clone();
+    }
+
+    /**
+     * Checks if a day is a working day
+     * @param day
+     * @return boolean
+     */
+    public boolean isWorkingDay( LocalDate day )
+    {
+        int index = day.getDayOfYear() - 1;
+        return ( bits( day.getYear() )[index >> 6] & 1L << index ) == 0;
+    }
+
+    /**
+     * Checks if a day is a holiday of one of the rules. A holiday can fall on
+     * the weekend
+     * @param day
+     * @return boolean
+     */
+    public boolean isHoliday( LocalDate day )
+    {
+        if ( isWorkingDay( day ) )
+        {
+            return false;
+        }
+        //Only on the weekend the bitset does not tell
+        return ( weekendMask & 1 << ( day.getDayOfWeek().getValue() - 1 ) ) == 0 || isRuleDay( day );
+    }
+
+    /**
+     * Counts the working days from a day up to another one
+     * @param from inclusive
+     * @param to exclusive
+     * @return number of working days, negative if to is before from
+     */
+    public long countBusinessDays( LocalDate from, LocalDate to )
+    {
+        if ( to.isBefore( from ) )
+        {
+            return -countBusinessDays( to, from );
+        }
+        long count = 0;
+        for ( int year = from.getYear(); year <= to.getYear(); year++ )
+        {
+            int first = year == from.getYear() ? from.getDayOfYear() - 1 : 0;
+            int last = year == to.getYear() ? to.getDayOfYear() - 1 : WORDS * 64;
+            count += countWorking( bits( year ), first, last );
+        }
+        return count;
+    }
+
+    /**
+     * Moves a day by a number of working days. With 0 the day is returned
+     * unchanged, otherwise the result is a working day
+     * @param day
+     * @param businessDays negative to move into the past
+     * @return LocalDate
+     * @throws DateTimeException if a whole year has no working day, e.g.
+     * because the holiday rules take all days the weekend leaves, or the
+     * result is out of the supported range
+     */
+    public LocalDate addBusinessDays( LocalDate day, long businessDays )
+    {
+        if ( businessDays < 0 )
+        {
+            return subtractBusinessDays( day, -businessDays );
+        }
+        long remaining = businessDays;
+        int year = day.getYear();
+        //Index of the day after the given one
+        int index = day.getDayOfYear();
+        while ( remaining > 0 )
+        {
+            long[] bits = bits( year );
+            int available = countWorking( bits, index, WORDS * 64 );
+            if ( available == 0 && index == 0 )
+            {
+                throw noWorkingDay( year );
+            }
+            if ( available < remaining )
+            {
+                remaining -= available;
+                year++;
+                index = 0;
+                continue;
+            }
+            for ( int word = index >> 6; ; word++ )
+            {
+                long working = ~bits[word] & -1L << ( word == index >> 6 ? index : 0 );
+                int count = Long.bitCount( working );
+                if ( count < remaining )
+                {
+                    remaining -= count;
+                    continue;
+                }
+                for ( ; remaining > 1; remaining-- )
+                {
+                    working &= working - 1;
+                }
+                return LocalDate.ofYearDay( year, word * 64 + Long.numberOfTrailingZeros( working ) + 1 );
+            }
+        }
+        return day;
+    }
+
+    /**
+     * Moves a day into the past by a number of working days
+     * @param day
+     * @param businessDays
+     * @return LocalDate
+     */
+    private LocalDate subtractBusinessDays( LocalDate day, long businessDays )
+    {
+        long remaining = businessDays;
+        int year = day.getYear();
+        //Index of the day before the given one, -1 if it is in the previous year
+        int index = day.getDayOfYear() - 2;
+        while ( true )
+        {
+            if ( index < 0 )
+            {
+                year--;
+                index = Year.of( year ).length() - 1;
+            }
+            long[] bits = bits( year );
+            int available = countWorking( bits, 0, index + 1 );
+            if ( available == 0 && index == Year.of( year ).length() - 1 )
+            {
+                throw noWorkingDay( year );
+            }
+            if ( available < remaining )
+            {
+                remaining -= available;
+                index = -1;
+                continue;
+            }
+            for ( int word = index >> 6; ; word-- )
+            {
+                long working = ~bits[word] & ( word == index >> 6 ? -1L >>> ( 63 - ( index & 63 ) ) : -1L );
+                int count = Long.bitCount( working );
+                if ( count < remaining )
+                {
+                    remaining -= count;
+                    continue;
+                }
+                int bit = 63 - Long.numberOfLeadingZeros( working );
+                for ( ; remaining > 1; remaining-- )
+                {
+                    working &= ~( 1L << bit );
+                    bit = 63 - Long.numberOfLeadingZeros( working );
+                }
+                return LocalDate.ofYearDay( year, word * 64 + bit + 1 );
+            }
+        }
+    }
+
+    /**
+     * Returns the non working days of consecutive days as a mask, e.g. for
+     * the 42 cells of a MonthGrid
+     * @param first the first day
+     * @param days at most 64
+     * @return bit i is set if the i-th day is not a working day
+     */
+    public long nonWorkingMask( LocalDate first, int days )
+    {
+        if ( days < 0 || days > 64 )
+        {
+            throw new IllegalArgumentException( "days must be between 0 and 64: " + days );
+        }
+        long mask = 0;
+        int year = first.getYear();
+        long[] bits = bits( year );
+        int index = first.getDayOfYear() - 1;
+        int length = Year.isLeap( year ) ? 366 : 365;
+        for ( int i = 0; i < days; i++, index++ )
+        {
+            if ( index == length )
+            {
+                year++;
+                bits = bits( year );
+                index = 0;
+                length = Year.isLeap( year ) ? 366 : 365;
+            }
+            if ( ( bits[index >> 6] & 1L << index ) != 0 )
+            {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Creates the exception for a year without any working day. Searching
+     * on would never end
+     * @param year
+     * @return DateTimeException
+     */
+    private static DateTimeException noWorkingDay( int year )
+    {
+        return new DateTimeException( "The year " + year + " has no working day, the holidays take all days the weekend leaves" );
+    }
+
+    /**
+     * Returns the bitset of the non working days of a year, it is computed
+     * on first use. The bits after the last day of the year are set
+     * @param year
+     * @return long[] which must not be changed
+     */
+    private long[] bits( int year )
+    {
+        long[] bits = years.get( year );
+        if ( bits == null )
+        {
+            if ( years.size() >= MAX_YEARS )
+            {
+                //Cheaper than tracking the use, a dropped year is simply computed again
+                years.clear();
+            }
+            bits = years.computeIfAbsent( year, this::computeBits );
+        }
+        return bits;
+    }
+
+    /**
+     * Computes the non working days of a year
+     * @param year
+     * @return long[]
+     */
+    private long[] computeBits( int year )
+    {
+        long[] bits = new long[WORDS];
+        int length = Year.isLeap( year ) ? 366 : 365;
+        int weekday = LocalDate.of( year, 1, 1 ).getDayOfWeek().getValue() - 1;
+        for ( int i = 0; i < length; i++ )
+        {
+            if ( ( weekendMask & 1 << ( ( weekday + i ) % 7 ) ) != 0 )
+            {
+                bits[i >> 6] |= 1L << i;
+            }
+        }
+        for ( int i = length; i < WORDS * 64; i++ )
+        {
+            bits[i >> 6] |= 1L << i;
+        }
+        for ( HolidayRule rule : rules )
+        {
+            rule.addHolidays( year, (day) ->
+            {
+                if ( day.getYear() == year )
+                {
+                    int index = day.getDayOfYear() - 1;
+                    bits[index >> 6] |= 1L << index;
+                }
+            } );
+        }
+        return bits;
+    }
+
+    /**
+     * Counts the working days between two indices of a year
+     * @param bits
+     * @param from inclusive
+     * @param to exclusive
+     * @return int
+     */
+    private static int countWorking( long[] bits, int from, int to )
+    {
+        int count = 0;
+        for ( int word = from >> 6; word < WORDS && word << 6 < to; word++ )
+        {
+            long working = ~bits[word];
+            if ( word == from >> 6 )
+            {
+                working &= -1L << from;
+            }
+            if ( to < ( word + 1 ) << 6 )
+            {
+                working &= ( 1L << to ) - 1;
+            }
+            count += Long.bitCount( working );
+        }
+        return count;
+    }
+
+    /**
+     * Checks if one of the rules makes the day a holiday
+     * @param day
+     * @return boolean
+     */
+    private boolean isRuleDay( LocalDate day )
+    {
+        boolean[] found = new boolean[1];
+        for ( HolidayRule rule : rules )
+        {
+            rule.addHolidays( day.getYear(), (holiday) -> found[0] |= holiday.equals( day ) );
+        }
+        return found[0];
+    }
+
+    /**
+     * Computes the Easter sunday of a year of the gregorian calendar
+     * @param year
+     * @return LocalDate
+     */
+    public static LocalDate easterSunday( int year )
+    {
+        int a = year % 19;
+        int b = year / 100;
+        int c = year % 100;
+        int d = b / 4;
+        int e = b % 4;
+        int f = ( b + 8 ) / 25;
+        int g = ( b - f + 1 ) / 3;
+        int h = ( 19 * a + b - d - g + 15 ) % 30;
+        int i = c / 4;
+        int k = c % 4;
+        int l = ( 32 + 2 * e + 2 * i - h - k ) % 7;
+        int m = ( a + 11 * h + 22 * l ) / 451;
+        int month = ( h + l - 7 * m + 114 ) / 31;
+        int day = ( h + l - 7 * m + 114 ) % 31 + 1;
+        return LocalDate.of( year, month, day );
+    }
+
+    /**
+     * Provides the holidays of a year
+     */
+    @FunctionalInterface
+    public interface HolidayRule
+    {
+
+        /**
+         * Passes the holidays of the given year to the consumer
+         * @param year
+         * @param holidays
+         */
+        void addHolidays( int year, Consumer<LocalDate> holidays );
+
+        /**
+         * A holiday on the same day every year, e.g. christmas
+         * @param month
+         * @param dayOfMonth
+         * @return HolidayRule
+         */
+        static HolidayRule fixed( Month month, int dayOfMonth )
+        {
+            MonthDay day = MonthDay.of( month, dayOfMonth );
+            return (year, holidays) ->
+            {
+                if ( day.isValidYear( year ) )
+                {
+                    holidays.accept( day.atYear( year ) );
+                }
+            };
+        }
+
+        /**
+         * A holiday relative to Easter sunday, e.g. -2 for Good Friday or 1
+         * for Easter Monday
+         * @param days
+         * @return HolidayRule
+         */
+        static HolidayRule easter( int days )
+        {
+            return (year, holidays) -> holidays.accept( easterSunday( year ).plusDays( days ) );
+        }
+
+        /**
+         * The days of a recurring rule, e.g. the first monday of may
+         * @param rule
+         * @return HolidayRule
+         */
+        static HolidayRule of( RecurrenceRule rule )
+        {
+            return (year, holidays) ->
+            {
+                Iterator<LocalDate> days = rule.iterator( LocalDate.of( year, 1, 1 ), LocalDate.of( year, 12, 31 ) );
+                while ( days.hasNext() )
+                {
+                    holidays.accept( days.next() );
+                }
+            };
+        }
+    }
+}
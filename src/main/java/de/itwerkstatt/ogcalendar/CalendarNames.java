@@ -0,0 +1,124 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.time.DayOfWeek;
+import java.time.Month;
+import java.time.format.TextStyle;
+import java.time.temporal.WeekFields;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The names of weekdays and months and the first day of the week of a
+ * Locale. The tables are built once per Locale and shared by all components,
+ * instances are immutable and thread safe
+ */
+public final class CalendarNames
+{
+
+    private static final ConcurrentHashMap<Locale, CalendarNames> NAMES = new ConcurrentHashMap<>();
+
+    private final Locale locale;
+    private final DayOfWeek firstDayOfWeek;
+    //Indexed by DayOfWeek.getValue() - 1
+    private final String[] weekdayNames = new String[7];
+    //Indexed by Month.getValue() - 1
+    private final String[] monthNames = new String[12];
+
+    private CalendarNames( Locale locale )
+    {
+        this.locale = locale;
+        firstDayOfWeek = WeekFields.of( locale ).getFirstDayOfWeek();
+        for ( DayOfWeek day : DayOfWeek.values() )
+        {
+            weekdayNames[day.getValue() - 1] = name( day.getDisplayName( TextStyle.SHORT_STANDALONE, locale ),
+                    day.getDisplayName( TextStyle.SHORT, locale ) );
+        }
+        for ( Month month : Month.values() )
+        {
+            monthNames[month.getValue() - 1] = name( month.getDisplayName( TextStyle.FULL_STANDALONE, locale ),
+                    month.getDisplayName( TextStyle.FULL, locale ) );
+        }
+    }
+
+    /**
+     * Returns the names of the given Locale
+     * @param locale
+     * @return CalendarNames
+     */
+    public static CalendarNames of( Locale locale )
+    {
+        return NAMES.computeIfAbsent( locale, CalendarNames::new );
+    }
+
+    /**
+     * Getter for the Locale of the names
+     * @return Locale
+     */
+    public Locale getLocale()
+    {
+        return locale;
+    }
+
+    /**
+     * Getter for the day each week starts with
+     * @return DayOfWeek
+     */
+    public DayOfWeek getFirstDayOfWeek()
+    {
+        return firstDayOfWeek;
+    }
+
+    /**
+     * Getter for the short name of a weekday as used in headlines
+     * @param day
+     * @return String
+     */
+    public String getWeekdayName( DayOfWeek day )
+    {
+        return weekdayNames[day.getValue() - 1];
+    }
+
+    /**
+     * Getter for the full name of a month
+     * @param month
+     * @return String
+     */
+    public String getMonthName( Month month )
+    {
+        return monthNames[month.getValue() - 1];
+    }
+
+    /**
+     * Getter for the names of all months, starting with january
+     * @return a new array with 12 fields
+     */
+    public String[] getMonthNames()
+    {
+        return monthNames.clone();
+    }
+
+    /**
+     * Chooses the standalone name unless the Locale has none, in this case
+     * the JDK returns the number of the field
+     * @param standalone
+     * @param formatting
+     * @return String
+     */
+    private static String name( String standalone, String formatting )
+    {
+        for ( int i = 0; i < standalone.length(); i++ )
+        {
+            if ( !Character.isDigit( standalone.charAt( i ) ) )
+            {
+                return standalone;
+            }
+        }
+        return formatting;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CalendarNames[" + locale + "]";
+    }
+}
@@ -0,0 +1,205 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.chrono.IsoChronology;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.FormatStyle;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parses typed dates and formats dates for text fields. The order of day,
+ * month and year is taken from the short date format of the Locale, any
+ * character which is not a digit separates the parts. So 17.10.2026,
+ * 17.10.26, 17-10 and 171026 are the same day in Germany. A year with four
+ * digits in front is read as an ISO date like 2026-10-17. A missing year is
+ * the current year, two digit years are put into the 100 years around it.
+ * The parser does not create a DateTimeFormatter for parsing and does not
+ * throw on invalid input, so it can be called on every key stroke.
+ * Instances are shared per Locale and thread safe
+ */
+final class DateParser
+{
+
+    private static final ConcurrentHashMap<Locale, DateParser> PARSERS = new ConcurrentHashMap<>();
+
+    //Order of the parts
+    private static final int DAY_MONTH_YEAR = 0;
+    private static final int MONTH_DAY_YEAR = 1;
+    private static final int YEAR_MONTH_DAY = 2;
+
+    private final int order;
+    private final DateTimeFormatter formatter;
+
+    private DateParser( Locale locale )
+    {
+        String pattern = DateTimeFormatterBuilder.getLocalizedDateTimePattern( FormatStyle.SHORT, null, IsoChronology.INSTANCE, locale );
+        int day = pattern.indexOf( 'd' );
+        int month = pattern.indexOf( 'M' );
+        int year = pattern.indexOf( 'y' );
+        if ( year >= 0 && year < month && year < day )
+        {
+            order = YEAR_MONTH_DAY;
+        }
+        else if ( month >= 0 && month < day )
+        {
+            order = MONTH_DAY_YEAR;
+        }
+        else
+        {
+            order = DAY_MONTH_YEAR;
+        }
+        //The short pattern often has a two digit year which is ambiguous
+        if ( !pattern.contains( "yyy" ) )
+        {
+            pattern = pattern.replace( "yy", "yyyy" );
+        }
+        formatter = DateTimeFormatter.ofPattern( pattern, locale );
+    }
+
+    /**
+     * Returns the parser of the given Locale
+     * @param locale
+     * @return DateParser
+     */
+    static DateParser of( Locale locale )
+    {
+        return PARSERS.computeIfAbsent( locale, DateParser::new );
+    }
+
+    /**
+     * Formats a date with the short format of the Locale and a four digit
+     * year
+     * @param date
+     * @return String, empty for null
+     */
+    String format( LocalDate date )
+    {
+        return date != null ? formatter.format( date ) : "";
+    }
+
+    /**
+     * Parses a typed date
+     * @param text
+     * @return LocalDate or null if the text is no valid date
+     */
+    LocalDate parse( CharSequence text )
+    {
+        int[] values = new int[3];
+        int[] digits = new int[3];
+        int parts = 0;
+        int length = text.length();
+        int i = 0;
+        while ( i < length )
+        {
+            char c = text.charAt( i );
+            if ( c < '0' || c > '9' )
+            {
+                i++;
+                continue;
+            }
+            if ( parts == 3 )
+            {
+                return null;
+            }
+            int value = 0;
+            int count = 0;
+            for ( ; i < length && text.charAt( i ) >= '0' && text.charAt( i ) <= '9'; i++, count++ )
+            {
+                if ( count == 8 )
+                {
+                    return null;
+                }
+                value = value * 10 + text.charAt( i ) - '0';
+            }
+            values[parts] = value;
+            digits[parts] = count;
+            parts++;
+        }
+        if ( parts == 1 && ( digits[0] == 6 || digits[0] == 8 ) )
+        {
+            return parseDigits( values[0], digits[0] );
+        }
+        if ( parts < 2 )
+        {
+            return null;
+        }
+        if ( digits[0] == 4 && parts == 3 )
+        {
+            //ISO order
+            return date( values[0], 4, values[1], values[2] );
+        }
+        switch ( order )
+        {
+            case YEAR_MONTH_DAY:
+                return parts == 3 ? date( values[0], digits[0], values[1], values[2] ) : date( 0, 0, values[0], values[1] );
+            case MONTH_DAY_YEAR:
+                return date( values[2], digits[2], values[0], values[1] );
+            default:
+                return date( values[2], digits[2], values[1], values[0] );
+        }
+    }
+
+    /**
+     * Parses six or eight digits without separators
+     * @param value
+     * @param count
+     * @return LocalDate or null
+     */
+    private LocalDate parseDigits( int value, int count )
+    {
+        int yearDigits = count - 4;
+        int yearFactor = count == 8 ? 10000 : 100;
+        switch ( order )
+        {
+            case YEAR_MONTH_DAY:
+            {
+                int rest = value % 10000;
+                return date( value / 10000, yearDigits, rest / 100, rest % 100 );
+            }
+            case MONTH_DAY_YEAR:
+                return date( value % yearFactor, yearDigits, value / yearFactor / 100, value / yearFactor % 100 );
+            default:
+                return date( value % yearFactor, yearDigits, value / yearFactor % 100, value / yearFactor / 100 );
+        }
+    }
+
+    /**
+     * Creates the date of the parts
+     * @param year
+     * @param yearDigits 0 if the year is missing
+     * @param month
+     * @param day
+     * @return LocalDate or null if the parts are no valid date
+     */
+    private static LocalDate date( int year, int yearDigits, int month, int day )
+    {
+        int currentYear = LocalDate.now().getYear();
+        if ( yearDigits == 0 )
+        {
+            year = currentYear;
+        }
+        else if ( yearDigits <= 2 )
+        {
+            //The year within 80 years before and 20 years after the current one
+            int century = ( currentYear + 20 ) / 100 * 100;
+            year = century + year > currentYear + 20 ? century - 100 + year : century + year;
+        }
+        try
+        {
+            return LocalDate.of( year, month, day );
+        }
+        catch ( DateTimeException ex )
+        {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "DateParser[" + formatter + "]";
+    }
+}
@@ -0,0 +1,95 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.time.LocalDate;
+
+/**
+ * A range of days, start and end are both included.
+ * Instances are immutable
+ */
+public final class DateRange
+{
+
+    private final LocalDate start;
+    private final LocalDate end;
+
+    private DateRange( LocalDate start, LocalDate end )
+    {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Creates the range between two days, the order does not matter
+     * @param first
+     * @param second
+     * @return DateRange
+     */
+    public static DateRange of( LocalDate first, LocalDate second )
+    {
+        return first.isAfter( second ) ? new DateRange( second, first ) : new DateRange( first, second );
+    }
+
+    /**
+     * Getter for the first day of the range
+     * @return LocalDate
+     */
+    public LocalDate getStart()
+    {
+        return start;
+    }
+
+    /**
+     * Getter for the last day of the range
+     * @return LocalDate
+     */
+    public LocalDate getEnd()
+    {
+        return end;
+    }
+
+    /**
+     * Checks if the day is part of the range
+     * @param date
+     * @return boolean
+     */
+    public boolean contains( LocalDate date )
+    {
+        return !date.isBefore( start ) && !date.isAfter( end );
+    }
+
+    /**
+     * Getter for the number of days in the range
+     * @return long
+     */
+    public long lengthInDays()
+    {
+        return end.toEpochDay() - start.toEpochDay() + 1;
+    }
+
+    @Override
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+        if ( !( obj instanceof DateRange ) )
+        {
+            return false;
+        }
+        DateRange other = (DateRange) obj;
+        return start.equals( other.start ) && end.equals( other.end );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return start.hashCode() * 31 + end.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return start + "/" + end;
+    }
+}
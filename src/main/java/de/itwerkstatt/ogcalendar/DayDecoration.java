@@ -0,0 +1,65 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.awt.Color;
+
+/**
+ * The look of a single day in the OGDayChooser, e.g. to color days by
+ * their load. Values which are null keep the default look.
+ * Instances are immutable
+ */
+public final class DayDecoration
+{
+
+    private final Color background;
+    private final Color foreground;
+    private final String toolTipText;
+
+    /**
+     * Constructor which sets only the background
+     * @param background
+     */
+    public DayDecoration( Color background )
+    {
+        this( background, null, null );
+    }
+
+    /**
+     * Constructor which sets all values
+     * @param background color behind the day or null
+     * @param foreground color of the day number or null
+     * @param toolTipText tooltip of the day or null
+     */
+    public DayDecoration( Color background, Color foreground, String toolTipText )
+    {
+        this.background = background;
+        this.foreground = foreground;
+        this.toolTipText = toolTipText;
+    }
+
+    /**
+     * Getter for the background color
+     * @return Color or null
+     */
+    public Color getBackground()
+    {
+        return background;
+    }
+
+    /**
+     * Getter for the foreground color
+     * @return Color or null
+     */
+    public Color getForeground()
+    {
+        return foreground;
+    }
+
+    /**
+     * Getter for the tooltip text
+     * @return String or null
+     */
+    public String getToolTipText()
+    {
+        return toolTipText;
+    }
+}
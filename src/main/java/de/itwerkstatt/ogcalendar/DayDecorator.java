@@ -0,0 +1,27 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Provides the decorations for the days shown by an OGDayChooser. The
+ * decorations of all visible days, including the days of the neighbouring
+ * months, are requested with one call.
+ * The method is called on a background thread, so it may block, e.g. to
+ * query a backend. If the user navigates to another month meanwhile, the
+ * thread is interrupted and the result is dropped. If the method throws an
+ * exception the days stay undecorated
+ */
+@FunctionalInterface
+public interface DayDecorator
+{
+
+    /**
+     * Returns the decorations for the given range of days
+     * @param from first visible day
+     * @param to last visible day, inclusive
+     * @return decorations by day, days without decoration can be missing
+     * @throws Exception
+     */
+    Map<LocalDate, DayDecoration> decorate( LocalDate from, LocalDate to ) throws Exception;
+}
@@ -0,0 +1,103 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Loads the decorations of a month on a background thread and hands the
+ * result to the event dispatch thread. Only the result of the latest
+ * request is delivered, older requests are cancelled.
+ * Must be used on the event dispatch thread
+ */
+class DecorationLoader
+{
+
+    private final BiConsumer<MonthGrid, Map<LocalDate, DayDecoration>> consumer;
+    private Future<?> running;
+    //Identifies the latest request
+    private int generation;
+
+    /**
+     * Constructor
+     * @param consumer receives the grid and the decorations on the event
+     * dispatch thread
+     */
+    DecorationLoader( BiConsumer<MonthGrid, Map<LocalDate, DayDecoration>> consumer )
+    {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Requests the decorations of all days of the grid. A running request
+     * is cancelled
+     * @param decorator
+     * @param grid
+     */
+    void load( DayDecorator decorator, MonthGrid grid )
+    {
+        cancel();
+        final int requested = generation;
+        final LocalDate from = grid.getDate( grid.getFirstValidIndex() );
+        final LocalDate to = grid.getDate( grid.getLastValidIndex() );
+        running = ExecutorHolder.EXECUTOR.submit( () ->
+        {
+            Map<LocalDate, DayDecoration> decorations = decorator.decorate( from, to );
+            SwingUtilities.invokeLater( () ->
+            {
+                if ( requested == generation && decorations != null )
+                {
+                    running = null;
+                    consumer.accept( grid, decorations );
+                }
+            } );
+            return null;
+        } );
+    }
+
+    /**
+     * Cancels the running request, its result will not be delivered
+     */
+    void cancel()
+    {
+        generation++;
+        if ( running != null )
+        {
+            running.cancel( true );
+            running = null;
+        }
+    }
+
+    /**
+     * Holder of the executor, created on first use. Virtual threads are used
+     * if the Java runtime supports them
+     */
+    private static class ExecutorHolder
+    {
+
+        private static final ExecutorService EXECUTOR = create();
+
+        private static ExecutorService create()
+        {
+            try
+            {
+                Method method = Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" );
+                return (ExecutorService) method.invoke( null );
+            }
+            catch ( ReflectiveOperationException e )
+            {
+                return Executors.newCachedThreadPool( (runnable) ->
+                {
+                    Thread thread = new Thread( runnable, "OGCalendar-decorations" );
+                    thread.setDaemon( true );
+                    return thread;
+                } );
+            }
+        }
+    }
+}
@@ -0,0 +1,958 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.awt.Color;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Reads the VEVENTs of an iCalendar file (RFC 5545) one after another. The
+ * file is read through a small buffer, folded lines are joined while
+ * reading, so even files with hundreds of thousands of events never have
+ * to fit into memory.
+ * next moves to the next VEVENT, its values are available by the getters
+ * until next is called again. Recurring events are only expanded for the
+ * days they are needed for by a RecurrenceRule, see expand. The days of
+ * EXDATE are left out. A VEVENT with RECURRENCE-ID replaces one occurrence
+ * of the recurring event with the same UID, readInto leaves the replaced
+ * occurrences out, RANGE=THISANDFUTURE is not supported.
+ * Supported properties are UID, SUMMARY, LOCATION, DTSTART, DTEND, DURATION,
+ * RRULE, EXDATE and RECURRENCE-ID, other properties and nested components
+ * like VALARM are skipped. Times in UTC or with a TZID are converted to the zone of the
+ * reader, times without zone are taken as they are. Recurring events are
+ * expanded in the zone of their DTSTART, so their weekdays and local times
+ * stay the same across daylight saving changes there
+ */
+public class ICalendarReader implements Closeable
+{
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    //Number of events handed to the store at once by readInto
+    private static final int BATCH_SIZE = 1024;
+
+    private final ReadableByteChannel channel;
+    private final ZoneId zone;
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect( BUFFER_SIZE );
+    private final CharBuffer chars = CharBuffer.allocate( BUFFER_SIZE );
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput( CodingErrorAction.REPLACE )
+            .onUnmappableCharacter( CodingErrorAction.REPLACE );
+    private boolean endOfInput;
+    private boolean drained;
+    //Current physical line and the logical line with all folded lines
+    private final StringBuilder physical = new StringBuilder( 128 );
+    private final StringBuilder line = new StringBuilder( 128 );
+    //True if physical already holds the line after the current logical line
+    private boolean lookahead;
+    private int lineNumber;
+    //Zone of the last TZID, most files use only one
+    private String lastTzid;
+    private ZoneId lastZone;
+
+    //Values of the current VEVENT
+    private String uid;
+    private String summary;
+    private String location;
+    private String recurrenceRule;
+    private Color color;
+    private LocalDateTime start;
+    //DTSTART in its own zone, recurring events are expanded there
+    private LocalDateTime localStart;
+    private ZoneId startZone;
+    private LocalDateTime end;
+    private Duration duration;
+    private boolean allDay;
+    private LocalDateTime recurrenceId;
+    //Starts and days of EXDATE, null if there are none
+    private Set<LocalDateTime> excludedStarts;
+    private Set<LocalDate> excludedDays;
+
+    /**
+     * Opens a file, times are converted to the default zone
+     * @param path
+     * @throws IOException
+     */
+    public ICalendarReader( Path path ) throws IOException
+    {
+        this( FileChannel.open( path, StandardOpenOption.READ ), ZoneId.systemDefault() );
+    }
+
+    /**
+     * Constructor which reads from a channel
+     * @param channel is closed by close
+     * @param zone the zone times are converted to
+     */
+    public ICalendarReader( ReadableByteChannel channel, ZoneId zone )
+    {
+        this.channel = channel;
+        this.zone = zone;
+        bytes.limit( 0 );
+        chars.limit( 0 );
+    }
+
+    /**
+     * Moves to the next VEVENT. VEVENTs without DTSTART are skipped
+     * @return false if there are no more events
+     * @throws IOException if the file cannot be read or a date is invalid
+     */
+    public boolean next() throws IOException
+    {
+        while ( nextLine() )
+        {
+            if ( isLine( "BEGIN:VEVENT" ) && readEvent() )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Getter for the UID of the current event
+     * @return String or null
+     */
+    public String getUid()
+    {
+        return uid;
+    }
+
+    /**
+     * Getter for the SUMMARY of the current event
+     * @return String or null
+     */
+    public String getSummary()
+    {
+        return summary;
+    }
+
+    /**
+     * Getter for the LOCATION of the current event
+     * @return String or null
+     */
+    public String getLocation()
+    {
+        return location;
+    }
+
+    /**
+     * Getter for the RRULE of the current event
+     * @return String or null if the event does not recur
+     */
+    public String getRecurrenceRule()
+    {
+        return recurrenceRule;
+    }
+
+    /**
+     * Getter for the RECURRENCE-ID of the current event, the start of the
+     * occurrence of the recurring event with the same UID it replaces
+     * @return LocalDateTime or null if the event replaces no occurrence
+     */
+    public LocalDateTime getRecurrenceId()
+    {
+        return recurrenceId;
+    }
+
+    /**
+     * Getter for the start of the current event
+     * @return LocalDateTime
+     */
+    public LocalDateTime getStart()
+    {
+        return start;
+    }
+
+    /**
+     * Getter for the end of the current event, it is exclusive. If the
+     * event has neither DTEND nor DURATION, an all day event lasts one day
+     * and other events end when they start
+     * @return LocalDateTime
+     */
+    public LocalDateTime getEnd()
+    {
+        if ( end != null )
+        {
+            return end;
+        }
+        if ( duration != null )
+        {
+            return start.plus( duration );
+        }
+        return allDay ? start.plusDays( 1 ) : start;
+    }
+
+    /**
+     * Checks if the current event lasts whole days
+     * @return boolean
+     */
+    public boolean isAllDay()
+    {
+        return allDay;
+    }
+
+    /**
+     * Creates an OGCalendarEvent of the current event. For recurring events
+     * it is the first occurrence
+     * @return OGCalendarEvent
+     */
+    public OGCalendarEvent toEvent()
+    {
+        LocalDateTime eventEnd = getEnd();
+        return new OGCalendarEvent( summary, start, eventEnd.isBefore( start ) ? start : eventEnd, allDay, location, color );
+    }
+
+    /**
+     * Passes all occurrences of the current event which take place on one of
+     * the given days to the consumer. Occurrences outside of the days and
+     * the ones of EXDATE are not created. An event with RECURRENCE-ID is a
+     * single occurrence
+     * @param from
+     * @param to inclusive
+     * @param consumer
+     */
+    public void expand( LocalDate from, LocalDate to, Consumer<OGCalendarEvent> consumer )
+    {
+        OGCalendarEvent first = toEvent();
+        RecurrenceRule rule = null;
+        if ( recurrenceRule != null && recurrenceId == null )
+        {
+            try
+            {
+                rule = RecurrenceRule.parse( recurrenceRule, localStart.toLocalDate() );
+            }
+            catch ( IllegalArgumentException ex )
+            {
+                //Only the first occurrence of an unsupported rule is certain
+                rule = null;
+            }
+        }
+        if ( rule == null )
+        {
+            if ( first.overlaps( from, to ) )
+            {
+                consumer.accept( first );
+            }
+            return;
+        }
+        Duration length = Duration.between( first.getStart(), first.getEnd() );
+        LocalTime time = localStart.toLocalTime();
+        LocalDateTime until = until();
+        //Occurrences starting before the days can last into them, the zone
+        //of DTSTART can be a day ahead of or behind the zone of the reader
+        Iterator<LocalDate> days = rule.iterator( from.minusDays( length.toDays() + 2 ), to.plusDays( 1 ) );
+        while ( days.hasNext() )
+        {
+            LocalDateTime local = days.next().atTime( time );
+            if ( until != null && local.isAfter( until ) )
+            {
+                break;
+            }
+            LocalDateTime occurrence = startZone != null ? convert( local, startZone ) : local;
+            if ( isExcluded( local, occurrence ) )
+            {
+                continue;
+            }
+            OGCalendarEvent event = new OGCalendarEvent( summary, occurrence, occurrence.plus( length ), allDay, location, color );
+            if ( event.overlaps( from, to ) )
+            {
+                consumer.accept( event );
+            }
+        }
+    }
+
+    /**
+     * Returns the UNTIL of the current RRULE if it has a time. The rule
+     * only compares its date, so an occurrence later on that day is
+     * dropped here
+     * @return LocalDateTime in the zone of DTSTART or null
+     */
+    private LocalDateTime until()
+    {
+        int index = recurrenceRule.indexOf( "UNTIL=" );
+        if ( index < 0 )
+        {
+            return null;
+        }
+        int end = recurrenceRule.indexOf( ';', index );
+        String value = recurrenceRule.substring( index + 6, end < 0 ? recurrenceRule.length() : end );
+        if ( value.length() == 8 )
+        {
+            return null;
+        }
+        try
+        {
+            LocalDateTime until = parseLocalDateTime( value, 0 );
+            if ( value.length() == 16 )
+            {
+                //A floating DTSTART is taken as a time of the reader
+                return until.atOffset( ZoneOffset.UTC ).atZoneSameInstant( startZone != null ? startZone : zone ).toLocalDateTime();
+            }
+            return until;
+        }
+        catch ( IOException ex )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Checks if an occurrence of the current event is left out by EXDATE
+     * @param local the start in the zone of DTSTART
+     * @param occurrence the start in the zone of the reader
+     * @return boolean
+     */
+    private boolean isExcluded( LocalDateTime local, LocalDateTime occurrence )
+    {
+        return excludedStarts != null && excludedStarts.contains( occurrence )
+                || excludedDays != null && excludedDays.contains( local.toLocalDate() );
+    }
+
+    /**
+     * Reads all remaining events and adds the ones which take place on one
+     * of the given days to the store. Recurring events are expanded for
+     * these days only. Their occurrences are kept until the end of the file,
+     * because a VEVENT with RECURRENCE-ID replacing one of them can follow
+     * anywhere
+     * @param store
+     * @param from
+     * @param to inclusive
+     * @return number of events added
+     * @throws IOException
+     */
+    public int readInto( OGCalendarEventStore store, LocalDate from, LocalDate to ) throws IOException
+    {
+        List<OGCalendarEvent> batch = new ArrayList<>( BATCH_SIZE );
+        //Occurrences of the recurring events and the replaced occurrences by UID
+        Map<String, List<OGCalendarEvent>> series = new HashMap<>();
+        Map<String, Set<LocalDateTime>> replaced = new HashMap<>();
+        int added = 0;
+        while ( next() )
+        {
+            if ( recurrenceId != null && uid != null )
+            {
+                replaced.computeIfAbsent( uid, (key) -> new HashSet<>() ).add( recurrenceId );
+            }
+            if ( recurrenceRule != null && recurrenceId == null && uid != null )
+            {
+                expand( from, to, series.computeIfAbsent( uid, (key) -> new ArrayList<>() )::add );
+                continue;
+            }
+            expand( from, to, batch::add );
+            added += flush( store, batch, BATCH_SIZE );
+        }
+        for ( Map.Entry<String, List<OGCalendarEvent>> entry : series.entrySet() )
+        {
+            Set<LocalDateTime> replacedStarts = replaced.get( entry.getKey() );
+            for ( OGCalendarEvent occurrence : entry.getValue() )
+            {
+                if ( replacedStarts == null || !replacedStarts.contains( occurrence.getStart() ) )
+                {
+                    batch.add( occurrence );
+                }
+            }
+            added += flush( store, batch, BATCH_SIZE );
+        }
+        return added + flush( store, batch, 0 );
+    }
+
+    /**
+     * Hands the collected events to the store once there are enough
+     * @param store
+     * @param batch is cleared if the events are added
+     * @param minimum number of events needed
+     * @return number of events added
+     */
+    private static int flush( OGCalendarEventStore store, List<OGCalendarEvent> batch, int minimum )
+    {
+        int size = batch.size();
+        if ( size == 0 || size < minimum )
+        {
+            return 0;
+        }
+        store.addAll( batch );
+        batch.clear();
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * Reads the properties of a VEVENT up to its END line
+     * @return false if the event has no DTSTART
+     * @throws IOException
+     */
+    private boolean readEvent() throws IOException
+    {
+        uid = null;
+        summary = null;
+        location = null;
+        recurrenceRule = null;
+        color = null;
+        start = null;
+        localStart = null;
+        startZone = null;
+        end = null;
+        duration = null;
+        allDay = false;
+        recurrenceId = null;
+        excludedStarts = null;
+        excludedDays = null;
+        //Depth of nested components like VALARM
+        int depth = 0;
+        while ( nextLine() )
+        {
+            int nameEnd = nameEnd();
+            int valueStart = valueStart( nameEnd );
+            if ( valueStart < 0 )
+            {
+                continue;
+            }
+            if ( isName( "BEGIN", nameEnd ) )
+            {
+                depth++;
+            }
+            else if ( isName( "END", nameEnd ) )
+            {
+                if ( depth == 0 )
+                {
+                    return start != null;
+                }
+                depth--;
+            }
+            else if ( depth == 0 )
+            {
+                property( nameEnd, valueStart );
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes the value of a property of the current event
+     * @param nameEnd
+     * @param valueStart
+     * @throws IOException
+     */
+    private void property( int nameEnd, int valueStart ) throws IOException
+    {
+        if ( isName( "DTSTART", nameEnd ) )
+        {
+            allDay = "DATE".equalsIgnoreCase( parameter( "VALUE", nameEnd, valueStart ) )
+                    || line.length() - valueStart == 8;
+            localStart = parseLocalDateTime( line, valueStart );
+            startZone = sourceZone( line, valueStart, parameter( "TZID", nameEnd, valueStart ) );
+            start = startZone != null ? convert( localStart, startZone ) : localStart;
+        }
+        else if ( isName( "DTEND", nameEnd ) )
+        {
+            end = parseDateTime( line, valueStart, parameter( "TZID", nameEnd, valueStart ) );
+        }
+        else if ( isName( "DURATION", nameEnd ) )
+        {
+            duration = parseDuration( line.substring( valueStart ) );
+        }
+        else if ( isName( "SUMMARY", nameEnd ) )
+        {
+            summary = unescape( valueStart );
+        }
+        else if ( isName( "LOCATION", nameEnd ) )
+        {
+            location = unescape( valueStart );
+        }
+        else if ( isName( "UID", nameEnd ) )
+        {
+            uid = line.substring( valueStart );
+        }
+        else if ( isName( "RRULE", nameEnd ) )
+        {
+            recurrenceRule = line.substring( valueStart );
+        }
+        else if ( isName( "EXDATE", nameEnd ) )
+        {
+            exclude( nameEnd, valueStart );
+        }
+        else if ( isName( "RECURRENCE-ID", nameEnd ) )
+        {
+            recurrenceId = parseDateTime( line, valueStart, parameter( "TZID", nameEnd, valueStart ) );
+        }
+        else if ( isName( ICalendarWriter.COLOR_PROPERTY, nameEnd ) )
+        {
+            try
+            {
+                color = Color.decode( line.substring( valueStart ) );
+            }
+            catch ( NumberFormatException ex )
+            {
+                color = null;
+            }
+        }
+    }
+
+    /**
+     * Takes the values of an EXDATE, a list of dates or times separated by
+     * commas. Times are converted like DTSTART, so they match the starts of
+     * the occurrences, dates leave out every occurrence of the day in the
+     * zone of DTSTART
+     * @param nameEnd
+     * @param valueStart
+     * @throws IOException if a value is invalid
+     */
+    private void exclude( int nameEnd, int valueStart ) throws IOException
+    {
+        String tzid = parameter( "TZID", nameEnd, valueStart );
+        String values = line.substring( valueStart );
+        int from = 0;
+        while ( from <= values.length() )
+        {
+            int comma = values.indexOf( ',', from );
+            int to = comma < 0 ? values.length() : comma;
+            String value = values.substring( from, to );
+            if ( value.length() == 8 )
+            {
+                if ( excludedDays == null )
+                {
+                    excludedDays = new HashSet<>();
+                }
+                excludedDays.add( parseDateTime( value, 0, null ).toLocalDate() );
+            }
+            else if ( !value.isEmpty() )
+            {
+                if ( excludedStarts == null )
+                {
+                    excludedStarts = new HashSet<>();
+                }
+                excludedStarts.add( parseDateTime( value, 0, tzid ) );
+            }
+            from = to + 1;
+        }
+    }
+
+    /**
+     * Reads the next logical line, folded lines are joined
+     * @return false at the end of the file
+     * @throws IOException
+     */
+    private boolean nextLine() throws IOException
+    {
+        if ( !lookahead && !readPhysicalLine() )
+        {
+            return false;
+        }
+        lookahead = false;
+        line.setLength( 0 );
+        line.append( physical );
+        while ( readPhysicalLine() )
+        {
+            if ( physical.length() > 0 && ( physical.charAt( 0 ) == ' ' || physical.charAt( 0 ) == '\t' ) )
+            {
+                line.append( physical, 1, physical.length() );
+            }
+            else
+            {
+                lookahead = true;
+                return true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next physical line without the line break
+     * @return false at the end of the file
+     * @throws IOException
+     */
+    private boolean readPhysicalLine() throws IOException
+    {
+        physical.setLength( 0 );
+        boolean read = false;
+        while ( chars.hasRemaining() || fill() )
+        {
+            read = true;
+            char[] array = chars.array();
+            int position = chars.position();
+            int limit = chars.limit();
+            int i = position;
+            while ( i < limit && array[i] != '\n' )
+            {
+                i++;
+            }
+            physical.append( array, position, i - position );
+            if ( i < limit )
+            {
+                chars.position( i + 1 );
+                lineNumber++;
+                if ( physical.length() > 0 && physical.charAt( physical.length() - 1 ) == '\r' )
+                {
+                    physical.setLength( physical.length() - 1 );
+                }
+                return true;
+            }
+            chars.position( limit );
+        }
+        if ( read )
+        {
+            lineNumber++;
+        }
+        return read;
+    }
+
+    /**
+     * Decodes the next characters of the channel
+     * @return false at the end of the file
+     * @throws IOException
+     */
+    private boolean fill() throws IOException
+    {
+        chars.clear();
+        while ( chars.position() == 0 && !drained )
+        {
+            bytes.compact();
+            if ( !endOfInput && channel.read( bytes ) < 0 )
+            {
+                endOfInput = true;
+            }
+            bytes.flip();
+            decoder.decode( bytes, chars, endOfInput );
+            if ( endOfInput )
+            {
+                decoder.flush( chars );
+                drained = true;
+            }
+        }
+        chars.flip();
+        return chars.hasRemaining();
+    }
+
+    /**
+     * Checks if the current line is the given text, ignoring the case
+     * @param text
+     * @return boolean
+     */
+    private boolean isLine( String text )
+    {
+        return line.length() == text.length() && isName( text, text.length() );
+    }
+
+    /**
+     * Checks if the name of the current property is the given one
+     * @param name
+     * @param nameEnd
+     * @return boolean
+     */
+    private boolean isName( String name, int nameEnd )
+    {
+        if ( nameEnd != name.length() )
+        {
+            return false;
+        }
+        for ( int i = 0; i < nameEnd; i++ )
+        {
+            if ( Character.toUpperCase( line.charAt( i ) ) != name.charAt( i ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the end of the property name
+     * @return index of the first ; or :
+     */
+    private int nameEnd()
+    {
+        for ( int i = 0; i < line.length(); i++ )
+        {
+            char c = line.charAt( i );
+            if ( c == ';' || c == ':' )
+            {
+                return i;
+            }
+        }
+        return line.length();
+    }
+
+    /**
+     * Finds the start of the value, colons in quoted parameters are skipped
+     * @param nameEnd
+     * @return index after the colon or -1 if there is no value
+     */
+    private int valueStart( int nameEnd )
+    {
+        boolean quoted = false;
+        for ( int i = nameEnd; i < line.length(); i++ )
+        {
+            char c = line.charAt( i );
+            if ( c == '"' )
+            {
+                quoted = !quoted;
+            }
+            else if ( c == ':' && !quoted )
+            {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the value of a parameter of the current property
+     * @param key
+     * @param nameEnd
+     * @param valueStart
+     * @return String or null if the parameter is missing
+     */
+    private String parameter( String key, int nameEnd, int valueStart )
+    {
+        int i = nameEnd;
+        while ( i < valueStart - 1 )
+        {
+            //i is at the ; in front of the parameter
+            int keyStart = i + 1;
+            int equals = keyStart;
+            while ( equals < valueStart - 1 && line.charAt( equals ) != '=' )
+            {
+                equals++;
+            }
+            int end = equals;
+            boolean quoted = false;
+            while ( end < valueStart - 1 && ( quoted || line.charAt( end ) != ';' ) )
+            {
+                if ( line.charAt( end ) == '"' )
+                {
+                    quoted = !quoted;
+                }
+                end++;
+            }
+            if ( equals - keyStart == key.length() && line.substring( keyStart, equals ).equalsIgnoreCase( key ) )
+            {
+                String value = line.substring( equals + 1, end );
+                return value.length() > 1 && value.charAt( 0 ) == '"' ? value.substring( 1, value.length() - 1 ) : value;
+            }
+            i = end;
+        }
+        return null;
+    }
+
+    /**
+     * Parses a DATE or DATE-TIME value like 20261017, 20261017T101500 or
+     * 20261017T081500Z
+     * @param text
+     * @param from index of the value
+     * @param tzid the zone of the value or null
+     * @return LocalDateTime in the zone of the reader
+     * @throws IOException if the value is invalid
+     */
+    private LocalDateTime parseDateTime( CharSequence text, int from, String tzid ) throws IOException
+    {
+        LocalDateTime dateTime = parseLocalDateTime( text, from );
+        ZoneId source = sourceZone( text, from, tzid );
+        return source != null ? convert( dateTime, source ) : dateTime;
+    }
+
+    /**
+     * Returns the zone a DATE-TIME value is given in
+     * @param text
+     * @param from index of the value
+     * @param tzid the zone of the value or null
+     * @return UTC for values ending with Z, the zone of the TZID or null for
+     * dates and times without zone
+     */
+    private ZoneId sourceZone( CharSequence text, int from, String tzid )
+    {
+        int length = text.length() - from;
+        if ( length == 16 )
+        {
+            return ZoneOffset.UTC;
+        }
+        return length == 15 && tzid != null ? zone( tzid ) : null;
+    }
+
+    /**
+     * Converts a time of another zone to the zone of the reader. A time in
+     * the gap of a daylight saving change is moved by the length of the gap
+     * @param dateTime
+     * @param source
+     * @return LocalDateTime in the zone of the reader
+     */
+    private LocalDateTime convert( LocalDateTime dateTime, ZoneId source )
+    {
+        return dateTime.atZone( source ).withZoneSameInstant( zone ).toLocalDateTime();
+    }
+
+    /**
+     * Parses a DATE or DATE-TIME value without converting it
+     * @param text
+     * @param from index of the value
+     * @return LocalDateTime in the zone of the value
+     * @throws IOException if the value is invalid
+     */
+    private LocalDateTime parseLocalDateTime( CharSequence text, int from ) throws IOException
+    {
+        int length = text.length() - from;
+        if ( length != 8 && length != 15 && length != 16 )
+        {
+            throw invalid( text, from );
+        }
+        try
+        {
+            LocalDate date = LocalDate.of( digits( text, from, 4 ), digits( text, from + 4, 2 ), digits( text, from + 6, 2 ) );
+            if ( length == 8 )
+            {
+                return date.atStartOfDay();
+            }
+            if ( text.charAt( from + 8 ) != 'T' )
+            {
+                throw invalid( text, from );
+            }
+            LocalDateTime dateTime = date.atTime( digits( text, from + 9, 2 ), digits( text, from + 11, 2 ), digits( text, from + 13, 2 ) );
+            if ( length == 16 && text.charAt( from + 15 ) != 'Z' )
+            {
+                throw invalid( text, from );
+            }
+            return dateTime;
+        }
+        catch ( DateTimeException | NumberFormatException ex )
+        {
+            throw invalid( text, from );
+        }
+    }
+
+    /**
+     * Parses a number of decimal digits
+     * @param text
+     * @param from
+     * @param count
+     * @return int
+     */
+    private static int digits( CharSequence text, int from, int count )
+    {
+        int value = 0;
+        for ( int i = from; i < from + count; i++ )
+        {
+            int digit = text.charAt( i ) - '0';
+            if ( digit < 0 || digit > 9 )
+            {
+                throw new NumberFormatException( text.subSequence( from, from + count ).toString() );
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the zone of a TZID. Unknown zones are taken as the zone of the
+     * reader
+     * @param tzid
+     * @return ZoneId
+     */
+    private ZoneId zone( String tzid )
+    {
+        if ( !tzid.equals( lastTzid ) )
+        {
+            lastTzid = tzid;
+            try
+            {
+                lastZone = ZoneId.of( tzid );
+            }
+            catch ( DateTimeException ex )
+            {
+                lastZone = zone;
+            }
+        }
+        return lastZone;
+    }
+
+    /**
+     * Parses a DURATION value like PT1H30M, P1D or P2W
+     * @param text
+     * @return Duration or null if it is invalid or negative
+     */
+    private static Duration parseDuration( String text )
+    {
+        try
+        {
+            Duration parsed;
+            if ( text.endsWith( "W" ) )
+            {
+                parsed = Duration.ofDays( 7L * Long.parseLong( text.substring( 1, text.length() - 1 ) ) );
+            }
+            else
+            {
+                parsed = Duration.parse( text );
+            }
+            return parsed.isNegative() ? null : parsed;
+        }
+        catch ( RuntimeException ex )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the unescaped TEXT value of the current line
+     * @param valueStart
+     * @return String
+     */
+    private String unescape( int valueStart )
+    {
+        StringBuilder text = null;
+        for ( int i = valueStart; i < line.length(); i++ )
+        {
+            char c = line.charAt( i );
+            if ( c == '\\' && i + 1 < line.length() )
+            {
+                if ( text == null )
+                {
+                    text = new StringBuilder( line.length() - valueStart );
+                    text.append( line, valueStart, i );
+                }
+                char escaped = line.charAt( ++i );
+                text.append( escaped == 'n' || escaped == 'N' ? '\n' : escaped );
+            }
+            else if ( text != null )
+            {
+                text.append( c );
+            }
+        }
+        return text != null ? text.toString() : line.substring( valueStart );
+    }
+
+    /**
+     * Creates the exception for an invalid date
+     * @param text
+     * @param from
+     * @return IOException
+     */
+    private IOException invalid( CharSequence text, int from )
+    {
+        return new IOException( "Invalid date in line " + lineNumber + ": " + text.subSequence( from, text.length() ) );
+    }
+}
@@ -0,0 +1,292 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.awt.Color;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+/**
+ * Writes OGCalendarEvents as VEVENTs of an iCalendar file (RFC 5545). The
+ * events are encoded into a small buffer which is written to the channel
+ * whenever it is full, so any number of events can be written.
+ * Times are written without zone, all day events as dates. Lines longer
+ * than 75 bytes are folded. close writes the end of the calendar
+ */
+public class ICalendarWriter implements Closeable, Flushable
+{
+
+    /**
+     * Property which keeps the color of an event
+     */
+    static final String COLOR_PROPERTY = "X-OGCALENDAR-COLOR";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    //Maximum length of a line in bytes without the line break
+    private static final int LINE_LENGTH = 75;
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern( "yyyyMMdd" );
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern( "yyyyMMdd'T'HHmmss" );
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect( BUFFER_SIZE );
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput( CodingErrorAction.REPLACE )
+            .onUnmappableCharacter( CodingErrorAction.REPLACE );
+    private final StringBuilder line = new StringBuilder( 128 );
+    private final StringBuilder folded = new StringBuilder( 128 );
+    private boolean started;
+    private boolean closed;
+
+    /**
+     * Creates or overwrites a file
+     * @param path
+     * @throws IOException
+     */
+    public ICalendarWriter( Path path ) throws IOException
+    {
+        this( FileChannel.open( path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE ) );
+    }
+
+    /**
+     * Constructor which writes to a channel
+     * @param channel is closed by close
+     */
+    public ICalendarWriter( WritableByteChannel channel )
+    {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes an event with a new UID
+     * @param event
+     * @throws IOException
+     */
+    public void write( OGCalendarEvent event ) throws IOException
+    {
+        write( event, UUID.randomUUID() + "@ogcalendar" );
+    }
+
+    /**
+     * Writes an event
+     * @param event
+     * @param uid unique id of the event
+     * @throws IOException
+     */
+    public void write( OGCalendarEvent event, String uid ) throws IOException
+    {
+        if ( closed )
+        {
+            throw new IOException( "Writer is closed" );
+        }
+        start();
+        writeLine( "BEGIN:VEVENT" );
+        writeLine( "UID:" + uid );
+        writeLine( "DTSTAMP:" + DATE_TIME.format( LocalDateTime.now( ZoneOffset.UTC ) ) + "Z" );
+        if ( event.isAllDay() )
+        {
+            writeLine( "DTSTART;VALUE=DATE:" + DATE.format( event.getStart() ) );
+            writeLine( "DTEND;VALUE=DATE:" + DATE.format( event.getLastDay().plusDays( 1 ) ) );
+        }
+        else
+        {
+            writeLine( "DTSTART:" + DATE_TIME.format( event.getStart() ) );
+            writeLine( "DTEND:" + DATE_TIME.format( event.getEnd() ) );
+        }
+        if ( event.getTitle() != null )
+        {
+            writeText( "SUMMARY:", event.getTitle() );
+        }
+        if ( event.getResource() != null )
+        {
+            writeText( "LOCATION:", event.getResource() );
+        }
+        Color color = event.getColor();
+        if ( color != null )
+        {
+            writeLine( String.format( "%s:#%06X", COLOR_PROPERTY, color.getRGB() & 0xFFFFFF ) );
+        }
+        writeLine( "END:VEVENT" );
+    }
+
+    /**
+     * Writes the buffered bytes to the channel
+     * @throws IOException
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        bytes.flip();
+        while ( bytes.hasRemaining() )
+        {
+            channel.write( bytes );
+        }
+        bytes.clear();
+    }
+
+    /**
+     * Writes the end of the calendar and closes the channel
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if ( closed )
+        {
+            return;
+        }
+        try
+        {
+            start();
+            writeLine( "END:VCALENDAR" );
+            flush();
+        }
+        finally
+        {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes the start of the calendar before the first event
+     * @throws IOException
+     */
+    private void start() throws IOException
+    {
+        if ( !started )
+        {
+            started = true;
+            writeLine( "BEGIN:VCALENDAR" );
+            writeLine( "VERSION:2.0" );
+            writeLine( "PRODID:-//itwerkstatt//OGCalendar//EN" );
+        }
+    }
+
+    /**
+     * Writes a property with a TEXT value, the value is escaped
+     * @param name name and colon
+     * @param text
+     * @throws IOException
+     */
+    private void writeText( String name, String text ) throws IOException
+    {
+        line.setLength( 0 );
+        line.append( name );
+        for ( int i = 0; i < text.length(); i++ )
+        {
+            char c = text.charAt( i );
+            switch ( c )
+            {
+                case '\\':
+                case ';':
+                case ',':
+                    line.append( '\\' ).append( c );
+                    break;
+                case '\n':
+                    line.append( "\\n" );
+                    break;
+                case '\r':
+                    break;
+                default:
+                    line.append( c );
+                    break;
+            }
+        }
+        writeFolded( line );
+    }
+
+    /**
+     * Writes a line
+     * @param text
+     * @throws IOException
+     */
+    private void writeLine( String text ) throws IOException
+    {
+        line.setLength( 0 );
+        line.append( text );
+        writeFolded( line );
+    }
+
+    /**
+     * Folds a line into parts of at most 75 bytes and writes it. A character
+     * is never split between two parts
+     * @param text
+     * @throws IOException
+     */
+    private void writeFolded( CharSequence text ) throws IOException
+    {
+        folded.setLength( 0 );
+        int length = 0;
+        for ( int i = 0; i < text.length(); i++ )
+        {
+            char c = text.charAt( i );
+            int size;
+            if ( c < 0x80 )
+            {
+                size = 1;
+            }
+            else if ( c < 0x800 )
+            {
+                size = 2;
+            }
+            else if ( Character.isHighSurrogate( c ) )
+            {
+                //The low surrogate is written together with the high one
+                size = 4;
+            }
+            else if ( Character.isLowSurrogate( c ) )
+            {
+                size = 0;
+            }
+            else
+            {
+                size = 3;
+            }
+            if ( length + size > LINE_LENGTH )
+            {
+                folded.append( "\r\n " );
+                length = 1;
+            }
+            folded.append( c );
+            length += size;
+        }
+        folded.append( "\r\n" );
+        encode( CharBuffer.wrap( folded ) );
+    }
+
+    /**
+     * Encodes characters into the buffer, the buffer is written whenever it
+     * is full
+     * @param chars
+     * @throws IOException
+     */
+    private void encode( CharBuffer chars ) throws IOException
+    {
+        while ( true )
+        {
+            CoderResult result = encoder.encode( chars, bytes, true );
+            if ( result.isOverflow() )
+            {
+                flush();
+            }
+            else
+            {
+                encoder.reset();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.YearMonth;
+
+/**
+ * The layout of a month in a sheet of 6 weeks with 7 days, independent of
+ * any user interface. The cells are numbered from 0 to 41, row by row,
+ * starting with the given first day of the week. Cells before the first
+ * day of the month are leading days, cells after the last day are trailing
+ * days of the neighbouring months. In the first and last month supported
+ * by LocalDate some leading or trailing cells are before or after the
+ * supported range, these cells are not valid and have no date.
+ * Instances are immutable and can be shared between threads and components
+ */
+public final class MonthGrid
+{
+
+    /**
+     * Number of weeks in a sheet
+     */
+    public static final int WEEKS = 6;
+
+    /**
+     * Number of cells in a sheet
+     */
+    public static final int CELL_COUNT = WEEKS * 7;
+
+    private static final long MIN_EPOCH_DAY = LocalDate.MIN.toEpochDay();
+    private static final long MAX_EPOCH_DAY = LocalDate.MAX.toEpochDay();
+
+    private final YearMonth yearMonth;
+    private final DayOfWeek firstDayOfWeek;
+    private final int firstDayIndex;
+    private final int length;
+    private final long firstEpochDay;
+    private final int firstValidIndex;
+    private final int lastValidIndex;
+    private final byte[] dayOfMonth = new byte[CELL_COUNT];
+
+    private MonthGrid( YearMonth yearMonth, DayOfWeek firstDayOfWeek )
+    {
+        this.yearMonth = yearMonth;
+        this.firstDayOfWeek = firstDayOfWeek;
+        LocalDate first = yearMonth.atDay( 1 );
+        firstDayIndex = Math.floorMod( first.getDayOfWeek().getValue() - firstDayOfWeek.getValue(), 7 );
+        length = yearMonth.lengthOfMonth();
+        firstEpochDay = first.toEpochDay() - firstDayIndex;
+        firstValidIndex = (int) Math.max( 0, MIN_EPOCH_DAY - firstEpochDay );
+        lastValidIndex = (int) Math.min( CELL_COUNT - 1, MAX_EPOCH_DAY - firstEpochDay );
+        //Without a YearMonth, the previous month of the first supported one is out of range
+        int previousLength = yearMonth.getMonth() == Month.JANUARY ? 31
+                : yearMonth.getMonth().minus( 1 ).length( Year.isLeap( yearMonth.getYear() ) );
+        for ( int i = 0; i < CELL_COUNT; i++ )
+        {
+            int day = i - firstDayIndex + 1;
+            if ( day < 1 )
+            {
+                day += previousLength;
+            }
+            else if ( day > length )
+            {
+                day -= length;
+            }
+            dayOfMonth[i] = (byte) day;
+        }
+    }
+
+    /**
+     * Creates the grid of a month with weeks starting on monday
+     * @param yearMonth
+     * @return MonthGrid
+     */
+    public static MonthGrid of( YearMonth yearMonth )
+    {
+        return of( yearMonth, DayOfWeek.MONDAY );
+    }
+
+    /**
+     * Creates the grid of a month with weeks starting on the given day
+     * @param yearMonth
+     * @param firstDayOfWeek
+     * @return MonthGrid
+     */
+    public static MonthGrid of( YearMonth yearMonth, DayOfWeek firstDayOfWeek )
+    {
+        return new MonthGrid( yearMonth, firstDayOfWeek );
+    }
+
+    /**
+     * Getter for the month of this grid
+     * @return YearMonth
+     */
+    public YearMonth getYearMonth()
+    {
+        return yearMonth;
+    }
+
+    /**
+     * Getter for the day each week starts with
+     * @return DayOfWeek
+     */
+    public DayOfWeek getFirstDayOfWeek()
+    {
+        return firstDayOfWeek;
+    }
+
+    /**
+     * Getter for the weekday shown in the given column
+     * @param column 0 to 6
+     * @return DayOfWeek
+     */
+    public DayOfWeek getWeekday( int column )
+    {
+        return firstDayOfWeek.plus( column );
+    }
+
+    /**
+     * Getter for the index of the cell showing the first day of the month.
+     * This is the number of leading days
+     * @return int
+     */
+    public int getFirstDayIndex()
+    {
+        return firstDayIndex;
+    }
+
+    /**
+     * Getter for the number of days of the month
+     * @return int
+     */
+    public int getLengthOfMonth()
+    {
+        return length;
+    }
+
+    /**
+     * Getter for the day of month shown in a cell. For leading and trailing
+     * cells it is the day of the neighbouring month
+     * @param index
+     * @return int
+     */
+    public int getDayOfMonth( int index )
+    {
+        return dayOfMonth[index];
+    }
+
+    /**
+     * Checks if the cell shows a day of this month
+     * @param index
+     * @return boolean
+     */
+    public boolean isInMonth( int index )
+    {
+        return index >= firstDayIndex && index < firstDayIndex + length;
+    }
+
+    /**
+     * Checks if the cell shows a day of the previous month
+     * @param index
+     * @return boolean
+     */
+    public boolean isLeading( int index )
+    {
+        return index < firstDayIndex;
+    }
+
+    /**
+     * Checks if the cell shows a day of the next month
+     * @param index
+     * @return boolean
+     */
+    public boolean isTrailing( int index )
+    {
+        return index >= firstDayIndex + length;
+    }
+
+    /**
+     * Checks if the cell shows a day supported by LocalDate. This is only
+     * false for some leading cells of the first and some trailing cells of
+     * the last supported month
+     * @param index
+     * @return boolean
+     */
+    public boolean isValid( int index )
+    {
+        return index >= firstValidIndex && index <= lastValidIndex;
+    }
+
+    /**
+     * Getter for the index of the first valid cell
+     * @return 0 except for the first supported month
+     */
+    public int getFirstValidIndex()
+    {
+        return firstValidIndex;
+    }
+
+    /**
+     * Getter for the index of the last valid cell
+     * @return CELL_COUNT - 1 except for the last supported month
+     */
+    public int getLastValidIndex()
+    {
+        return lastValidIndex;
+    }
+
+    /**
+     * Getter for the epoch day of a cell
+     * @param index
+     * @return long
+     */
+    public long getEpochDay( int index )
+    {
+        return firstEpochDay + index;
+    }
+
+    /**
+     * Getter for the date of a cell
+     * @param index
+     * @return LocalDate or null if the cell is not valid
+     */
+    public LocalDate getDate( int index )
+    {
+        return isValid( index ) ? LocalDate.ofEpochDay( firstEpochDay + index ) : null;
+    }
+
+    /**
+     * Getter for the index of the cell showing the given day of this month
+     * @param day 1 to the length of the month
+     * @return int
+     */
+    public int indexOfDay( int day )
+    {
+        return firstDayIndex + day - 1;
+    }
+
+    /**
+     * Finds the cell of a date, e.g. to mark today
+     * @param date
+     * @return index of the cell or -1 if the date is not part of the sheet
+     */
+    public int indexOf( LocalDate date )
+    {
+        return indexOfEpochDay( date.toEpochDay() );
+    }
+
+    /**
+     * Finds the cell of an epoch day
+     * @param epochDay
+     * @return index of the cell or -1 if the day is not part of the sheet
+     */
+    public int indexOfEpochDay( long epochDay )
+    {
+        long index = epochDay - firstEpochDay;
+        return index >= 0 && index < CELL_COUNT ? (int) index : -1;
+    }
+
+    @Override
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+        if ( !( obj instanceof MonthGrid ) )
+        {
+            return false;
+        }
+        MonthGrid other = (MonthGrid) obj;
+        return yearMonth.equals( other.yearMonth ) && firstDayOfWeek == other.firstDayOfWeek;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return yearMonth.hashCode() * 31 + firstDayOfWeek.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MonthGrid[" + yearMonth + ", " + firstDayOfWeek + "]";
+    }
+}
@@ -0,0 +1,164 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.time.DayOfWeek;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache for MonthGrid instances with a limited size. If the cache is full
+ * the least recently used month is removed.
+ * All OGDayChooser instances use the shared cache unless another one is set,
+ * an OGMultiMonthCalendar has its own one. The size of the shared cache can
+ * be changed with getShared().setMaximumSize.
+ * The cache is thread safe
+ */
+public class MonthGridCache
+{
+
+    /**
+     * Initial size of the shared cache, two years
+     */
+    public static final int DEFAULT_SIZE = 24;
+
+    private static final MonthGridCache SHARED = new MonthGridCache( DEFAULT_SIZE );
+
+    private final LinkedHashMap<Long, MonthGrid> grids = new LinkedHashMap<>( 16, 0.75f, true );
+    private int maximumSize;
+
+    /**
+     * Constructor which sets the maximum number of months
+     * @param maximumSize at least 1
+     */
+    public MonthGridCache( int maximumSize )
+    {
+        setMaximumSize( maximumSize );
+    }
+
+    /**
+     * Getter for the cache shared by all components
+     * @return MonthGridCache
+     */
+    public static MonthGridCache getShared()
+    {
+        return SHARED;
+    }
+
+    /**
+     * Returns the grid of a month, it is created if it is not cached yet
+     * @param yearMonth
+     * @param firstDayOfWeek
+     * @return MonthGrid
+     */
+    public synchronized MonthGrid get( YearMonth yearMonth, DayOfWeek firstDayOfWeek )
+    {
+        Long key = key( yearMonth, firstDayOfWeek );
+        MonthGrid grid = grids.get( key );
+        if ( grid == null )
+        {
+            grid = MonthGrid.of( yearMonth, firstDayOfWeek );
+            grids.put( key, grid );
+            evict();
+        }
+        return grid;
+    }
+
+    /**
+     * Checks if the grid of a month is cached
+     * @param yearMonth
+     * @param firstDayOfWeek
+     * @return boolean
+     */
+    public synchronized boolean contains( YearMonth yearMonth, DayOfWeek firstDayOfWeek )
+    {
+        return grids.containsKey( key( yearMonth, firstDayOfWeek ) );
+    }
+
+    /**
+     * Computes the grids of the months before and after the given month, so
+     * navigating in either direction finds them in the cache
+     * @param yearMonth
+     * @param firstDayOfWeek
+     */
+    public void prefetchNeighbours( YearMonth yearMonth, DayOfWeek firstDayOfWeek )
+    {
+        if ( yearMonth.getYear() > Year.MIN_VALUE || yearMonth.getMonthValue() > 1 )
+        {
+            get( yearMonth.minusMonths( 1 ), firstDayOfWeek );
+        }
+        if ( yearMonth.getYear() < Year.MAX_VALUE || yearMonth.getMonthValue() < 12 )
+        {
+            get( yearMonth.plusMonths( 1 ), firstDayOfWeek );
+        }
+        //The current month is the most recently used one again
+        get( yearMonth, firstDayOfWeek );
+    }
+
+    /**
+     * Sets the maximum number of months. If there are more months in the
+     * cache the least recently used ones are removed
+     * @param maximumSize at least 1
+     */
+    public synchronized void setMaximumSize( int maximumSize )
+    {
+        if ( maximumSize < 1 )
+        {
+            throw new IllegalArgumentException( "maximumSize must be at least 1: " + maximumSize );
+        }
+        this.maximumSize = maximumSize;
+        evict();
+    }
+
+    /**
+     * Getter for the maximum number of months
+     * @return int
+     */
+    public synchronized int getMaximumSize()
+    {
+        return maximumSize;
+    }
+
+    /**
+     * Getter for the number of months in the cache
+     * @return int
+     */
+    public synchronized int size()
+    {
+        return grids.size();
+    }
+
+    /**
+     * Removes all months from the cache
+     */
+    public synchronized void clear()
+    {
+        grids.clear();
+    }
+
+    /**
+     * Removes the least recently used months until the maximum size is kept
+     */
+    private void evict()
+    {
+        Iterator<Map.Entry<Long, MonthGrid>> iterator = grids.entrySet().iterator();
+        while ( grids.size() > maximumSize && iterator.hasNext() )
+        {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Packs month and first day of week into one key
+     * @param yearMonth
+     * @param firstDayOfWeek
+     * @return Long
+     */
+    private static Long key( YearMonth yearMonth, DayOfWeek firstDayOfWeek )
+    {
+        long month = yearMonth.getYear() * 12L + yearMonth.getMonthValue() - 1;
+        return month * 7 + firstDayOfWeek.ordinal();
+    }
+}
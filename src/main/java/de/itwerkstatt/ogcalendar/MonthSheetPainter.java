@@ -0,0 +1,370 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.util.Map;
+import javax.swing.border.BevelBorder;
+import javax.swing.border.Border;
+import javax.swing.border.EmptyBorder;
+
+/**
+ * Paints a month sheet, a row of headlines and 6 weeks with 7 days, into a
+ * given area. The look is the same as the one of the label based sheet.
+ * Font metrics and cell rectangles are cached until the font or the area
+ * changes. A painter is not thread safe, every thread needs its own instance
+ */
+class MonthSheetPainter
+{
+
+    static final int WEEKS = MonthGrid.WEEKS;
+    static final int CELL_COUNT = MonthGrid.CELL_COUNT;
+
+    //Flags describing the state of a cell
+    static final int IN_MONTH = 1;
+    static final int TODAY = 1 << 1;
+    static final int FOCUSED = 1 << 2;
+    static final int HOVER = 1 << 3;
+    static final int IN_RANGE = 1 << 4;
+    static final int NON_WORKING = 1 << 5;
+    static final int DISABLED = 1 << 6;
+
+    static final Border DAY_BORDER = new BevelBorder( BevelBorder.RAISED );
+    static final Border FOCUS_BORDER = new BevelBorder( BevelBorder.LOWERED );
+    //Same insets as the bevel border so switching never changes the cell size
+    static final Border EMPTY_BORDER = new EmptyBorder( 2, 2, 2, 2 );
+    //Background of days in the selected range
+    static final Color RANGE_COLOR = new Color( 184, 207, 229 );
+    //Background of weekends and holidays
+    static final Color NON_WORKING_COLOR = new Color( 232, 232, 232 );
+    //Foreground of days which can not be selected
+    static final Color DISABLED_COLOR = new Color( 160, 160, 160 );
+
+    private static final Color TODAY_COLOR = Color.red;
+    private static final Color BADGE_COLOR = new Color( 70, 110, 180 );
+    private static final String[] BADGE_TEXTS = new String[100];
+
+    static
+    {
+        for ( int i = 1; i < BADGE_TEXTS.length; i++ )
+        {
+            BADGE_TEXTS[i] = String.valueOf( i );
+        }
+    }
+
+    private static final Color HOVER_COLOR = new Color( 0, 0, 0, 24 );
+    //Gap around each cell, same as the insets of the cell constraints
+    private static final int GAP = 1;
+    //Insets of the day borders
+    private static final int BORDER = 2;
+
+    private final Rectangle[] headlineBounds = new Rectangle[7];
+    private final Rectangle[] cellBounds = new Rectangle[CELL_COUNT];
+    private Font font;
+    private FontMetrics fontMetrics;
+    private int x;
+    private int y;
+    private int width = -1;
+    private int height = -1;
+
+    MonthSheetPainter()
+    {
+        for ( int i = 0; i < headlineBounds.length; i++ )
+        {
+            headlineBounds[i] = new Rectangle();
+        }
+        for ( int i = 0; i < cellBounds.length; i++ )
+        {
+            cellBounds[i] = new Rectangle();
+        }
+    }
+
+    /**
+     * Computes the size a sheet needs to show all cells
+     * @param fm
+     * @return Dimension
+     */
+    static Dimension preferredSize( FontMetrics fm )
+    {
+        int cellWidth = fm.stringWidth( "00" ) + 2 * BORDER + 2 * GAP;
+        int cellHeight = preferredRowHeight( fm );
+        return new Dimension( 7 * cellWidth, fm.getHeight() + WEEKS * cellHeight );
+    }
+
+    /**
+     * Applies the text antialiasing settings of the desktop to the graphics
+     * @param g
+     */
+    static void applyTextHints( Graphics g )
+    {
+        Map<?, ?> hints = (Map<?, ?>) Toolkit.getDefaultToolkit().getDesktopProperty( "awt.font.desktophints" );
+        if ( hints != null && g instanceof Graphics2D )
+        {
+            ( (Graphics2D) g ).addRenderingHints( hints );
+        }
+        else if ( g instanceof Graphics2D )
+        {
+            ( (Graphics2D) g ).setRenderingHint( RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON );
+        }
+    }
+
+    /**
+     * Sets the area and the font metrics of the sheet. The cell rectangles
+     * are only computed again if one of them has changed
+     * @param fm
+     * @param x
+     * @param y
+     * @param width
+     * @param height
+     */
+    void layout( FontMetrics fm, int x, int y, int width, int height )
+    {
+        if ( fm.getFont().equals( font ) && this.x == x && this.y == y
+                && this.width == width && this.height == height )
+        {
+            return;
+        }
+        font = fm.getFont();
+        fontMetrics = fm;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        int headlineHeight = fm.getHeight();
+        int weeksHeight = height - headlineHeight;
+        for ( int column = 0; column < 7; column++ )
+        {
+            int left = columnStart( column );
+            int right = columnStart( column + 1 );
+            headlineBounds[column].setBounds( left, y, right - left, headlineHeight );
+            for ( int week = 0; week < WEEKS; week++ )
+            {
+                int top = y + headlineHeight + week * weeksHeight / WEEKS;
+                int bottom = y + headlineHeight + ( week + 1 ) * weeksHeight / WEEKS;
+                cellBounds[week * 7 + column].setBounds( left + GAP, top + GAP,
+                        right - left - 2 * GAP, bottom - top - 2 * GAP );
+            }
+        }
+    }
+
+    /**
+     * Sets the font metrics for painting cells at bounds which are not
+     * computed by layout, see paintDay
+     * @param fm
+     */
+    void setFontMetrics( FontMetrics fm )
+    {
+        font = fm.getFont();
+        fontMetrics = fm;
+        //The cached cell rectangles are computed again on the next layout
+        width = -1;
+    }
+
+    /**
+     * Getter for the height of a week row at the preferred size
+     * @param fm
+     * @return int
+     */
+    static int preferredRowHeight( FontMetrics fm )
+    {
+        return fm.getHeight() + 2 * BORDER + 2 * GAP;
+    }
+
+    /**
+     * Getter for the cached bounds of a cell. The returned rectangle must not
+     * be modified
+     * @param index
+     * @return Rectangle
+     */
+    Rectangle getCellBounds( int index )
+    {
+        return cellBounds[index];
+    }
+
+    /**
+     * Finds the cell at the given position
+     * @param px
+     * @param py
+     * @return index of the cell or -1 if there is no cell
+     */
+    int cellAt( int px, int py )
+    {
+        int top = y + fontMetrics.getHeight();
+        int weeksHeight = height - fontMetrics.getHeight();
+        if ( px < x || px >= x + width || py < top || py >= y + height || weeksHeight <= 0 )
+        {
+            return -1;
+        }
+        int column = ( px - x ) * 7 / width;
+        while ( column < 6 && px >= columnStart( column + 1 ) )
+        {
+            column++;
+        }
+        while ( column > 0 && px < columnStart( column ) )
+        {
+            column--;
+        }
+        int week = ( py - top ) * WEEKS / weeksHeight;
+        while ( week < WEEKS - 1 && py >= top + ( week + 1 ) * weeksHeight / WEEKS )
+        {
+            week++;
+        }
+        while ( week > 0 && py < top + week * weeksHeight / WEEKS )
+        {
+            week--;
+        }
+        return week * 7 + column;
+    }
+
+    /**
+     * Paints the seven headlines
+     * @param g
+     * @param headlines
+     * @param foreground
+     */
+    void paintHeadlines( Graphics g, String[] headlines, Color foreground )
+    {
+        g.setColor( foreground );
+        g.setFont( font );
+        for ( int i = 0; i < 7; i++ )
+        {
+            drawCentered( g, headlines[i], headlineBounds[i] );
+        }
+    }
+
+    /**
+     * Paints a single cell. Cells which are not part of the month stay empty
+     * @param g
+     * @param c the component the borders are painted for
+     * @param index
+     * @param text
+     * @param flags
+     * @param foreground
+     * @param decoration decoration of the day or null
+     */
+    void paintCell( Graphics g, Component c, int index, String text, int flags, Color foreground, DayDecoration decoration )
+    {
+        paintDay( g, c, cellBounds[index], text, flags, foreground, decoration );
+    }
+
+    /**
+     * Paints a single day into the given rectangle with the look of a cell
+     * @param g
+     * @param c the component the borders are painted for
+     * @param r
+     * @param text
+     * @param flags
+     * @param foreground
+     * @param decoration decoration of the day or null
+     */
+    void paintDay( Graphics g, Component c, Rectangle r, String text, int flags, Color foreground, DayDecoration decoration )
+    {
+        if ( ( flags & IN_MONTH ) == 0 )
+        {
+            return;
+        }
+        if ( decoration != null && decoration.getBackground() != null )
+        {
+            g.setColor( decoration.getBackground() );
+            g.fillRect( r.x, r.y, r.width, r.height );
+        }
+        else if ( ( flags & NON_WORKING ) != 0 )
+        {
+            g.setColor( NON_WORKING_COLOR );
+            g.fillRect( r.x, r.y, r.width, r.height );
+        }
+        if ( ( flags & IN_RANGE ) != 0 )
+        {
+            g.setColor( RANGE_COLOR );
+            g.fillRect( r.x, r.y, r.width, r.height );
+        }
+        if ( decoration != null && decoration.getForeground() != null )
+        {
+            foreground = decoration.getForeground();
+        }
+        if ( ( flags & DISABLED ) != 0 )
+        {
+            foreground = DISABLED_COLOR;
+        }
+        if ( ( flags & HOVER ) != 0 )
+        {
+            g.setColor( HOVER_COLOR );
+            g.fillRect( r.x, r.y, r.width, r.height );
+        }
+        Border border = ( flags & FOCUSED ) != 0 ? FOCUS_BORDER : DAY_BORDER;
+        border.paintBorder( c, g, r.x, r.y, r.width, r.height );
+        g.setColor( ( flags & TODAY ) != 0 ? TODAY_COLOR : foreground );
+        g.setFont( font );
+        drawCentered( g, text, r );
+    }
+
+    /**
+     * Derives the font of the badges from the font of the days
+     * @param font
+     * @return Font
+     */
+    static Font badgeFont( Font font )
+    {
+        return font.deriveFont( Font.BOLD, Math.max( 7f, font.getSize2D() * 0.7f ) );
+    }
+
+    /**
+     * Paints the number of events in the upper right corner of a day
+     * @param g
+     * @param x
+     * @param y
+     * @param width
+     * @param height
+     * @param count nothing is painted if it is 0
+     * @param badgeFont see badgeFont
+     */
+    static void paintBadge( Graphics g, int x, int y, int width, int height, int count, Font badgeFont )
+    {
+        if ( count <= 0 )
+        {
+            return;
+        }
+        String text = count < BADGE_TEXTS.length ? BADGE_TEXTS[count] : "99+";
+        FontMetrics fm = g.getFontMetrics( badgeFont );
+        int badgeHeight = Math.min( fm.getAscent() + 2, height - 2 * BORDER );
+        int badgeWidth = Math.max( badgeHeight, fm.stringWidth( text ) + 4 );
+        int badgeX = x + width - BORDER - badgeWidth;
+        int badgeY = y + BORDER;
+        g.setColor( BADGE_COLOR );
+        g.fillRoundRect( badgeX, badgeY, badgeWidth, badgeHeight, badgeHeight, badgeHeight );
+        g.setColor( Color.white );
+        g.setFont( badgeFont );
+        g.drawString( text, badgeX + ( badgeWidth - fm.stringWidth( text ) ) / 2,
+                badgeY + ( badgeHeight - fm.getAscent() ) / 2 + fm.getAscent() - 1 );
+    }
+
+    /**
+     * Draws the text in the center of the rectangle
+     * @param g
+     * @param text
+     * @param r
+     */
+    private void drawCentered( Graphics g, String text, Rectangle r )
+    {
+        int textX = r.x + ( r.width - fontMetrics.stringWidth( text ) ) / 2;
+        int textY = r.y + ( r.height - fontMetrics.getHeight() ) / 2 + fontMetrics.getAscent();
+        g.drawString( text, textX, textY );
+    }
+
+    /**
+     * Left edge of the given column
+     * @param column
+     * @return int
+     */
+    private int columnStart( int column )
+    {
+        return x + column * width / 7;
+    }
+}
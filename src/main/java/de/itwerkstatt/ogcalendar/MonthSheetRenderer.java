@@ -0,0 +1,405 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.awt.AlphaComposite;
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+
+/**
+ * Renders month sheets without any component, e.g. to print rosters on a
+ * headless server. A sheet has the title of the month, the headlines and
+ * the days with the same look as an OGDayChooser in RenderMode.PAINTED,
+ * including the today marker, the decorations and the non working days.
+ * It can be painted to any Graphics2D, also vector output like a printer,
+ * or rendered to a BufferedImage.
+ * A renderer is thread safe, every thread paints with its own painter. The
+ * settings should not be changed while sheets are rendered. renderAll
+ * renders many sheets in parallel on a ForkJoinPool and reuses one image
+ * per thread
+ */
+public final class MonthSheetRenderer
+{
+
+    private static final String[] DAY_TEXTS = new String[32];
+
+    static
+    {
+        for ( int i = 1; i < DAY_TEXTS.length; i++ )
+        {
+            DAY_TEXTS[i] = String.valueOf( i );
+        }
+    }
+
+    private final CalendarNames names;
+    private final Font font;
+    //Headlines in the order of the columns
+    private final String[] headlines = new String[7];
+    private final ThreadLocal<Sheet> sheets = ThreadLocal.withInitial( Sheet::new );
+    private volatile Color foreground = Color.black;
+    private volatile Color background = Color.white;
+    private volatile DayDecorator decorator;
+    private volatile BusinessCalendar businessCalendar;
+    private volatile boolean todayShown = true;
+
+    /**
+     * Constructor with the default Locale and font
+     */
+    public MonthSheetRenderer()
+    {
+        this( Locale.getDefault(), new Font( Font.DIALOG, Font.PLAIN, 12 ) );
+    }
+
+    /**
+     * Constructor which sets the Locale and the font
+     * @param locale defines the names and the first day of the week
+     * @param font
+     */
+    public MonthSheetRenderer( Locale locale, Font font )
+    {
+        this.names = CalendarNames.of( locale );
+        this.font = font;
+        for ( int column = 0; column < 7; column++ )
+        {
+            headlines[column] = names.getWeekdayName( names.getFirstDayOfWeek().plus( column ) );
+        }
+    }
+
+    /**
+     * Sets the color of the texts
+     * @param foreground
+     */
+    public void setForeground( Color foreground )
+    {
+        this.foreground = foreground;
+    }
+
+    /**
+     * Getter for the color of the texts
+     * @return Color
+     */
+    public Color getForeground()
+    {
+        return foreground;
+    }
+
+    /**
+     * Sets the color the sheet is filled with
+     * @param background null to keep the background, e.g. of a transparent
+     * image
+     */
+    public void setBackground( Color background )
+    {
+        this.background = background;
+    }
+
+    /**
+     * Getter for the color the sheet is filled with
+     * @return Color or null
+     */
+    public Color getBackground()
+    {
+        return background;
+    }
+
+    /**
+     * Sets the decorator which colors the days. It is called on the
+     * rendering thread for every sheet
+     * @param decorator null for no decorations
+     */
+    public void setDecorator( DayDecorator decorator )
+    {
+        this.decorator = decorator;
+    }
+
+    /**
+     * Getter for the decorator which colors the days
+     * @return DayDecorator or null
+     */
+    public DayDecorator getDecorator()
+    {
+        return decorator;
+    }
+
+    /**
+     * Sets the calendar which defines the shaded non working days
+     * @param businessCalendar null for no shading
+     */
+    public void setBusinessCalendar( BusinessCalendar businessCalendar )
+    {
+        this.businessCalendar = businessCalendar;
+    }
+
+    /**
+     * Getter for the calendar which defines the non working days
+     * @return BusinessCalendar or null
+     */
+    public BusinessCalendar getBusinessCalendar()
+    {
+        return businessCalendar;
+    }
+
+    /**
+     * Sets if the current day is marked
+     * @param todayShown
+     */
+    public void setTodayShown( boolean todayShown )
+    {
+        this.todayShown = todayShown;
+    }
+
+    /**
+     * Checks if the current day is marked
+     * @return boolean
+     */
+    public boolean isTodayShown()
+    {
+        return todayShown;
+    }
+
+    /**
+     * Computes the size a sheet needs to show all days
+     * @return Dimension
+     */
+    public Dimension getPreferredSize()
+    {
+        FontMetrics fm = sheets.get().borderComponent.getFontMetrics( font );
+        Dimension size = MonthSheetPainter.preferredSize( fm );
+        size.height += fm.getHeight();
+        return size;
+    }
+
+    /**
+     * Paints the sheet of a month into the given area
+     * @param g
+     * @param month
+     * @param x
+     * @param y
+     * @param width
+     * @param height
+     */
+    public void paint( Graphics2D g, YearMonth month, int x, int y, int width, int height )
+    {
+        paint( sheets.get(), g, month, x, y, width, height );
+    }
+
+    /**
+     * Renders the sheet of a month to a new image
+     * @param month
+     * @param width
+     * @param height
+     * @return BufferedImage
+     */
+    public BufferedImage render( YearMonth month, int width, int height )
+    {
+        BufferedImage image = new BufferedImage( width, height, BufferedImage.TYPE_INT_ARGB );
+        Graphics2D g = image.createGraphics();
+        try
+        {
+            paint( g, month, 0, 0, width, height );
+        }
+        finally
+        {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Renders the sheets of several months in parallel on the common pool
+     * @param months
+     * @param width
+     * @param height
+     * @param consumer see renderAll( ForkJoinPool, Collection, int, int,
+     * BiConsumer )
+     */
+    public void renderAll( Collection<YearMonth> months, int width, int height, BiConsumer<YearMonth, BufferedImage> consumer )
+    {
+        renderAll( ForkJoinPool.commonPool(), months, width, height, consumer );
+    }
+
+    /**
+     * Renders the sheets of several months in parallel and returns when all
+     * are done. Every thread of the pool renders into its own image which
+     * is reused for the next month, so the consumer must write or copy the
+     * image before it returns and must not keep it
+     * @param pool
+     * @param months
+     * @param width
+     * @param height
+     * @param consumer is called on the rendering thread with each month and
+     * its image
+     */
+    public void renderAll( ForkJoinPool pool, Collection<YearMonth> months, int width, int height, BiConsumer<YearMonth, BufferedImage> consumer )
+    {
+        if ( width <= 0 || height <= 0 )
+        {
+            throw new IllegalArgumentException( "width and height must be positive: " + width + "x" + height );
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>( months.size() );
+        for ( YearMonth month : months )
+        {
+            tasks.add( pool.submit( () -> consumer.accept( month, renderReused( month, width, height ) ) ) );
+        }
+        for ( ForkJoinTask<?> task : tasks )
+        {
+            task.join();
+        }
+    }
+
+    /**
+     * Renders a month into the image of the current thread
+     * @param month
+     * @param width
+     * @param height
+     * @return the image, it is reused for the next month
+     */
+    private BufferedImage renderReused( YearMonth month, int width, int height )
+    {
+        Sheet sheet = sheets.get();
+        if ( sheet.image == null || sheet.image.getWidth() != width || sheet.image.getHeight() != height )
+        {
+            sheet.image = new BufferedImage( width, height, BufferedImage.TYPE_INT_ARGB );
+        }
+        Graphics2D g = sheet.image.createGraphics();
+        try
+        {
+            if ( background == null )
+            {
+                //Nothing of the previous month may remain
+                g.setComposite( AlphaComposite.Clear );
+                g.fillRect( 0, 0, width, height );
+                g.setComposite( AlphaComposite.SrcOver );
+            }
+            paint( sheet, g, month, 0, 0, width, height );
+        }
+        finally
+        {
+            g.dispose();
+        }
+        return sheet.image;
+    }
+
+    /**
+     * Paints the sheet of a month with the painter of the current thread
+     * @param sheet
+     * @param g
+     * @param month
+     * @param x
+     * @param y
+     * @param width
+     * @param height
+     */
+    private void paint( Sheet sheet, Graphics2D g, YearMonth month, int x, int y, int width, int height )
+    {
+        Color back = background;
+        Color fore = foreground;
+        MonthGrid grid = MonthGrid.of( month, names.getFirstDayOfWeek() );
+        if ( back != null )
+        {
+            g.setColor( back );
+            g.fillRect( x, y, width, height );
+        }
+        sheet.borderComponent.setBackground( back != null ? back : Color.white );
+        MonthSheetPainter.applyTextHints( g );
+        FontMetrics fm = g.getFontMetrics( font );
+        String title = names.getMonthName( month.getMonth() ) + " " + month.getYear();
+        g.setColor( fore );
+        g.setFont( font );
+        g.drawString( title, x + ( width - fm.stringWidth( title ) ) / 2, y + fm.getAscent() );
+        sheet.painter.layout( fm, x, y + fm.getHeight(), width, height - fm.getHeight() );
+        sheet.painter.paintHeadlines( g, headlines, fore );
+        loadDecorations( grid, sheet.decorations );
+        BusinessCalendar calendar = businessCalendar;
+        int firstValid = grid.getFirstValidIndex();
+        long nonWorking = calendar != null
+                ? calendar.nonWorkingMask( grid.getDate( firstValid ), grid.getLastValidIndex() - firstValid + 1 ) << firstValid : 0;
+        int todayIndex = todayShown ? grid.indexOf( LocalDate.now() ) : -1;
+        int first = grid.getFirstDayIndex();
+        for ( int i = first; i < first + grid.getLengthOfMonth(); i++ )
+        {
+            int flags = MonthSheetPainter.IN_MONTH;
+            if ( i == todayIndex )
+            {
+                flags |= MonthSheetPainter.TODAY;
+            }
+            if ( ( nonWorking & 1L << i ) != 0 )
+            {
+                flags |= MonthSheetPainter.NON_WORKING;
+            }
+            sheet.painter.paintCell( g, sheet.borderComponent, i, DAY_TEXTS[grid.getDayOfMonth( i )], flags, fore, sheet.decorations[i] );
+        }
+    }
+
+    /**
+     * Asks the decorator for the days of the month. If it fails the days
+     * stay undecorated
+     * @param grid
+     * @param decorations receives the decorations by cell
+     */
+    private void loadDecorations( MonthGrid grid, DayDecoration[] decorations )
+    {
+        Arrays.fill( decorations, null );
+        DayDecorator dayDecorator = decorator;
+        if ( dayDecorator == null )
+        {
+            return;
+        }
+        int first = grid.getFirstDayIndex();
+        Map<LocalDate, DayDecoration> loaded;
+        try
+        {
+            loaded = dayDecorator.decorate( grid.getDate( first ), grid.getDate( first + grid.getLengthOfMonth() - 1 ) );
+        }
+        catch ( Exception ex )
+        {
+            return;
+        }
+        if ( loaded == null )
+        {
+            return;
+        }
+        for ( Map.Entry<LocalDate, DayDecoration> entry : loaded.entrySet() )
+        {
+            int index = grid.indexOf( entry.getKey() );
+            if ( index >= 0 )
+            {
+                decorations[index] = entry.getValue();
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MonthSheetRenderer[" + names.getLocale() + ", " + font + "]";
+    }
+
+    /**
+     * The painter and buffers of a single thread. The class is static, so
+     * a renderer which is no longer used is not kept alive by the threads
+     */
+    private static final class Sheet
+    {
+
+        private final MonthSheetPainter painter = new MonthSheetPainter();
+        //Only the background of the borders is taken from the component
+        private final Canvas borderComponent = new Canvas();
+        private final DayDecoration[] decorations = new DayDecoration[MonthGrid.CELL_COUNT];
+        private BufferedImage image;
+    }
+}
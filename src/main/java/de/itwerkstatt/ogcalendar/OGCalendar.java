@@ -2,12 +2,21 @@ package de.itwerkstatt.ogcalendar;
 
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.time.LocalDate;
 import java.time.Month;
 import java.time.Year;
 import java.time.YearMonth;
+import java.util.Locale;
+import java.util.function.Predicate;
 import javax.swing.JPanel;
+import javax.swing.Timer;
 
 /**
  * This components allows the user to choose a year, a month and a day.
@@ -15,6 +24,18 @@ import javax.swing.JPanel;
  * dateSelected = get the selected LocalDate
  * monthSelected = get the selected Month
  * yearSelected = get the selected Year
+ * rangeSelected = get the selected DateRange, see setSelectionMode
+ * All changes caused by one user action or one call of a setter are collected
+ * and applied together: the days are refreshed once and the events are fired
+ * once at the end, in the order monthSelected, yearSelected, dateSelected,
+ * rangeSelected
+ * The events are published on an OGCalendarEventBus as typed events. The
+ * PropertyChangeListeners are served by a listener on this bus, new code
+ * should subscribe to the bus directly, see getEventBus
+ * If the user changes month or year with the spin buttons, month and year
+ * are shown at once but the days are refreshed only after the value did not
+ * change for the refresh delay. The first change after a pause is shown at
+ * once, so only fast navigation is delayed
  * @author Dominik Sust
  * @creation 20.12.2017 07:49:07
  */
@@ -24,6 +45,34 @@ public class OGCalendar extends JPanel
     private final OGMonthChooser monthChooser;
     private final OGYearChooser yearChooser;
     private final OGDayChooser dayChooser;
+    /**
+     * Default delay in milliseconds before the days are refreshed while the
+     * user is navigating
+     */
+    public static final int DEFAULT_REFRESH_DELAY = 150;
+
+    private final PropertyChangeSupport pcs = new PropertyChangeSupport( this );
+    private final OGCalendarEventBus eventBus = new OGCalendarEventBus();
+    private OGCalendarInstrumentation instrumentation;
+    private OGCalendarModel model;
+    private final PropertyChangeListener modelListener = (e) -> modelChanged( (YearMonth) e.getNewValue() );
+    //Set while the calendar follows a change of the model
+    private boolean modelChanging;
+
+    //The year and month shown by the calendar
+    private YearMonth currentYearAndMonth;
+    //Nesting depth of the running update
+    private int updateDepth;
+    //State at the start of the running update
+    private YearMonth updateStart;
+    private boolean refreshNeeded;
+    private LocalDate pendingDateSelected;
+    private DateRange pendingRangeSelected;
+    //Set while the choosers are changed by the calendar itself
+    private boolean adjusting;
+    //Set if the running update was caused by the month or year chooser
+    private boolean chooserChanged;
+    private final Timer refreshTimer;
 
     /**
      * Constructor for displaying the current year and month
@@ -38,43 +87,406 @@ public class OGCalendar extends JPanel
      * @param yearMonth 
      */
     public OGCalendar( YearMonth yearMonth )
+    {
+        this( yearMonth, OGDayChooser.RenderMode.COMPONENTS );
+    }
+
+    /**
+     * Constructor which allows you to set the desired year and month and
+     * the way the days are displayed
+     * @param yearMonth 
+     * @param renderMode 
+     */
+    public OGCalendar( YearMonth yearMonth, OGDayChooser.RenderMode renderMode )
     {
         super();
         monthChooser = new OGMonthChooser( yearMonth.getMonth() );
         yearChooser = new OGYearChooser( Year.from( yearMonth ) );
-        dayChooser = new OGDayChooser( yearMonth );
+        dayChooser = new OGDayChooser( yearMonth, renderMode );
+        currentYearAndMonth = yearMonth;
+        refreshTimer = new Timer( DEFAULT_REFRESH_DELAY, (e) -> refreshDays() );
+        refreshTimer.setRepeats( false );
         init();
 
         //Listener registration
         monthChooser.addPropertyChangeListener( "monthSelected", (e) -> monthChanged( e ) );
         yearChooser.addPropertyChangeListener( "yearSelected", (e) -> yearChanged( e ) );
+        dayChooser.addPropertyChangeListener( "currentYearAndMonth", (e) -> dayChooserNavigated( e ) );
+        dayChooser.addPropertyChangeListener( "dateSelected", (e) -> dateSelected( e ) );
+        dayChooser.addPropertyChangeListener( "rangeSelected", (e) -> rangeSelected( e ) );
+        //The keys of the day chooser must start from the current month, not
+        //from the one shown before a pending refresh. Key listeners are
+        //called before the key bindings
+        dayChooser.addKeyListener( new KeyAdapter()
+        {
+            @Override
+            public void keyPressed( KeyEvent e )
+            {
+                flushRefresh();
+            }
+        } );
+        dayChooser.addFocusListener( new FocusAdapter()
+        {
+            @Override
+            public void focusGained( FocusEvent e )
+            {
+                flushRefresh();
+            }
+        } );
+        //The PropertyChangeListeners receive all events of the bus
+        eventBus.subscribe( OGCalendarEventBus.Event.class,
+                (e) -> pcs.firePropertyChange( e.getPropertyName(), e.getOldValue(), e.getNewValue() ) );
     }
     
     /**
-     * Setter for the current Date to be displayed by the component
+     * Setter for the current Date to be displayed by the component. Must be
+     * called on the EDT, other threads change the model, see setModel
      * @param newYearAndMonth 
      */
     public void setCurrentDate(YearMonth newYearAndMonth)
     {
-        monthChooser.setCurrentMonth( newYearAndMonth.getMonth() );
-        yearChooser.setCurrentYear( Year.from( newYearAndMonth ));
-        dayChooser.setCurrentYearAndMonth( newYearAndMonth );
+        beginUpdate();
+        try
+        {
+            currentYearAndMonth = clamp( newYearAndMonth );
+            adjustChoosers( currentYearAndMonth );
+            refreshNeeded = true;
+        }
+        finally
+        {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Getter for the year and month displayed by the component
+     * @return YearMonth
+     */
+    public YearMonth getCurrentDate()
+    {
+        return currentYearAndMonth;
     }
     
+    /**
+     * Connects the calendar with a model which can be changed from any
+     * thread. The calendar shows the month of the model and the model
+     * follows the month the user navigates to. Null disconnects the model.
+     * Must be called on the EDT
+     * @param model
+     */
+    public void setModel( OGCalendarModel model )
+    {
+        if ( this.model != null )
+        {
+            this.model.removePropertyChangeListener( "currentDate", modelListener );
+        }
+        this.model = model;
+        if ( model != null )
+        {
+            model.addPropertyChangeListener( "currentDate", modelListener );
+            modelChanged( model.getCurrentDate() );
+        }
+    }
+
+    /**
+     * Getter for the model connected with the calendar
+     * @return OGCalendarModel or null
+     */
+    public OGCalendarModel getModel()
+    {
+        return model;
+    }
+
+    /**
+     * Sets the decorator which colors the days. The decorations are loaded
+     * on a background thread whenever the month changes. Null removes all
+     * decorations
+     * @param dayDecorator 
+     */
+    public void setDayDecorator( DayDecorator dayDecorator )
+    {
+        dayChooser.setDayDecorator( dayDecorator );
+    }
+
+    /**
+     * Getter for the decorator which colors the days
+     * @return DayDecorator or null
+     */
+    public DayDecorator getDayDecorator()
+    {
+        return dayChooser.getDayDecorator();
+    }
+
+    /**
+     * Loads the decorations of the current month again, e.g. after the data
+     * behind them has changed
+     */
+    public void refreshDecorations()
+    {
+        dayChooser.refreshDecorations();
+    }
+
+    /**
+     * Getter for the bus the events of this calendar are published on
+     * @return OGCalendarEventBus
+     */
+    public OGCalendarEventBus getEventBus()
+    {
+        return eventBus;
+    }
+
+    /**
+     * Sets the locale of the calendar and its month, year and day chooser.
+     * Names and first day of the week are taken from it
+     * @param locale 
+     */
+    @Override
+    public void setLocale( Locale locale )
+    {
+        super.setLocale( locale );
+        monthChooser.setLocale( locale );
+        yearChooser.setLocale( locale );
+        dayChooser.setLocale( locale );
+    }
+
+    /**
+     * Sets the delay the month and year chooser have to stay unchanged
+     * before the days are refreshed. 0 refreshes them on every change
+     * @param millis 
+     */
+    public void setRefreshDelay( int millis )
+    {
+        if ( millis < 0 )
+        {
+            throw new IllegalArgumentException( "millis must not be negative: " + millis );
+        }
+        refreshTimer.setInitialDelay( millis );
+        if ( millis == 0 && refreshTimer.isRunning() )
+        {
+            refreshTimer.stop();
+            refreshDays();
+        }
+    }
+
+    /**
+     * Getter for the delay before the days are refreshed while the user is
+     * navigating
+     * @return milliseconds
+     */
+    public int getRefreshDelay()
+    {
+        return refreshTimer.getInitialDelay();
+    }
+
+    /**
+     * Sets the way days are selected, a single day or a range of days
+     * @param selectionMode 
+     */
+    public void setSelectionMode( OGDayChooser.SelectionMode selectionMode )
+    {
+        dayChooser.setSelectionMode( selectionMode );
+    }
+
+    /**
+     * Getter for the way days are selected
+     * @return SelectionMode
+     */
+    public OGDayChooser.SelectionMode getSelectionMode()
+    {
+        return dayChooser.getSelectionMode();
+    }
+
+    /**
+     * Sets the selected range which is highlighted. Null clears the
+     * selection. No event is fired
+     * @param range 
+     */
+    public void setSelectedRange( DateRange range )
+    {
+        dayChooser.setSelectedRange( range );
+    }
+
+    /**
+     * Getter for the range selected last
+     * @return DateRange or null
+     */
+    public DateRange getSelectedRange()
+    {
+        return dayChooser.getSelectedRange();
+    }
+
+    /**
+     * Sets the store whose events are counted on the days. Null removes the
+     * counts
+     * @param eventStore 
+     */
+    public void setEventStore( OGCalendarEventStore eventStore )
+    {
+        dayChooser.setEventStore( eventStore );
+    }
+
+    /**
+     * Getter for the store whose events are counted on the days
+     * @return OGCalendarEventStore or null
+     */
+    public OGCalendarEventStore getEventStore()
+    {
+        return dayChooser.getEventStore();
+    }
+
+    /**
+     * Sets the first day which can be selected. Year and month chooser can
+     * not go before its month, the current month is moved if necessary
+     * @param minimumDate null if there is no limit
+     */
+    public void setMinimumDate( LocalDate minimumDate )
+    {
+        dayChooser.setMinimumDate( minimumDate );
+        applyLimits();
+    }
+
+    /**
+     * Getter for the first day which can be selected
+     * @return LocalDate or null
+     */
+    public LocalDate getMinimumDate()
+    {
+        return dayChooser.getMinimumDate();
+    }
+
+    /**
+     * Sets the last day which can be selected. Year and month chooser can not
+     * go after its month, the current month is moved if necessary
+     * @param maximumDate null if there is no limit
+     */
+    public void setMaximumDate( LocalDate maximumDate )
+    {
+        dayChooser.setMaximumDate( maximumDate );
+        applyLimits();
+    }
+
+    /**
+     * Getter for the last day which can be selected
+     * @return LocalDate or null
+     */
+    public LocalDate getMaximumDate()
+    {
+        return dayChooser.getMaximumDate();
+    }
+
+    /**
+     * Sets the days which can not be selected. The predicate is evaluated
+     * once for every day of a month when the month is shown
+     * @param disabledDays returns true for the days which can not be
+     * selected, null enables all days
+     */
+    public void setDisabledDays( Predicate<LocalDate> disabledDays )
+    {
+        dayChooser.setDisabledDays( disabledDays );
+    }
+
+    /**
+     * Getter for the days which can not be selected
+     * @return Predicate or null
+     */
+    public Predicate<LocalDate> getDisabledDays()
+    {
+        return dayChooser.getDisabledDays();
+    }
+
+    /**
+     * Sets minimum date, maximum date and disabled days at once, e.g. to
+     * set up a shared calendar for another field. The days are rebuilt at
+     * most once, only if the current month has to move into the limits
+     * @param minimumDate null if there is no limit
+     * @param maximumDate null if there is no limit
+     * @param disabledDays null enables all days
+     */
+    public void setLimits( LocalDate minimumDate, LocalDate maximumDate, Predicate<LocalDate> disabledDays )
+    {
+        dayChooser.setLimits( minimumDate, maximumDate, disabledDays );
+        applyLimits();
+    }
+
+    /**
+     * Checks if a day is within the limits and not disabled, e.g. to
+     * validate a typed date the same way as a clicked one
+     * @param date
+     * @return boolean
+     */
+    public boolean isSelectable( LocalDate date )
+    {
+        return dayChooser.isSelectable( date );
+    }
+
+    /**
+     * Sets the calendar whose weekends and holidays are shaded. Null removes
+     * the shading
+     * @param businessCalendar 
+     */
+    public void setBusinessCalendar( BusinessCalendar businessCalendar )
+    {
+        dayChooser.setBusinessCalendar( businessCalendar );
+    }
+
+    /**
+     * Getter for the calendar whose weekends and holidays are shaded
+     * @return BusinessCalendar or null
+     */
+    public BusinessCalendar getBusinessCalendar()
+    {
+        return dayChooser.getBusinessCalendar();
+    }
+
+    /**
+     * Sets the instrumentation which receives the measurements of this
+     * calendar and its month, year and day chooser. Null disables the
+     * measurement
+     * @param instrumentation 
+     */
+    public void setInstrumentation( OGCalendarInstrumentation instrumentation )
+    {
+        this.instrumentation = instrumentation;
+        monthChooser.setInstrumentation( instrumentation );
+        yearChooser.setInstrumentation( instrumentation );
+        dayChooser.setInstrumentation( instrumentation );
+    }
+
+    /**
+     * Getter for the instrumentation of this calendar
+     * @return OGCalendarInstrumentation or null
+     */
+    public OGCalendarInstrumentation getInstrumentation()
+    {
+        return instrumentation;
+    }
+
+    @Override
+    public void doLayout()
+    {
+        if ( instrumentation == null )
+        {
+            super.doLayout();
+            return;
+        }
+        long start = System.nanoTime();
+        super.doLayout();
+        instrumentation.laidOut( this, System.nanoTime() - start );
+    }
+
 /**
      * Register the following PropertyChangeListeners to receive the values:
      * dateSelected = get the selected LocalDate 
      * monthSelected = get the selected Month 
      * yearSelected = get the selected Year
+     * rangeSelected = get the selected DateRange
      * @param propertyName
      * @param listener 
      */
     @Override
     public void addPropertyChangeListener( String propertyName, PropertyChangeListener listener )
     {
-        dayChooser.addPropertyChangeListener( propertyName, listener );
-        monthChooser.addPropertyChangeListener( propertyName, listener );
-        yearChooser.addPropertyChangeListener( propertyName, listener );
+        pcs.addPropertyChangeListener( propertyName, listener );
     }
 
     /**
@@ -82,14 +494,13 @@ public class OGCalendar extends JPanel
      * dateSelected = get the selected LocalDate 
      * monthSelected = get the selected Month 
      * yearSelected = get the selected Year
+     * rangeSelected = get the selected DateRange
      * @param listener 
      */
     @Override
     public void addPropertyChangeListener( PropertyChangeListener listener )
     {
-        dayChooser.addPropertyChangeListener( listener );
-        monthChooser.addPropertyChangeListener( listener );
-        yearChooser.addPropertyChangeListener( listener );
+        pcs.addPropertyChangeListener( listener );
     }    
 
     /**
@@ -116,22 +527,244 @@ public class OGCalendar extends JPanel
     }
     
     /**
-     * Is called by the PropertyChangeListener of the MonthChooser component
-     * if the old value is december and the new value is january, the value of the 
-     * year is increased (and vice versa)
+     * Starts an update. Updates can be nested, only the end of the outermost
+     * update refreshes the days and fires the events
+     */
+    private void beginUpdate()
+    {
+        if ( updateDepth++ == 0 )
+        {
+            updateStart = currentYearAndMonth;
+        }
+    }
+
+    /**
+     * Ends an update. If it is the outermost one, the day chooser is
+     * refreshed once and the collected events are fired
+     */
+    private void endUpdate()
+    {
+        if ( --updateDepth > 0 )
+        {
+            return;
+        }
+        YearMonth start = updateStart;
+        LocalDate date = pendingDateSelected;
+        DateRange range = pendingRangeSelected;
+        boolean debounce = chooserChanged && refreshTimer.getInitialDelay() > 0;
+        updateStart = null;
+        pendingDateSelected = null;
+        pendingRangeSelected = null;
+        chooserChanged = false;
+        if ( debounce && refreshTimer.isRunning() )
+        {
+            //The user is still navigating, wait until the value settles
+            refreshTimer.restart();
+        }
+        else
+        {
+            refreshTimer.stop();
+            refreshDays();
+            if ( debounce )
+            {
+                //Following changes within the delay are collected
+                refreshTimer.start();
+            }
+        }
+        if ( model != null && !modelChanging && !start.equals( currentYearAndMonth ) )
+        {
+            model.setCurrentDate( currentYearAndMonth );
+        }
+        if ( start.getMonth() != currentYearAndMonth.getMonth() )
+        {
+            publish( new OGCalendarEventBus.MonthChanged( this, start.getMonth(), currentYearAndMonth.getMonth() ) );
+        }
+        if ( start.getYear() != currentYearAndMonth.getYear() )
+        {
+            publish( new OGCalendarEventBus.YearChanged( this, Year.from( start ), Year.from( currentYearAndMonth ) ) );
+        }
+        if ( date != null )
+        {
+            publish( new OGCalendarEventBus.DateSelected( this, date ) );
+        }
+        if ( range != null )
+        {
+            publish( new OGCalendarEventBus.RangeSelected( this, range ) );
+        }
+    }
+
+    /**
+     * Publishes an event on the bus and reports the time the listeners
+     * needed to the instrumentation
+     * @param event 
+     */
+    private void publish( OGCalendarEventBus.Event event )
+    {
+        if ( instrumentation == null )
+        {
+            eventBus.publish( event );
+            return;
+        }
+        long start = System.nanoTime();
+        eventBus.publish( event );
+        instrumentation.eventDispatched( this, event.getPropertyName(), System.nanoTime() - start );
+    }
+
+    /**
+     * Refreshes the day chooser if it does not show the current month yet.
+     * Is also called by the refresh timer once the user stopped navigating
+     */
+    private void refreshDays()
+    {
+        if ( refreshNeeded || !currentYearAndMonth.equals( dayChooser.getCurrentYearAndMonth() ) )
+        {
+            refreshNeeded = false;
+            dayChooser.setCurrentYearAndMonth( currentYearAndMonth );
+        }
+    }
+
+    /**
+     * Refreshes the day chooser at once if the refresh timer is waiting
+     */
+    private void flushRefresh()
+    {
+        if ( refreshTimer.isRunning() )
+        {
+            refreshTimer.stop();
+            refreshDays();
+        }
+    }
+
+    /**
+     * Limits the year chooser to the years of the minimum and maximum date
+     * and moves the current month into the limits. The days are only
+     * rebuilt if the month has to move, the day chooser updates the
+     * disabled days itself
+     */
+    private void applyLimits()
+    {
+        LocalDate minimum = dayChooser.getMinimumDate();
+        LocalDate maximum = dayChooser.getMaximumDate();
+        yearChooser.setYearRange( minimum != null ? Year.from( minimum ) : Year.of( Year.MIN_VALUE ),
+                maximum != null ? Year.from( maximum ) : Year.of( Year.MAX_VALUE ) );
+        YearMonth clamped = clamp( currentYearAndMonth );
+        if ( !clamped.equals( currentYearAndMonth ) )
+        {
+            setCurrentDate( clamped );
+        }
+    }
+
+    /**
+     * Moves a month into the months of the minimum and maximum date
+     * @param yearAndMonth
+     * @return YearMonth
+     */
+    YearMonth clamp( YearMonth yearAndMonth )
+    {
+        LocalDate minimum = dayChooser.getMinimumDate();
+        LocalDate maximum = dayChooser.getMaximumDate();
+        if ( minimum != null && yearAndMonth.isBefore( YearMonth.from( minimum ) ) )
+        {
+            return YearMonth.from( minimum );
+        }
+        if ( maximum != null && yearAndMonth.isAfter( YearMonth.from( maximum ) ) )
+        {
+            return YearMonth.from( maximum );
+        }
+        return yearAndMonth;
+    }
+
+    /**
+     * Sets month and year chooser to the given value without reacting to
+     * their events
+     * @param yearAndMonth 
+     */
+    private void adjustChoosers( YearMonth yearAndMonth )
+    {
+        adjusting = true;
+        try
+        {
+            monthChooser.setCurrentMonth( yearAndMonth.getMonth() );
+            yearChooser.setCurrentYear( Year.from( yearAndMonth ) );
+        }
+        finally
+        {
+            adjusting = false;
+        }
+    }
+
+    /**
+     * Is called on the EDT when the model has changed, possibly several
+     * times since the last call
+     * @param yearAndMonth the latest value of the model
+     */
+    private void modelChanged( YearMonth yearAndMonth )
+    {
+        if ( yearAndMonth.equals( currentYearAndMonth ) )
+        {
+            return;
+        }
+        modelChanging = true;
+        try
+        {
+            setCurrentDate( yearAndMonth );
+        }
+        finally
+        {
+            modelChanging = false;
+        }
+        YearMonth clamped = currentYearAndMonth;
+        if ( !clamped.equals( yearAndMonth ) )
+        {
+            //Outside of the limits, unless another thread has changed the model meanwhile
+            model.updateCurrentDate( (value) -> value.equals( yearAndMonth ) ? clamped : value );
+        }
+    }
+
+    /**
+     * Is called by the PropertyChangeListener of the MonthChooser component.
+     * The year follows the step of the month chooser, e.g. going from
+     * december to january or 3 months from november increases the year
      * @param e 
      */
     private void monthChanged( PropertyChangeEvent e )
     {
-        if (e.getOldValue() == Month.DECEMBER && e.getNewValue() == Month.JANUARY)
+        if ( adjusting )
+        {
+            return;
+        }
+        beginUpdate();
+        chooserChanged = true;
+        try
+        {
+            YearMonth old = yearChooser.getCurrentYear().atMonth( (Month) e.getOldValue() );
+            currentYearAndMonth = clamp( OGMonthChooser.move( old, monthChooser.getLastStep() ) );
+            adjustChoosers( currentYearAndMonth );
+        }
+        finally
+        {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Is called by the PropertyChangeListener of the DayChooser component
+     * if the user changed the month with the keyboard. Month and year chooser
+     * are updated to the new value
+     * @param e 
+     */
+    private void dayChooserNavigated( PropertyChangeEvent e )
+    {
+        beginUpdate();
+        try
         {
-            yearChooser.setCurrentYear( yearChooser.getCurrentYear().plusYears( 1));
+            currentYearAndMonth = (YearMonth) e.getNewValue();
+            adjustChoosers( currentYearAndMonth );
         }
-        else if (e.getOldValue() == Month.JANUARY && e.getNewValue() == Month.DECEMBER)
+        finally
         {
-            yearChooser.setCurrentYear( yearChooser.getCurrentYear().minusYears( 1));
+            endUpdate();
         }
-        dayChooser.setCurrentYearAndMonth( YearMonth.of( yearChooser.getCurrentYear().getValue(), monthChooser.getCurrentMonth()));
     }
 
     /**
@@ -141,6 +774,56 @@ public class OGCalendar extends JPanel
      */
     private void yearChanged( PropertyChangeEvent e )
     {
-        dayChooser.setCurrentYearAndMonth( YearMonth.of( yearChooser.getCurrentYear().getValue(), monthChooser.getCurrentMonth()));
+        if ( adjusting )
+        {
+            return;
+        }
+        beginUpdate();
+        chooserChanged = true;
+        try
+        {
+            currentYearAndMonth = clamp( yearChooser.getCurrentYear().atMonth( monthChooser.getCurrentMonth() ) );
+            adjustChoosers( currentYearAndMonth );
+        }
+        finally
+        {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Is called by the PropertyChangeListener of the DayChooser component
+     * if the user selected a day
+     * @param e 
+     */
+    private void dateSelected( PropertyChangeEvent e )
+    {
+        beginUpdate();
+        try
+        {
+            pendingDateSelected = (LocalDate) e.getNewValue();
+        }
+        finally
+        {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Is called by the PropertyChangeListener of the DayChooser component
+     * if the user selected a range of days
+     * @param e 
+     */
+    private void rangeSelected( PropertyChangeEvent e )
+    {
+        beginUpdate();
+        try
+        {
+            pendingRangeSelected = (DateRange) e.getNewValue();
+        }
+        finally
+        {
+            endUpdate();
+        }
     }
 }
@@ -0,0 +1,169 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.awt.Color;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * An appointment shown by the calendar components. The end is exclusive, an
+ * event from 10:00 to 11:00 ends at 11:00. All day events start at midnight
+ * of their first day and end at midnight after their last day.
+ * Instances are immutable. Two events are only equal if they are the same
+ * instance, so the same appointment can be added to a store once
+ */
+public final class OGCalendarEvent
+{
+
+    private final String title;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final boolean allDay;
+    private final String resource;
+    private final Color color;
+
+    /**
+     * Constructor for an event with a start and an end time
+     * @param title
+     * @param start
+     * @param end exclusive, not before start
+     */
+    public OGCalendarEvent( String title, LocalDateTime start, LocalDateTime end )
+    {
+        this( title, start, end, false, null, null );
+    }
+
+    /**
+     * Constructor for an all day event
+     * @param title
+     * @param firstDay
+     * @param lastDay inclusive, not before the first day
+     */
+    public OGCalendarEvent( String title, LocalDate firstDay, LocalDate lastDay )
+    {
+        this( title, firstDay.atStartOfDay(), lastDay.plusDays( 1 ).atStartOfDay(), true, null, null );
+    }
+
+    /**
+     * Constructor which sets all values
+     * @param title
+     * @param start
+     * @param end exclusive, not before start
+     * @param allDay
+     * @param resource e.g. the room or the person, null if there is none
+     * @param color null to use the color of the component
+     */
+    public OGCalendarEvent( String title, LocalDateTime start, LocalDateTime end, boolean allDay, String resource, Color color )
+    {
+        if ( start == null || end == null )
+        {
+            throw new IllegalArgumentException( "start and end must not be null" );
+        }
+        if ( end.isBefore( start ) )
+        {
+            throw new IllegalArgumentException( "end must not be before start: " + start + " - " + end );
+        }
+        this.title = title;
+        this.start = start;
+        this.end = end;
+        this.allDay = allDay;
+        this.resource = resource;
+        this.color = color;
+    }
+
+    /**
+     * Getter for the title
+     * @return String
+     */
+    public String getTitle()
+    {
+        return title;
+    }
+
+    /**
+     * Getter for the start
+     * @return LocalDateTime
+     */
+    public LocalDateTime getStart()
+    {
+        return start;
+    }
+
+    /**
+     * Getter for the end, it is exclusive
+     * @return LocalDateTime
+     */
+    public LocalDateTime getEnd()
+    {
+        return end;
+    }
+
+    /**
+     * Checks if the event lasts whole days
+     * @return boolean
+     */
+    public boolean isAllDay()
+    {
+        return allDay;
+    }
+
+    /**
+     * Getter for the resource, e.g. the room or the person
+     * @return String or null
+     */
+    public String getResource()
+    {
+        return resource;
+    }
+
+    /**
+     * Getter for the color
+     * @return Color or null
+     */
+    public Color getColor()
+    {
+        return color;
+    }
+
+    /**
+     * Getter for the day the event starts
+     * @return LocalDate
+     */
+    public LocalDate getFirstDay()
+    {
+        return start.toLocalDate();
+    }
+
+    /**
+     * Getter for the last day the event takes place. An event which ends at
+     * midnight does not take place on the day it ends
+     * @return LocalDate
+     */
+    public LocalDate getLastDay()
+    {
+        LocalDate last = end.toLocalDate();
+        if ( end.toLocalTime().equals( LocalTime.MIDNIGHT ) && end.isAfter( start ) )
+        {
+            return last.minusDays( 1 );
+        }
+        return last;
+    }
+
+    /**
+     * Checks if the event takes place on one of the given days
+     * @param from
+     * @param to inclusive
+     * @return boolean
+     */
+    public boolean overlaps( LocalDate from, LocalDate to )
+    {
+        return !getFirstDay().isAfter( to ) && !getLastDay().isBefore( from );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "OGCalendarEvent[" + title + ", " + start + " - " + end + ( allDay ? ", all day" : "" )
+                + ( resource != null ? ", " + resource : "" ) + "]";
+    }
+}
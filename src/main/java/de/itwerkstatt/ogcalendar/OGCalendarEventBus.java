@@ -0,0 +1,470 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Delivers the typed events of a calendar to its listeners. A listener
+ * subscribes to one event class and only receives events of this class.
+ * The listeners are kept in an array which is copied on every change, so
+ * publishing takes no lock and listeners can subscribe and unsubscribe from
+ * any thread, even while an event is delivered.
+ * By default a listener is called on the thread which publishes the event,
+ * for the components this is the EDT. A listener subscribed with an Executor
+ * is called by the executor instead, e.g. to keep slow work off the EDT. If
+ * such a listener is coalescing, events which are published while the
+ * previous one is still waiting for the executor replace it, so the listener
+ * only receives the latest one
+ */
+public final class OGCalendarEventBus
+{
+
+    private static final Subscription<?>[] NO_SUBSCRIPTIONS = new Subscription<?>[0];
+
+    private final AtomicReference<Subscription<?>[]> subscriptions = new AtomicReference<>( NO_SUBSCRIPTIONS );
+
+    /**
+     * Subscribes a listener which is called on the publishing thread
+     * @param <E>
+     * @param type class of the events the listener receives
+     * @param listener
+     * @return Subscription to unsubscribe the listener
+     */
+    public <E extends Event> Subscription<E> subscribe( Class<E> type, Listener<? super E> listener )
+    {
+        return subscribe( type, listener, null, false );
+    }
+
+    /**
+     * Subscribes a listener which is called by the given executor
+     * @param <E>
+     * @param type class of the events the listener receives
+     * @param listener
+     * @param executor null calls the listener on the publishing thread
+     * @param coalescing true if only the latest of the waiting events is
+     * delivered, only used with an executor
+     * @return Subscription to unsubscribe the listener
+     */
+    public <E extends Event> Subscription<E> subscribe( Class<E> type, Listener<? super E> listener, Executor executor, boolean coalescing )
+    {
+        if ( type == null || listener == null )
+        {
+            throw new IllegalArgumentException( "type and listener must not be null" );
+        }
+        Subscription<E> subscription = new Subscription<>( this, type, listener, executor, coalescing );
+        Subscription<?>[] current;
+        Subscription<?>[] changed;
+        do
+        {
+            current = subscriptions.get();
+            changed = Arrays.copyOf( current, current.length + 1 );
+            changed[current.length] = subscription;
+        }
+        while ( !subscriptions.compareAndSet( current, changed ) );
+        return subscription;
+    }
+
+    /**
+     * Delivers an event to all listeners of its class
+     * @param event
+     */
+    public void publish( Event event )
+    {
+        for ( Subscription<?> subscription : subscriptions.get() )
+        {
+            subscription.deliver( event );
+        }
+    }
+
+    /**
+     * Checks if any listener receives events of the given class
+     * @param type
+     * @return boolean
+     */
+    public boolean hasSubscribers( Class<? extends Event> type )
+    {
+        for ( Subscription<?> subscription : subscriptions.get() )
+        {
+            if ( subscription.type.isAssignableFrom( type ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes a subscription
+     * @param subscription
+     */
+    private void remove( Subscription<?> subscription )
+    {
+        Subscription<?>[] current;
+        Subscription<?>[] changed;
+        do
+        {
+            current = subscriptions.get();
+            int index = Arrays.asList( current ).indexOf( subscription );
+            if ( index < 0 )
+            {
+                return;
+            }
+            changed = new Subscription<?>[current.length - 1];
+            System.arraycopy( current, 0, changed, 0, index );
+            System.arraycopy( current, index + 1, changed, index, changed.length - index );
+        }
+        while ( !subscriptions.compareAndSet( current, changed ) );
+    }
+
+    /**
+     * Receives the events of one class
+     * @param <E>
+     */
+    @FunctionalInterface
+    public interface Listener<E extends Event>
+    {
+
+        /**
+         * Is called for every event the listener subscribed to
+         * @param event
+         */
+        void eventPublished( E event );
+    }
+
+    /**
+     * A listener subscribed to the bus
+     * @param <E>
+     */
+    public static final class Subscription<E extends Event>
+    {
+
+        private final OGCalendarEventBus bus;
+        private final Class<E> type;
+        private final Listener<? super E> listener;
+        private final Executor executor;
+        //Latest event waiting for the executor, only used if coalescing
+        private final AtomicReference<E> pending;
+        private volatile boolean active = true;
+
+        private Subscription( OGCalendarEventBus bus, Class<E> type, Listener<? super E> listener, Executor executor, boolean coalescing )
+        {
+            this.bus = bus;
+            this.type = type;
+            this.listener = listener;
+            this.executor = executor;
+            pending = coalescing && executor != null ? new AtomicReference<>() : null;
+        }
+
+        /**
+         * Removes the listener from the bus. Events which are already waiting
+         * for the executor are dropped
+         */
+        public void unsubscribe()
+        {
+            active = false;
+            bus.remove( this );
+        }
+
+        /**
+         * Getter for the class of the events the listener receives
+         * @return Class
+         */
+        public Class<E> getType()
+        {
+            return type;
+        }
+
+        /**
+         * Delivers the event if it has the class of this subscription
+         * @param published
+         */
+        private void deliver( Event published )
+        {
+            if ( !type.isInstance( published ) )
+            {
+                return;
+            }
+            E event = type.cast( published );
+            if ( executor == null )
+            {
+                listener.eventPublished( event );
+            }
+            else if ( pending == null )
+            {
+                executor.execute( () -> call( event ) );
+            }
+            //Only the first waiting event schedules the delivery
+            else if ( pending.getAndSet( event ) == null )
+            {
+                executor.execute( () -> call( pending.getAndSet( null ) ) );
+            }
+        }
+
+        /**
+         * Calls the listener unless the subscription has ended
+         * @param event
+         */
+        private void call( E event )
+        {
+            if ( active && event != null )
+            {
+                listener.eventPublished( event );
+            }
+        }
+    }
+
+    /**
+     * Base class of all calendar events. Every event matches a
+     * PropertyChangeEvent of OGCalendar
+     */
+    public abstract static class Event
+    {
+
+        private final Object source;
+
+        Event( Object source )
+        {
+            this.source = source;
+        }
+
+        /**
+         * Getter for the component which published the event
+         * @return Object
+         */
+        public Object getSource()
+        {
+            return source;
+        }
+
+        /**
+         * Getter for the name of the matching property change
+         * @return String
+         */
+        public abstract String getPropertyName();
+
+        /**
+         * Getter for the old value of the matching property change
+         * @return Object or null
+         */
+        public Object getOldValue()
+        {
+            return null;
+        }
+
+        /**
+         * Getter for the new value of the matching property change
+         * @return Object
+         */
+        public abstract Object getNewValue();
+
+        @Override
+        public String toString()
+        {
+            return getClass().getSimpleName() + "[" + getOldValue() + " -> " + getNewValue() + "]";
+        }
+    }
+
+    /**
+     * The user selected a day
+     */
+    public static final class DateSelected extends Event
+    {
+
+        private final LocalDate date;
+
+        /**
+         * Constructor with the component which publishes the event
+         * @param source
+         * @param date
+         */
+        public DateSelected( Object source, LocalDate date )
+        {
+            super( source );
+            this.date = date;
+        }
+
+        /**
+         * Getter for the selected day
+         * @return LocalDate
+         */
+        public LocalDate getDate()
+        {
+            return date;
+        }
+
+        @Override
+        public String getPropertyName()
+        {
+            return "dateSelected";
+        }
+
+        @Override
+        public Object getNewValue()
+        {
+            return date;
+        }
+    }
+
+    /**
+     * The user selected a range of days
+     */
+    public static final class RangeSelected extends Event
+    {
+
+        private final DateRange range;
+
+        /**
+         * Constructor with the component which publishes the event
+         * @param source
+         * @param range
+         */
+        public RangeSelected( Object source, DateRange range )
+        {
+            super( source );
+            this.range = range;
+        }
+
+        /**
+         * Getter for the selected range
+         * @return DateRange
+         */
+        public DateRange getRange()
+        {
+            return range;
+        }
+
+        @Override
+        public String getPropertyName()
+        {
+            return "rangeSelected";
+        }
+
+        @Override
+        public Object getNewValue()
+        {
+            return range;
+        }
+    }
+
+    /**
+     * The month shown by the calendar has changed
+     */
+    public static final class MonthChanged extends Event
+    {
+
+        private final Month oldMonth;
+        private final Month newMonth;
+
+        /**
+         * Constructor with the component which publishes the event
+         * @param source
+         * @param oldMonth
+         * @param newMonth
+         */
+        public MonthChanged( Object source, Month oldMonth, Month newMonth )
+        {
+            super( source );
+            this.oldMonth = oldMonth;
+            this.newMonth = newMonth;
+        }
+
+        /**
+         * Getter for the month shown before
+         * @return Month
+         */
+        public Month getOldMonth()
+        {
+            return oldMonth;
+        }
+
+        /**
+         * Getter for the month shown now
+         * @return Month
+         */
+        public Month getNewMonth()
+        {
+            return newMonth;
+        }
+
+        @Override
+        public String getPropertyName()
+        {
+            return "monthSelected";
+        }
+
+        @Override
+        public Object getOldValue()
+        {
+            return oldMonth;
+        }
+
+        @Override
+        public Object getNewValue()
+        {
+            return newMonth;
+        }
+    }
+
+    /**
+     * The year shown by the calendar has changed
+     */
+    public static final class YearChanged extends Event
+    {
+
+        private final Year oldYear;
+        private final Year newYear;
+
+        /**
+         * Constructor with the component which publishes the event
+         * @param source
+         * @param oldYear
+         * @param newYear
+         */
+        public YearChanged( Object source, Year oldYear, Year newYear )
+        {
+            super( source );
+            this.oldYear = oldYear;
+            this.newYear = newYear;
+        }
+
+        /**
+         * Getter for the year shown before
+         * @return Year
+         */
+        public Year getOldYear()
+        {
+            return oldYear;
+        }
+
+        /**
+         * Getter for the year shown now
+         * @return Year
+         */
+        public Year getNewYear()
+        {
+            return newYear;
+        }
+
+        @Override
+        public String getPropertyName()
+        {
+            return "yearSelected";
+        }
+
+        @Override
+        public Object getOldValue()
+        {
+            return oldYear;
+        }
+
+        @Override
+        public Object getNewValue()
+        {
+            return newYear;
+        }
+    }
+}
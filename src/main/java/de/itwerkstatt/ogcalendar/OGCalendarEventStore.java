@@ -0,0 +1,313 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the events shown by the calendar components. Every event is put
+ * into a bucket for each day it takes place on, the buckets are sorted by
+ * day. So the events of a visible sheet of 42 days are found in logarithmic
+ * time, no matter how many events there are. Events lasting longer than
+ * LONG_EVENT_DAYS are kept in a separate list instead.
+ * The listeners are informed about the days which changed, so components
+ * only repaint these days. The store is thread safe, listeners are called
+ * on the thread which changed the store
+ */
+public class OGCalendarEventStore
+{
+
+    /**
+     * Events lasting more days are not put into the day buckets
+     */
+    public static final int LONG_EVENT_DAYS = 62;
+
+    private static final Comparator<OGCalendarEvent> BY_START = Comparator.comparing( OGCalendarEvent::getStart );
+
+    private final TreeMap<Long, List<OGCalendarEvent>> buckets = new TreeMap<>();
+    private final List<OGCalendarEvent> longEvents = new ArrayList<>();
+    private final Set<OGCalendarEvent> events = new HashSet<>();
+    private final List<StoreListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Adds an event. Nothing happens if it is already part of the store
+     * @param event
+     * @return true if the event was added
+     */
+    public boolean add( OGCalendarEvent event )
+    {
+        synchronized ( this )
+        {
+            if ( !events.add( event ) )
+            {
+                return false;
+            }
+            index( event );
+        }
+        fireEventsChanged( event.getFirstDay(), event.getLastDay() );
+        return true;
+    }
+
+    /**
+     * Adds several events, the listeners are informed once
+     * @param added
+     */
+    public void addAll( Collection<OGCalendarEvent> added )
+    {
+        LocalDate from = null;
+        LocalDate to = null;
+        synchronized ( this )
+        {
+            for ( OGCalendarEvent event : added )
+            {
+                if ( events.add( event ) )
+                {
+                    index( event );
+                    from = from == null || event.getFirstDay().isBefore( from ) ? event.getFirstDay() : from;
+                    to = to == null || event.getLastDay().isAfter( to ) ? event.getLastDay() : to;
+                }
+            }
+        }
+        if ( from != null )
+        {
+            fireEventsChanged( from, to );
+        }
+    }
+
+    /**
+     * Removes an event
+     * @param event
+     * @return true if the event was part of the store
+     */
+    public boolean remove( OGCalendarEvent event )
+    {
+        synchronized ( this )
+        {
+            if ( !events.remove( event ) )
+            {
+                return false;
+            }
+            if ( isLong( event ) )
+            {
+                longEvents.remove( event );
+            }
+            else
+            {
+                long last = event.getLastDay().toEpochDay();
+                for ( long day = event.getFirstDay().toEpochDay(); day <= last; day++ )
+                {
+                    List<OGCalendarEvent> bucket = buckets.get( day );
+                    bucket.remove( event );
+                    if ( bucket.isEmpty() )
+                    {
+                        buckets.remove( day );
+                    }
+                }
+            }
+        }
+        fireEventsChanged( event.getFirstDay(), event.getLastDay() );
+        return true;
+    }
+
+    /**
+     * Removes all events
+     */
+    public void clear()
+    {
+        LocalDate from;
+        LocalDate to;
+        synchronized ( this )
+        {
+            if ( events.isEmpty() )
+            {
+                return;
+            }
+            from = LocalDate.MAX;
+            to = LocalDate.MIN;
+            for ( OGCalendarEvent event : events )
+            {
+                from = event.getFirstDay().isBefore( from ) ? event.getFirstDay() : from;
+                to = event.getLastDay().isAfter( to ) ? event.getLastDay() : to;
+            }
+            events.clear();
+            buckets.clear();
+            longEvents.clear();
+        }
+        fireEventsChanged( from, to );
+    }
+
+    /**
+     * Getter for the number of events
+     * @return int
+     */
+    public synchronized int size()
+    {
+        return events.size();
+    }
+
+    /**
+     * Returns the events taking place on the given day
+     * @param day
+     * @return the events sorted by their start
+     */
+    public List<OGCalendarEvent> getEvents( LocalDate day )
+    {
+        return getEvents( day, day );
+    }
+
+    /**
+     * Returns the events taking place on at least one of the given days
+     * @param from
+     * @param to inclusive
+     * @return the events sorted by their start
+     */
+    public List<OGCalendarEvent> getEvents( LocalDate from, LocalDate to )
+    {
+        long first = from.toEpochDay();
+        List<OGCalendarEvent> result = new ArrayList<>();
+        synchronized ( this )
+        {
+            for ( Map.Entry<Long, List<OGCalendarEvent>> entry : buckets.subMap( first, true, to.toEpochDay(), true ).entrySet() )
+            {
+                for ( OGCalendarEvent event : entry.getValue() )
+                {
+                    //An event is taken from the bucket of its first day in the range only
+                    if ( entry.getKey() == Math.max( first, event.getFirstDay().toEpochDay() ) )
+                    {
+                        result.add( event );
+                    }
+                }
+            }
+            for ( OGCalendarEvent event : longEvents )
+            {
+                if ( event.overlaps( from, to ) )
+                {
+                    result.add( event );
+                }
+            }
+        }
+        Collections.sort( result, BY_START );
+        return result;
+    }
+
+    /**
+     * Counts the events of the given day
+     * @param day
+     * @return int
+     */
+    public int countEvents( LocalDate day )
+    {
+        int[] counts = new int[1];
+        countEvents( day.toEpochDay(), counts );
+        return counts[0];
+    }
+
+    /**
+     * Counts the events of consecutive days, e.g. of all cells of a MonthGrid
+     * @param firstEpochDay epoch day of the first day
+     * @param counts receives the number of events, one field for every day
+     */
+    public synchronized void countEvents( long firstEpochDay, int[] counts )
+    {
+        long lastEpochDay = firstEpochDay + counts.length - 1;
+        for ( int i = 0; i < counts.length; i++ )
+        {
+            counts[i] = 0;
+        }
+        for ( Map.Entry<Long, List<OGCalendarEvent>> entry : buckets.subMap( firstEpochDay, true, lastEpochDay, true ).entrySet() )
+        {
+            counts[(int) ( entry.getKey() - firstEpochDay )] = entry.getValue().size();
+        }
+        for ( OGCalendarEvent event : longEvents )
+        {
+            long first = Math.max( firstEpochDay, event.getFirstDay().toEpochDay() );
+            long last = Math.min( lastEpochDay, event.getLastDay().toEpochDay() );
+            for ( long day = first; day <= last; day++ )
+            {
+                counts[(int) ( day - firstEpochDay )]++;
+            }
+        }
+    }
+
+    /**
+     * Adds a listener which is informed about changed days
+     * @param listener
+     */
+    public void addStoreListener( StoreListener listener )
+    {
+        listeners.add( listener );
+    }
+
+    /**
+     * Removes a listener
+     * @param listener
+     */
+    public void removeStoreListener( StoreListener listener )
+    {
+        listeners.remove( listener );
+    }
+
+    /**
+     * Puts the event into the buckets of its days
+     * @param event
+     */
+    private void index( OGCalendarEvent event )
+    {
+        if ( isLong( event ) )
+        {
+            longEvents.add( event );
+            return;
+        }
+        long last = event.getLastDay().toEpochDay();
+        for ( long day = event.getFirstDay().toEpochDay(); day <= last; day++ )
+        {
+            buckets.computeIfAbsent( day, (d) -> new ArrayList<>( 4 ) ).add( event );
+        }
+    }
+
+    /**
+     * Checks if an event is kept in the list of long events
+     * @param event
+     * @return boolean
+     */
+    private static boolean isLong( OGCalendarEvent event )
+    {
+        return event.getLastDay().toEpochDay() - event.getFirstDay().toEpochDay() >= LONG_EVENT_DAYS;
+    }
+
+    /**
+     * Informs the listeners about changed days
+     * @param from
+     * @param to
+     */
+    private void fireEventsChanged( LocalDate from, LocalDate to )
+    {
+        for ( StoreListener listener : listeners )
+        {
+            listener.eventsChanged( from, to );
+        }
+    }
+
+    /**
+     * Is informed if events of a store have changed
+     */
+    @FunctionalInterface
+    public interface StoreListener
+    {
+
+        /**
+         * Is called after events on the given days were added or removed
+         * @param from first changed day
+         * @param to last changed day
+         */
+        void eventsChanged( LocalDate from, LocalDate to );
+    }
+}
@@ -0,0 +1,42 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.awt.Component;
+
+/**
+ * Receives measurements of the calendar components. Set an implementation with
+ * OGCalendar.setInstrumentation or directly on a single chooser. Without an
+ * instrumentation nothing is measured at all.
+ * All methods are called on the event dispatch thread and should return fast
+ */
+public interface OGCalendarInstrumentation
+{
+
+    /**
+     * Is called after a component has updated its content to a new value,
+     * e.g. the OGDayChooser to a new month
+     * @param component
+     * @param nanos duration of the update
+     */
+    default void rebuilt( Component component, long nanos )
+    {
+    }
+
+    /**
+     * Is called after a component has laid out its children
+     * @param component
+     * @param nanos duration of the layout
+     */
+    default void laidOut( Component component, long nanos )
+    {
+    }
+
+    /**
+     * Is called after a component has delivered an event to its listeners
+     * @param component
+     * @param propertyName name of the event, e.g. dateSelected
+     * @param nanos time the listeners needed to process the event
+     */
+    default void eventDispatched( Component component, String propertyName, long nanos )
+    {
+    }
+}
@@ -0,0 +1,178 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.time.Month;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+import javax.swing.SwingUtilities;
+
+/**
+ * The year and month shown by an OGCalendar, OGMonthChooser or
+ * OGYearChooser, which can be changed from any thread, e.g. by a thread
+ * receiving updates from a backend. The value is kept in an
+ * AtomicReference, so changes never get lost and updateCurrentDate
+ * changes it atomically.
+ * The listeners are always called on the EDT. Changes are collected until
+ * the EDT delivers them, so a burst of changes from other threads leads to
+ * a single event with the latest value and at most one waiting task on the
+ * event queue. Register a propertychange listener with propertyname
+ * "currentDate" to receive the YearMonth
+ */
+public final class OGCalendarModel
+{
+
+    private final PropertyChangeSupport pcs = new PropertyChangeSupport( this );
+    private final AtomicReference<YearMonth> currentDate;
+    //Set while a delivery is waiting on the event queue
+    private final AtomicBoolean deliveryScheduled = new AtomicBoolean();
+    //Value of the last event, only used on the EDT
+    private YearMonth deliveredDate;
+
+    /**
+     * Constructor for the current year and month
+     */
+    public OGCalendarModel()
+    {
+        this( YearMonth.now() );
+    }
+
+    /**
+     * Constructor which sets the year and month
+     * @param yearMonth
+     */
+    public OGCalendarModel( YearMonth yearMonth )
+    {
+        if ( yearMonth == null )
+        {
+            throw new IllegalArgumentException( "yearMonth must not be null" );
+        }
+        currentDate = new AtomicReference<>( yearMonth );
+        deliveredDate = yearMonth;
+    }
+
+    /**
+     * Getter for the year and month. It can be newer than the value of the
+     * last event
+     * @return YearMonth
+     */
+    public YearMonth getCurrentDate()
+    {
+        return currentDate.get();
+    }
+
+    /**
+     * Sets the year and month, can be called on any thread
+     * @param yearMonth
+     */
+    public void setCurrentDate( YearMonth yearMonth )
+    {
+        if ( yearMonth == null )
+        {
+            throw new IllegalArgumentException( "yearMonth must not be null" );
+        }
+        if ( !yearMonth.equals( currentDate.getAndSet( yearMonth ) ) )
+        {
+            scheduleDelivery();
+        }
+    }
+
+    /**
+     * Changes the year and month atomically, e.g. to move it by one month
+     * while other threads change it too. The function can be called several
+     * times and must not have side effects
+     * @param function computes the new value of the current one
+     * @return the new value
+     */
+    public YearMonth updateCurrentDate( UnaryOperator<YearMonth> function )
+    {
+        YearMonth old;
+        YearMonth changed;
+        do
+        {
+            old = currentDate.get();
+            changed = function.apply( old );
+            if ( changed == null )
+            {
+                throw new IllegalArgumentException( "The new value must not be null" );
+            }
+        }
+        while ( !currentDate.compareAndSet( old, changed ) );
+        if ( !changed.equals( old ) )
+        {
+            scheduleDelivery();
+        }
+        return changed;
+    }
+
+    /**
+     * Sets the month and keeps the year, can be called on any thread
+     * @param month
+     */
+    public void setCurrentMonth( Month month )
+    {
+        updateCurrentDate( (yearMonth) -> yearMonth.withMonth( month.getValue() ) );
+    }
+
+    /**
+     * Sets the year and keeps the month, can be called on any thread
+     * @param year
+     */
+    public void setCurrentYear( Year year )
+    {
+        updateCurrentDate( (yearMonth) -> yearMonth.withYear( year.getValue() ) );
+    }
+
+    /**
+     * Register the following PropertyChangeListeners to receive the values:
+     * currentDate = get the YearMonth, always on the EDT
+     * @param propertyName
+     * @param listener
+     */
+    public void addPropertyChangeListener( String propertyName, PropertyChangeListener listener )
+    {
+        pcs.addPropertyChangeListener( propertyName, listener );
+    }
+
+    /**
+     * Removes a listener registered for the given property
+     * @param propertyName
+     * @param listener
+     */
+    public void removePropertyChangeListener( String propertyName, PropertyChangeListener listener )
+    {
+        pcs.removePropertyChangeListener( propertyName, listener );
+    }
+
+    /**
+     * Puts a delivery on the event queue unless one is waiting already
+     */
+    private void scheduleDelivery()
+    {
+        if ( deliveryScheduled.compareAndSet( false, true ) )
+        {
+            SwingUtilities.invokeLater( this::deliver );
+        }
+    }
+
+    /**
+     * Fires the latest value on the EDT
+     */
+    private void deliver()
+    {
+        //Reset before reading, so a change after the read schedules again
+        deliveryScheduled.set( false );
+        YearMonth old = deliveredDate;
+        deliveredDate = currentDate.get();
+        pcs.firePropertyChange( "currentDate", old, deliveredDate );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "OGCalendarModel[" + currentDate.get() + "]";
+    }
+}
@@ -0,0 +1,266 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An OGCalendarInstrumentation which sums up the measurements of every
+ * component and of all components together, so several calendars sharing
+ * one instance can still be told apart. The components are only weakly
+ * referenced, the values of a component which is no longer used are
+ * dropped. The values can be read from any thread, e.g. to publish them as
+ * metrics
+ */
+public class OGCalendarStatistics implements OGCalendarInstrumentation
+{
+
+    private final Counters total = new Counters();
+    private final Map<Component, Counters> byComponent = Collections.synchronizedMap( new WeakHashMap<>() );
+
+    @Override
+    public void rebuilt( Component component, long nanos )
+    {
+        total.rebuilt( nanos );
+        countersOf( component ).rebuilt( nanos );
+    }
+
+    @Override
+    public void laidOut( Component component, long nanos )
+    {
+        total.laidOut( nanos );
+        countersOf( component ).laidOut( nanos );
+    }
+
+    @Override
+    public void eventDispatched( Component component, String propertyName, long nanos )
+    {
+        total.eventDispatched( nanos );
+        countersOf( component ).eventDispatched( nanos );
+    }
+
+    /**
+     * Returns the values of a single component, creating them on the first
+     * measurement
+     * @param component
+     * @return Counters
+     */
+    private Counters countersOf( Component component )
+    {
+        return byComponent.computeIfAbsent( component, (c) -> new Counters() );
+    }
+
+    /**
+     * Getter for the values of a single component, e.g. the OGDayChooser of
+     * one calendar
+     * @param component
+     * @return Counters or null if nothing of the component was measured
+     */
+    public Counters getCounters( Component component )
+    {
+        return byComponent.get( component );
+    }
+
+    /**
+     * Getter for all components measured so far which are still in use
+     * @return List
+     */
+    public List<Component> getComponents()
+    {
+        synchronized ( byComponent )
+        {
+            return new ArrayList<>( byComponent.keySet() );
+        }
+    }
+
+    /**
+     * Getter for the values of all components together
+     * @return Counters
+     */
+    public Counters getTotal()
+    {
+        return total;
+    }
+
+    /**
+     * Getter for the number of rebuilds of all components
+     * @return long
+     */
+    public long getRebuildCount()
+    {
+        return total.getRebuildCount();
+    }
+
+    /**
+     * Getter for the summed up duration of all rebuilds of all components
+     * @return long nanoseconds
+     */
+    public long getRebuildNanos()
+    {
+        return total.getRebuildNanos();
+    }
+
+    /**
+     * Getter for the number of layouts of all components
+     * @return long
+     */
+    public long getLayoutCount()
+    {
+        return total.getLayoutCount();
+    }
+
+    /**
+     * Getter for the summed up duration of all layouts of all components
+     * @return long nanoseconds
+     */
+    public long getLayoutNanos()
+    {
+        return total.getLayoutNanos();
+    }
+
+    /**
+     * Getter for the number of events dispatched by all components
+     * @return long
+     */
+    public long getEventCount()
+    {
+        return total.getEventCount();
+    }
+
+    /**
+     * Getter for the summed up time the listeners of all components needed
+     * for all events
+     * @return long nanoseconds
+     */
+    public long getEventNanos()
+    {
+        return total.getEventNanos();
+    }
+
+    /**
+     * Sets all values back to zero and forgets the components
+     */
+    public void reset()
+    {
+        total.reset();
+        byComponent.clear();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "OGCalendarStatistics" + total;
+    }
+
+    /**
+     * The summed up measurements of one component or of all components
+     */
+    public static final class Counters
+    {
+
+        private final LongAdder rebuildCount = new LongAdder();
+        private final LongAdder rebuildNanos = new LongAdder();
+        private final LongAdder layoutCount = new LongAdder();
+        private final LongAdder layoutNanos = new LongAdder();
+        private final LongAdder eventCount = new LongAdder();
+        private final LongAdder eventNanos = new LongAdder();
+
+        private Counters()
+        {
+        }
+
+        private void rebuilt( long nanos )
+        {
+            rebuildCount.increment();
+            rebuildNanos.add( nanos );
+        }
+
+        private void laidOut( long nanos )
+        {
+            layoutCount.increment();
+            layoutNanos.add( nanos );
+        }
+
+        private void eventDispatched( long nanos )
+        {
+            eventCount.increment();
+            eventNanos.add( nanos );
+        }
+
+        private void reset()
+        {
+            rebuildCount.reset();
+            rebuildNanos.reset();
+            layoutCount.reset();
+            layoutNanos.reset();
+            eventCount.reset();
+            eventNanos.reset();
+        }
+
+        /**
+         * Getter for the number of rebuilds
+         * @return long
+         */
+        public long getRebuildCount()
+        {
+            return rebuildCount.sum();
+        }
+
+        /**
+         * Getter for the summed up duration of all rebuilds
+         * @return long nanoseconds
+         */
+        public long getRebuildNanos()
+        {
+            return rebuildNanos.sum();
+        }
+
+        /**
+         * Getter for the number of layouts
+         * @return long
+         */
+        public long getLayoutCount()
+        {
+            return layoutCount.sum();
+        }
+
+        /**
+         * Getter for the summed up duration of all layouts
+         * @return long nanoseconds
+         */
+        public long getLayoutNanos()
+        {
+            return layoutNanos.sum();
+        }
+
+        /**
+         * Getter for the number of dispatched events
+         * @return long
+         */
+        public long getEventCount()
+        {
+            return eventCount.sum();
+        }
+
+        /**
+         * Getter for the summed up time the listeners needed for all events
+         * @return long nanoseconds
+         */
+        public long getEventNanos()
+        {
+            return eventNanos.sum();
+        }
+
+        @Override
+        public String toString()
+        {
+            return "[rebuilds=" + getRebuildCount() + ", rebuildNanos=" + getRebuildNanos()
+                    + ", layouts=" + getLayoutCount() + ", layoutNanos=" + getLayoutNanos()
+                    + ", events=" + getEventCount() + ", eventNanos=" + getEventNanos() + "]";
+        }
+    }
+}
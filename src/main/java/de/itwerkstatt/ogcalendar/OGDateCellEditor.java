@@ -0,0 +1,109 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.event.MouseEvent;
+import java.time.LocalDate;
+import java.util.EventObject;
+import java.util.Locale;
+import javax.swing.AbstractCellEditor;
+import javax.swing.JTable;
+import javax.swing.border.LineBorder;
+import javax.swing.table.TableCellEditor;
+
+/**
+ * Edits LocalDate values of a JTable with an OGDateField. The same field is
+ * used for every edit and its calendar popup is the one shared by all date
+ * fields of the window, so editing creates no components after the first
+ * time. Editing stops when a day is chosen in the popup or Enter is
+ * pressed, an invalid typed date keeps the editor open
+ */
+public class OGDateCellEditor extends AbstractCellEditor implements TableCellEditor
+{
+
+    private final OGDateField dateField = new OGDateField();
+    private int clickCountToStart = 2;
+
+    /**
+     * Constructor with the default Locale
+     */
+    public OGDateCellEditor()
+    {
+        this( Locale.getDefault() );
+    }
+
+    /**
+     * Constructor which sets the Locale defining the format
+     * @param locale
+     */
+    public OGDateCellEditor( Locale locale )
+    {
+        dateField.setLocale( locale );
+        dateField.getTextField().setBorder( new LineBorder( Color.black ) );
+        dateField.getTextField().addActionListener( (e) -> stopCellEditing() );
+        dateField.addPropertyChangeListener( "dateSelected", (e) -> stopCellEditing() );
+    }
+
+    /**
+     * Getter for the field used for editing, e.g. to set limits or disabled
+     * days for all cells
+     * @return OGDateField
+     */
+    public OGDateField getDateField()
+    {
+        return dateField;
+    }
+
+    /**
+     * Sets the number of clicks needed to start editing
+     * @param count
+     */
+    public void setClickCountToStart( int count )
+    {
+        clickCountToStart = count;
+    }
+
+    /**
+     * Getter for the number of clicks needed to start editing
+     * @return int
+     */
+    public int getClickCountToStart()
+    {
+        return clickCountToStart;
+    }
+
+    @Override
+    public Component getTableCellEditorComponent( JTable table, Object value, boolean isSelected, int row, int column )
+    {
+        dateField.setDate( value instanceof LocalDate ? (LocalDate) value : null );
+        dateField.setFont( table.getFont() );
+        dateField.getTextField().setFont( table.getFont() );
+        return dateField;
+    }
+
+    @Override
+    public Object getCellEditorValue()
+    {
+        return dateField.getDate();
+    }
+
+    @Override
+    public boolean isCellEditable( EventObject e )
+    {
+        if ( e instanceof MouseEvent )
+        {
+            return ( (MouseEvent) e ).getClickCount() >= clickCountToStart;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean stopCellEditing()
+    {
+        if ( !dateField.commitText() )
+        {
+            return false;
+        }
+        return super.stopCellEditing();
+    }
+}
@@ -0,0 +1,87 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+import javax.swing.table.DefaultTableCellRenderer;
+
+/**
+ * Renders LocalDate values of a JTable in the short format of the Locale.
+ * Like every DefaultTableCellRenderer one instance paints all cells of a
+ * column. The texts of the dates are kept in a small cache indexed by the
+ * epoch day, so scrolling through a table with many rows formats each date
+ * once and does not create any objects per cell. Other values are rendered
+ * as by DefaultTableCellRenderer
+ */
+public class OGDateCellRenderer extends DefaultTableCellRenderer
+{
+
+    //Power of two, consecutive days of almost three years never share a slot
+    private static final int CACHE_SIZE = 1024;
+
+    private final long[] cachedDays = new long[CACHE_SIZE];
+    private final String[] cachedTexts = new String[CACHE_SIZE];
+    private DateParser parser;
+
+    /**
+     * Constructor with the default Locale
+     */
+    public OGDateCellRenderer()
+    {
+        this( Locale.getDefault() );
+    }
+
+    /**
+     * Constructor which sets the Locale defining the format
+     * @param locale
+     */
+    public OGDateCellRenderer( Locale locale )
+    {
+        setLocale( locale );
+    }
+
+    /**
+     * Sets the Locale which defines the format of the dates
+     * @param locale
+     */
+    @Override
+    public void setLocale( Locale locale )
+    {
+        super.setLocale( locale );
+        parser = DateParser.of( getLocale() );
+        //No text of a slot is valid for the new format
+        Arrays.fill( cachedTexts, null );
+    }
+
+    @Override
+    protected void setValue( Object value )
+    {
+        if ( value instanceof LocalDate )
+        {
+            setText( format( (LocalDate) value ) );
+        }
+        else
+        {
+            super.setValue( value );
+        }
+    }
+
+    /**
+     * Returns the text of a date, from the cache if it was formatted before
+     * @param date
+     * @return String
+     */
+    private String format( LocalDate date )
+    {
+        long day = date.toEpochDay();
+        int slot = (int) day & ( CACHE_SIZE - 1 );
+        String text = cachedTexts[slot];
+        if ( text == null || cachedDays[slot] != day )
+        {
+            text = parser.format( date );
+            cachedDays[slot] = day;
+            cachedTexts[slot] = text;
+        }
+        return text;
+    }
+}
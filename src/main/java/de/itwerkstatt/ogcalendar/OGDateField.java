@@ -0,0 +1,371 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.awt.BorderLayout;
+import java.awt.Insets;
+import java.awt.Window;
+import java.awt.event.ActionEvent;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Predicate;
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.JPopupMenu;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import javax.swing.UIManager;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
+
+/**
+ * A text field for a date with a button which opens an OGCalendar in a
+ * popup. The field itself is only a text field and a button, the calendar
+ * is created when a popup is opened the first time and shared by all date
+ * fields of the same window. So a form with many date fields starts as
+ * fast as one with text fields.
+ * Typed dates are parsed in the order of the short date format of the
+ * Locale, e.g. 17.10.26 or 171026 in Germany. An invalid or disabled date
+ * is rejected and the field shows the previous date again. ALT + DOWN
+ * opens the popup. Register a propertychange listener with propertyname
+ * "date" to receive the date whenever it changes or "dateSelected" to
+ * receive the day chosen in the popup
+ */
+public class OGDateField extends JPanel
+{
+
+    //One popup per window, created when a field of the window opens it first
+    private static final Map<Window, DatePopup> POPUPS = new WeakHashMap<>();
+
+    private final PropertyChangeSupport pcs = new PropertyChangeSupport( this );
+    private final JTextField textField;
+    private final JButton button;
+    private DateParser parser;
+    private LocalDate date;
+    private LocalDate minimumDate;
+    private LocalDate maximumDate;
+    private Predicate<LocalDate> disabledDays;
+
+    /**
+     * Constructor for an empty field
+     */
+    public OGDateField()
+    {
+        this( null );
+    }
+
+    /**
+     * Constructor which sets the date
+     * @param date null for an empty field
+     */
+    public OGDateField( LocalDate date )
+    {
+        super( new BorderLayout() );
+        this.date = date;
+        parser = DateParser.of( getLocale() );
+        textField = new JTextField( 10 );
+        textField.setText( parser.format( date ) );
+        textField.addActionListener( (e) -> commitText() );
+        textField.addFocusListener( new FocusAdapter()
+        {
+            @Override
+            public void focusLost( FocusEvent e )
+            {
+                commitText();
+            }
+        } );
+        textField.getInputMap( JComponent.WHEN_FOCUSED ).put( KeyStroke.getKeyStroke( KeyEvent.VK_DOWN, InputEvent.ALT_DOWN_MASK ), "showPopup" );
+        textField.getActionMap().put( "showPopup", new AbstractAction()
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed( ActionEvent e )
+            {
+                showPopup();
+            }
+        } );
+        button = new JButton( "..." );
+        button.setMargin( new Insets( 0, 2, 0, 2 ) );
+        button.setFocusable( false );
+        button.addActionListener( (e) -> showPopup() );
+        add( textField, BorderLayout.CENTER );
+        add( button, BorderLayout.EAST );
+    }
+
+    /**
+     * Sets the date shown by the field
+     * @param date null for an empty field
+     */
+    public void setDate( LocalDate date )
+    {
+        LocalDate old = this.date;
+        this.date = date;
+        textField.setText( parser.format( date ) );
+        if ( old == null ? date != null : !old.equals( date ) )
+        {
+            pcs.firePropertyChange( "date", old, date );
+        }
+    }
+
+    /**
+     * Getter for the date shown by the field
+     * @return LocalDate or null if the field is empty
+     */
+    public LocalDate getDate()
+    {
+        return date;
+    }
+
+    /**
+     * Sets the first day which can be entered or chosen
+     * @param minimumDate null if there is no limit
+     */
+    public void setMinimumDate( LocalDate minimumDate )
+    {
+        this.minimumDate = minimumDate;
+    }
+
+    /**
+     * Getter for the first day which can be entered or chosen
+     * @return LocalDate or null
+     */
+    public LocalDate getMinimumDate()
+    {
+        return minimumDate;
+    }
+
+    /**
+     * Sets the last day which can be entered or chosen
+     * @param maximumDate null if there is no limit
+     */
+    public void setMaximumDate( LocalDate maximumDate )
+    {
+        this.maximumDate = maximumDate;
+    }
+
+    /**
+     * Getter for the last day which can be entered or chosen
+     * @return LocalDate or null
+     */
+    public LocalDate getMaximumDate()
+    {
+        return maximumDate;
+    }
+
+    /**
+     * Sets the days which can not be entered or chosen
+     * @param disabledDays returns true for the days which can not be
+     * selected, null enables all days
+     */
+    public void setDisabledDays( Predicate<LocalDate> disabledDays )
+    {
+        this.disabledDays = disabledDays;
+    }
+
+    /**
+     * Getter for the days which can not be entered or chosen
+     * @return Predicate or null
+     */
+    public Predicate<LocalDate> getDisabledDays()
+    {
+        return disabledDays;
+    }
+
+    /**
+     * Getter for the text field, e.g. to set its columns
+     * @return JTextField
+     */
+    public JTextField getTextField()
+    {
+        return textField;
+    }
+
+    /**
+     * Sets the Locale which defines the format of the date
+     * @param locale
+     */
+    @Override
+    public void setLocale( Locale locale )
+    {
+        super.setLocale( locale );
+        parser = DateParser.of( getLocale() );
+        textField.setText( parser.format( date ) );
+    }
+
+    @Override
+    public void setEnabled( boolean enabled )
+    {
+        super.setEnabled( enabled );
+        textField.setEnabled( enabled );
+        button.setEnabled( enabled );
+    }
+
+    /**
+     * Register the following PropertyChangeListeners to receive the values:
+     * date = get the date whenever it changes
+     * dateSelected = get the day chosen in the popup
+     * @param propertyName
+     * @param listener
+     */
+    @Override
+    public void addPropertyChangeListener( String propertyName, PropertyChangeListener listener )
+    {
+        pcs.addPropertyChangeListener( propertyName, listener );
+    }
+
+    /**
+     * Register the following PropertyChangeListeners to receive the values:
+     * date = get the date whenever it changes
+     * dateSelected = get the day chosen in the popup
+     * @param listener
+     */
+    @Override
+    public void addPropertyChangeListener( PropertyChangeListener listener )
+    {
+        pcs.addPropertyChangeListener( listener );
+    }
+
+    /**
+     * Opens the calendar popup of the window below the field
+     */
+    public void showPopup()
+    {
+        Window window = SwingUtilities.getWindowAncestor( this );
+        if ( window == null || !isEnabled() )
+        {
+            return;
+        }
+        commitText();
+        POPUPS.computeIfAbsent( window, (w) -> new DatePopup() ).open( this );
+    }
+
+    /**
+     * Takes the typed date. An invalid date is rejected and the previous
+     * date is shown again
+     * @return false if the text was rejected
+     */
+    boolean commitText()
+    {
+        String text = textField.getText().trim();
+        if ( text.isEmpty() )
+        {
+            setDate( null );
+            return true;
+        }
+        LocalDate parsed = parser.parse( text );
+        if ( parsed != null && isSelectable( parsed ) )
+        {
+            setDate( parsed );
+            return true;
+        }
+        UIManager.getLookAndFeel().provideErrorFeedback( textField );
+        textField.setText( parser.format( date ) );
+        return false;
+    }
+
+    /**
+     * Checks if a date is within the limits and not disabled
+     * @param day
+     * @return boolean
+     */
+    private boolean isSelectable( LocalDate day )
+    {
+        return ( minimumDate == null || !day.isBefore( minimumDate ) ) && ( maximumDate == null || !day.isAfter( maximumDate ) )
+                && ( disabledDays == null || !disabledDays.test( day ) );
+    }
+
+    /**
+     * The popup with the calendar shared by the date fields of a window. The
+     * calendar is created when the popup is opened first and set up for the
+     * field on every opening
+     */
+    private static final class DatePopup extends JPopupMenu
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        private OGCalendar calendar;
+        //The field which opened the popup
+        private OGDateField owner;
+
+        /**
+         * Shows the calendar for the given field
+         * @param field
+         */
+        void open( OGDateField field )
+        {
+            if ( calendar == null )
+            {
+                calendar = new OGCalendar( YearMonth.now(), OGDayChooser.RenderMode.PAINTED );
+                calendar.addPropertyChangeListener( "dateSelected", (e) -> dateChosen( (LocalDate) e.getNewValue() ) );
+                add( calendar );
+                addPopupMenuListener( new PopupMenuListener()
+                {
+                    @Override
+                    public void popupMenuWillBecomeVisible( PopupMenuEvent e )
+                    {
+                    }
+
+                    @Override
+                    public void popupMenuWillBecomeInvisible( PopupMenuEvent e )
+                    {
+                        //The popup must not keep the window alive, it is the key of the map
+                        SwingUtilities.invokeLater( () ->
+                        {
+                            if ( !isVisible() )
+                            {
+                                owner = null;
+                                setInvoker( null );
+                            }
+                        } );
+                    }
+
+                    @Override
+                    public void popupMenuCanceled( PopupMenuEvent e )
+                    {
+                    }
+                } );
+            }
+            owner = field;
+            if ( !field.getLocale().equals( calendar.getLocale() ) )
+            {
+                calendar.setLocale( field.getLocale() );
+            }
+            calendar.setLimits( field.minimumDate, field.maximumDate, field.disabledDays );
+            //setCurrentDate always rebuilds the days, the month is often the same
+            YearMonth month = calendar.clamp( YearMonth.from( field.date != null ? field.date : LocalDate.now() ) );
+            if ( !month.equals( calendar.getCurrentDate() ) )
+            {
+                calendar.setCurrentDate( month );
+            }
+            show( field, 0, field.getHeight() );
+        }
+
+        /**
+         * Hands the chosen day to the field which opened the popup
+         * @param day
+         */
+        private void dateChosen( LocalDate day )
+        {
+            OGDateField field = owner;
+            setVisible( false );
+            if ( field != null )
+            {
+                field.setDate( day );
+                field.textField.requestFocusInWindow();
+                field.pcs.firePropertyChange( "dateSelected", null, day );
+            }
+        }
+    }
+}
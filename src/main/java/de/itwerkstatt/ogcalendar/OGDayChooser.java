@@ -1,26 +1,72 @@
 package de.itwerkstatt.ogcalendar;
 
 import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
 import java.awt.GridBagConstraints;
 import static java.awt.GridBagConstraints.BOTH;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.FocusEvent;
+import java.awt.event.FocusListener;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.time.DateTimeException;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.KeyStroke;
 import javax.swing.SwingConstants;
-import javax.swing.border.BevelBorder;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.ToolTipManager;
 
 /**
  * A JPanel that represents a hole month in a sheet Register a propertychange
  * listener with propertyname "dateSelected" to receive the current LocalDate
  * value selected by the user
+ * The sheet consists of a fixed grid of 6 weeks with 7 days which is created
+ * once. Changing the month only updates the cells in place.
+ * The sheet can be used with the keyboard: arrow keys move the focused day,
+ * page up and page down change the month and enter selects the focused day.
+ * If the month is changed by the keyboard a propertychange event with
+ * propertyname "currentYearAndMonth" is fired
+ * In RenderMode.PAINTED the sheet has no child components at all, the whole
+ * month is painted by the panel itself. This is cheaper if many sheets are
+ * shown at the same time
+ * The layout of the months is taken from a MonthGridCache. When the sheet has
+ * been idle for a moment the previous and the next month are computed in
+ * advance
+ * A DayDecorator can color the days. The decorations are loaded on a
+ * background thread when a month is shown first. The decorations of the
+ * last months are kept, so going back to them shows them at once until
+ * refreshDecorations is called
+ * In SelectionMode.RANGE the user selects a range of days by two clicks or
+ * by dragging, also across months. While selecting, the range up to the day
+ * under the mouse is highlighted. The result is fired as DateRange with
+ * propertyname "rangeSelected"
+ * If an OGCalendarEventStore is set, every day shows the number of its
+ * events. Changes of the store only update the days they affect
+ * The headlines and the first day of the week follow the locale of the
+ * component, see CalendarNames
  *
  * @author Dominik Sust
  * @creation 19.12.2017 14:49:58
@@ -28,17 +74,115 @@ import javax.swing.border.BevelBorder;
 public class OGDayChooser extends JPanel
 {
 
+    /**
+     * The ways a sheet can be displayed
+     */
+    public enum RenderMode
+    {
+        /**
+         * Every day is a label
+         */
+        COMPONENTS,
+        /**
+         * The whole sheet is painted by the panel
+         */
+        PAINTED
+    }
+
+    /**
+     * The ways days can be selected
+     */
+    public enum SelectionMode
+    {
+        /**
+         * A click selects a single day, see dateSelected
+         */
+        SINGLE,
+        /**
+         * Two clicks or a drag select a range of days, see rangeSelected
+         */
+        RANGE
+    }
+
+    private static final int CELL_COUNT = MonthGrid.CELL_COUNT;
+    //Milliseconds without a month change before the neighbours are prefetched
+    private static final int PREFETCH_DELAY = 250;
+    //Number of months whose decorations are kept
+    private static final int DECORATION_CACHE_SIZE = 12;
+    private static final String[] DAY_TEXTS = new String[32];
+
+    static
+    {
+        for ( int i = 1; i < DAY_TEXTS.length; i++ )
+        {
+            DAY_TEXTS[i] = String.valueOf( i );
+        }
+    }
+
     private final PropertyChangeSupport pcs = new PropertyChangeSupport( this );
+    private OGCalendarInstrumentation instrumentation;
 
-    private String MONDAY = "Mo";
-    private String TUESDAY = "Di";
-    private String WEDNESDAY = "Mi";
-    private String THURSDAY = "Do";
-    private String FRIDAY = "Fr";
-    private String SATURDAY = "Sa";
-    private String SUNDAY = "So";
+    //Names and first day of week of the locale of this component
+    private CalendarNames names;
+    //Headlines set by setHeadline, indexed by DayOfWeek.getValue() - 1
+    private final String[] headlineOverrides = new String[7];
     private YearMonth currentYearAndMonth;
-    private GridBagConstraints gbc = new GridBagConstraints();
+    //Layout of the current month
+    private MonthGrid grid;
+    private MonthGridCache monthGridCache = MonthGridCache.getShared();
+    private final Timer prefetchTimer;
+    private boolean prefetchEnabled = true;
+    private DayDecorator dayDecorator;
+    private DecorationLoader decorationLoader;
+    private final DayDecoration[] decorations = new DayDecoration[CELL_COUNT];
+    //Loaded decorations of the last months, the least recently used are removed
+    private final Map<MonthGrid, Map<LocalDate, DayDecoration>> decorationCache = new LinkedHashMap<MonthGrid, Map<LocalDate, DayDecoration>>( 16, 0.75f, true )
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<MonthGrid, Map<LocalDate, DayDecoration>> eldest )
+        {
+            return size() > DECORATION_CACHE_SIZE;
+        }
+    };
+    private OGCalendarEventStore eventStore;
+    private final OGCalendarEventStore.StoreListener storeListener = (from, to) -> eventsChanged( from, to );
+    //Number of events of every cell, only filled if there is an event store
+    private final int[] eventCounts = new int[CELL_COUNT];
+    private final int[] changedCounts = new int[CELL_COUNT];
+    //Font of the event badges and the font it was derived from
+    private Font badgeFont;
+    private Font badgeBaseFont;
+    private BusinessCalendar businessCalendar;
+    //Bit i is set if cell i is a weekend or a holiday
+    private long nonWorkingCells;
+    private LocalDate minimumDate;
+    private LocalDate maximumDate;
+    private Predicate<LocalDate> disabledDays;
+    //Bit i is set if cell i can not be selected
+    private long disabledCells;
+    private final RenderMode renderMode;
+    //Only used in RenderMode.COMPONENTS
+    private JLabel[] headlines;
+    private DayCell[] dayCells;
+    //Only used in RenderMode.PAINTED
+    private MonthSheetPainter painter;
+    private final String[] headlineTexts = new String[7];
+    private int todayIndex = -1;
+    private int focusIndex = -1;
+    private int hoverIndex = -1;
+    //Day of month which is moved by the keyboard
+    private int focusedDay = 1;
+    private SelectionMode selectionMode = SelectionMode.SINGLE;
+    private DateRange selectedRange;
+    //First and current last day of a range the user is selecting
+    private LocalDate rangeAnchor;
+    private LocalDate rangePreview;
+    //True if the anchor was set by the current mouse press
+    private boolean anchorPressed;
+    //Bit i is set if cell i is shown as part of the range
+    private long rangeCells;
 
     /**
      * Constructor which sets current Year and Month to 
@@ -56,8 +200,34 @@ public class OGDayChooser extends JPanel
      */
     public OGDayChooser(YearMonth current)
     {
-        setLayout( new GridBagLayout() );
+        this( current, RenderMode.COMPONENTS );
+    }
+
+    /**
+     * Constructor which sets current Year and Month to 
+     * the given value and displays the sheet in the given mode
+     * @param current 
+     * @param renderMode 
+     */
+    public OGDayChooser( YearMonth current, RenderMode renderMode )
+    {
+        this.renderMode = renderMode;
         currentYearAndMonth = current;
+        names = CalendarNames.of( getLocale() );
+        grid = monthGridCache.get( current, names.getFirstDayOfWeek() );
+        prefetchTimer = new Timer( PREFETCH_DELAY, (e) -> monthGridCache.prefetchNeighbours( currentYearAndMonth, grid.getFirstDayOfWeek() ) );
+        prefetchTimer.setRepeats( false );
+        if ( renderMode == RenderMode.PAINTED )
+        {
+            painter = new MonthSheetPainter();
+        }
+        else
+        {
+            setLayout( new GridBagLayout() );
+            createHeadlines();
+            createDayCells();
+        }
+        registerDispatcher();
         setCurrentYearAndMonth( currentYearAndMonth );
     }
 
@@ -67,14 +237,401 @@ public class OGDayChooser extends JPanel
      */
     public void setCurrentYearAndMonth( YearMonth yearAndMonth )
     {
-        System.out.println( yearAndMonth );
-        removeAll();
+        long start = instrumentation != null ? System.nanoTime() : 0;
         currentYearAndMonth = yearAndMonth;
-        gbc.weightx = gbc.weighty = 1.0;
-        createHeadlines();
+        Arrays.fill( decorations, null );
         fillDayButtons();
         repaint();
-        revalidate();
+        if ( prefetchEnabled )
+        {
+            prefetchTimer.restart();
+        }
+        Map<LocalDate, DayDecoration> cached = dayDecorator != null ? decorationCache.get( grid ) : null;
+        if ( cached != null )
+        {
+            if ( decorationLoader != null )
+            {
+                decorationLoader.cancel();
+            }
+            applyDecorations( grid, cached );
+        }
+        else
+        {
+            loadDecorations();
+        }
+        if ( instrumentation != null )
+        {
+            instrumentation.rebuilt( this, System.nanoTime() - start );
+        }
+    }
+
+    /**
+     * Getter for the year and month currently displayed
+     * @return YearMonth
+     */
+    public YearMonth getCurrentYearAndMonth()
+    {
+        return currentYearAndMonth;
+    }
+
+    /**
+     * Sets the instrumentation which receives the measurements of this
+     * component. Null disables the measurement
+     * @param instrumentation 
+     */
+    public void setInstrumentation( OGCalendarInstrumentation instrumentation )
+    {
+        this.instrumentation = instrumentation;
+    }
+
+    /**
+     * Getter for the instrumentation of this component
+     * @return OGCalendarInstrumentation or null
+     */
+    public OGCalendarInstrumentation getInstrumentation()
+    {
+        return instrumentation;
+    }
+
+    /**
+     * Sets the decorator which colors the days. Null removes all decorations
+     * @param dayDecorator 
+     */
+    public void setDayDecorator( DayDecorator dayDecorator )
+    {
+        this.dayDecorator = dayDecorator;
+        decorationCache.clear();
+        if ( dayDecorator != null )
+        {
+            ToolTipManager.sharedInstance().registerComponent( this );
+            loadDecorations();
+        }
+        else
+        {
+            ToolTipManager.sharedInstance().unregisterComponent( this );
+            if ( decorationLoader != null )
+            {
+                decorationLoader.cancel();
+            }
+            applyDecorations( grid, null );
+        }
+    }
+
+    /**
+     * Getter for the decorator which colors the days
+     * @return DayDecorator or null
+     */
+    public DayDecorator getDayDecorator()
+    {
+        return dayDecorator;
+    }
+
+    /**
+     * Loads the decorations of the current month again, e.g. after the data
+     * behind them has changed. The current decorations stay until the new
+     * ones are loaded, the kept decorations of other months are dropped
+     */
+    public void refreshDecorations()
+    {
+        decorationCache.clear();
+        loadDecorations();
+    }
+
+    /**
+     * Starts loading the decorations of the current month
+     */
+    private void loadDecorations()
+    {
+        if ( dayDecorator == null )
+        {
+            return;
+        }
+        if ( decorationLoader == null )
+        {
+            decorationLoader = new DecorationLoader( (loadedGrid, loaded) -> applyDecorations( loadedGrid, loaded ) );
+        }
+        decorationLoader.load( dayDecorator, grid );
+    }
+
+    /**
+     * Sets the store whose events are counted on the days. Null removes the
+     * counts
+     * @param eventStore 
+     */
+    public void setEventStore( OGCalendarEventStore eventStore )
+    {
+        if ( this.eventStore != null )
+        {
+            this.eventStore.removeStoreListener( storeListener );
+        }
+        this.eventStore = eventStore;
+        if ( eventStore != null )
+        {
+            eventStore.addStoreListener( storeListener );
+        }
+        countEvents();
+        if ( painter != null )
+        {
+            repaint();
+        }
+    }
+
+    /**
+     * Getter for the store whose events are counted on the days
+     * @return OGCalendarEventStore or null
+     */
+    public OGCalendarEventStore getEventStore()
+    {
+        return eventStore;
+    }
+
+    /**
+     * Sets the calendar whose weekends and holidays are shaded. Null removes
+     * the shading
+     * @param businessCalendar 
+     */
+    public void setBusinessCalendar( BusinessCalendar businessCalendar )
+    {
+        this.businessCalendar = businessCalendar;
+        nonWorkingCells = computeNonWorkingCells();
+        if ( painter != null )
+        {
+            repaint();
+            return;
+        }
+        for ( int i = 0; i < CELL_COUNT; i++ )
+        {
+            decorateCell( i );
+        }
+    }
+
+    /**
+     * Getter for the calendar whose weekends and holidays are shaded
+     * @return BusinessCalendar or null
+     */
+    public BusinessCalendar getBusinessCalendar()
+    {
+        return businessCalendar;
+    }
+
+    /**
+     * Sets the first day which can be selected. Earlier months can not be
+     * shown by the keyboard
+     * @param minimumDate null if there is no limit
+     */
+    public void setMinimumDate( LocalDate minimumDate )
+    {
+        if ( minimumDate != null && maximumDate != null && minimumDate.isAfter( maximumDate ) )
+        {
+            throw new IllegalArgumentException( "minimumDate must not be after maximumDate: " + minimumDate + " - " + maximumDate );
+        }
+        this.minimumDate = minimumDate;
+        updateDisabledCells();
+    }
+
+    /**
+     * Getter for the first day which can be selected
+     * @return LocalDate or null
+     */
+    public LocalDate getMinimumDate()
+    {
+        return minimumDate;
+    }
+
+    /**
+     * Sets the last day which can be selected. Later months can not be shown
+     * by the keyboard
+     * @param maximumDate null if there is no limit
+     */
+    public void setMaximumDate( LocalDate maximumDate )
+    {
+        if ( maximumDate != null && minimumDate != null && maximumDate.isBefore( minimumDate ) )
+        {
+            throw new IllegalArgumentException( "maximumDate must not be before minimumDate: " + minimumDate + " - " + maximumDate );
+        }
+        this.maximumDate = maximumDate;
+        updateDisabledCells();
+    }
+
+    /**
+     * Getter for the last day which can be selected
+     * @return LocalDate or null
+     */
+    public LocalDate getMaximumDate()
+    {
+        return maximumDate;
+    }
+
+    /**
+     * Sets the days which can not be selected, e.g. the days before the next
+     * delivery date. The predicate is evaluated once for every day of a month
+     * when the month is shown, not when a day is painted or clicked. If the
+     * data behind it changes, call it again
+     * @param disabledDays returns true for the days which can not be
+     * selected, null enables all days
+     */
+    public void setDisabledDays( Predicate<LocalDate> disabledDays )
+    {
+        this.disabledDays = disabledDays;
+        updateDisabledCells();
+    }
+
+    /**
+     * Getter for the days which can not be selected
+     * @return Predicate or null
+     */
+    public Predicate<LocalDate> getDisabledDays()
+    {
+        return disabledDays;
+    }
+
+    /**
+     * Sets minimum date, maximum date and disabled days together, so the
+     * disabled cells are computed once and the new minimum may be after the
+     * old maximum. Nothing happens if all three are unchanged
+     * @param minimumDate null if there is no limit
+     * @param maximumDate null if there is no limit
+     * @param disabledDays null enables all days
+     */
+    public void setLimits( LocalDate minimumDate, LocalDate maximumDate, Predicate<LocalDate> disabledDays )
+    {
+        if ( minimumDate != null && maximumDate != null && minimumDate.isAfter( maximumDate ) )
+        {
+            throw new IllegalArgumentException( "minimumDate must not be after maximumDate: " + minimumDate + " - " + maximumDate );
+        }
+        if ( Objects.equals( minimumDate, this.minimumDate ) && Objects.equals( maximumDate, this.maximumDate )
+                && disabledDays == this.disabledDays )
+        {
+            return;
+        }
+        this.minimumDate = minimumDate;
+        this.maximumDate = maximumDate;
+        this.disabledDays = disabledDays;
+        updateDisabledCells();
+    }
+
+    /**
+     * Checks if a day is within the limits and not disabled
+     * @param date
+     * @return boolean
+     */
+    public boolean isSelectable( LocalDate date )
+    {
+        int index = grid.indexOf( date );
+        if ( index >= 0 && grid.isInMonth( index ) )
+        {
+            return ( disabledCells & 1L << index ) == 0;
+        }
+        return isInLimits( date ) && ( disabledDays == null || !disabledDays.test( date ) );
+    }
+
+    /**
+     * Returns the tooltip of the decoration of the day under the mouse
+     * @param event
+     * @return String
+     */
+    @Override
+    public String getToolTipText( MouseEvent event )
+    {
+        int index = cellIndexAt( event.getX(), event.getY() );
+        if ( index >= 0 && grid.isInMonth( index ) && decorations[index] != null )
+        {
+            return decorations[index].getToolTipText();
+        }
+        return null;
+    }
+
+    /**
+     * Sets the way days are selected. A range the user is selecting is
+     * cancelled
+     * @param selectionMode 
+     */
+    public void setSelectionMode( SelectionMode selectionMode )
+    {
+        this.selectionMode = selectionMode;
+        cancelRange();
+    }
+
+    /**
+     * Getter for the way days are selected
+     * @return SelectionMode
+     */
+    public SelectionMode getSelectionMode()
+    {
+        return selectionMode;
+    }
+
+    /**
+     * Sets the selected range which is highlighted. Null clears the
+     * selection. No event is fired
+     * @param range 
+     */
+    public void setSelectedRange( DateRange range )
+    {
+        selectedRange = range;
+        rangeAnchor = null;
+        rangePreview = null;
+        updateRangeCells();
+    }
+
+    /**
+     * Getter for the range selected last
+     * @return DateRange or null
+     */
+    public DateRange getSelectedRange()
+    {
+        return selectedRange;
+    }
+
+    /**
+     * Sets the cache the layout of the months is taken from. By default the
+     * shared cache is used
+     * @param monthGridCache 
+     */
+    public void setMonthGridCache( MonthGridCache monthGridCache )
+    {
+        this.monthGridCache = monthGridCache;
+    }
+
+    /**
+     * Getter for the cache the layout of the months is taken from
+     * @return MonthGridCache
+     */
+    public MonthGridCache getMonthGridCache()
+    {
+        return monthGridCache;
+    }
+
+    /**
+     * Enables or disables computing the neighbouring months in advance. It
+     * is enabled by default
+     * @param prefetchEnabled 
+     */
+    public void setPrefetchEnabled( boolean prefetchEnabled )
+    {
+        this.prefetchEnabled = prefetchEnabled;
+        if ( !prefetchEnabled )
+        {
+            prefetchTimer.stop();
+        }
+    }
+
+    /**
+     * Checks if the neighbouring months are computed in advance
+     * @return boolean
+     */
+    public boolean isPrefetchEnabled()
+    {
+        return prefetchEnabled;
+    }
+
+    /**
+     * Getter for the mode this sheet is displayed in
+     * @return RenderMode
+     */
+    public RenderMode getRenderMode()
+    {
+        return renderMode;
     }
     
     /**
@@ -84,29 +641,25 @@ public class OGDayChooser extends JPanel
      */
     public void setHeadline( DayOfWeek day, String value )
     {
-        switch ( day )
-        {
-            case MONDAY:
-                MONDAY = value;
-                break;
-            case TUESDAY:
-                TUESDAY = value;
-                break;
-            case WEDNESDAY:
-                WEDNESDAY = value;
-                break;
-            case THURSDAY:
-                THURSDAY = value;
-                break;
-            case FRIDAY:
-                FRIDAY = value;
-                break;
-            case SATURDAY:
-                SATURDAY = value;
-                break;
-            case SUNDAY:
-                SUNDAY = value;
-                break;
+        headlineOverrides[day.getValue() - 1] = value;
+        updateHeadlines();
+    }
+
+    /**
+     * Sets the locale which defines the headlines and the first day of the
+     * week. Headlines set by setHeadline are kept
+     * @param locale 
+     */
+    @Override
+    public void setLocale( Locale locale )
+    {
+        super.setLocale( locale );
+        CalendarNames localeNames = CalendarNames.of( getLocale() );
+        if ( localeNames != names )
+        {
+            names = localeNames;
+            setCurrentYearAndMonth( currentYearAndMonth );
+            updateHeadlines();
         }
     }
 
@@ -133,62 +686,718 @@ public class OGDayChooser extends JPanel
         pcs.addPropertyChangeListener( listener );
     }    
 
-    /**
-     * Creates headlines Update OGCalendarWeekDayCaption to customize these
-     * headlines
-     */
-    private void createHeadlines()
+    @Override
+    public void doLayout()
     {
-        gbc.gridwidth = 1;
-        gbc.gridy = 1;
-        gbc.anchor = GridBagConstraints.CENTER;
-        for ( int i = 1; i < 8; i++ )
+        if ( instrumentation == null )
         {
-            gbc.gridx = i;
-            JLabel label = new JLabel( getHeadline( DayOfWeek.of( i ) ) );
-            label.setHorizontalAlignment( SwingConstants.CENTER );
-            this.add( label, gbc );
+            super.doLayout();
+            return;
+        }
+        long start = System.nanoTime();
+        super.doLayout();
+        instrumentation.laidOut( this, System.nanoTime() - start );
+    }
+
+    @Override
+    public Dimension getPreferredSize()
+    {
+        if ( painter == null || isPreferredSizeSet() )
+        {
+            return super.getPreferredSize();
         }
+        Dimension size = MonthSheetPainter.preferredSize( getFontMetrics( getFont() ) );
+        Insets insets = getInsets();
+        size.width += insets.left + insets.right;
+        size.height += insets.top + insets.bottom;
+        return size;
     }
 
     /**
-     * Creates all the Buttons with actioncommands
+     * Paints the whole sheet in RenderMode.PAINTED. Only cells inside the
+     * clip are painted, so a repaint of a single cell stays cheap
+     * @param g 
      */
-    private void fillDayButtons()
+    @Override
+    protected void paintComponent( Graphics g )
     {
-        gbc.gridy = 2;
-        gbc.fill = BOTH;
-        gbc.insets = new Insets( 1, 1, 1, 1 );
-        for ( int i = 1; i < currentYearAndMonth.lengthOfMonth() + 1; i++ )
+        super.paintComponent( g );
+        if ( painter == null )
         {
-            DayOfWeek dayOfWeek = currentYearAndMonth.atDay( i ).getDayOfWeek();
-            gbc.gridx = dayOfWeek.getValue();
-
-            if ( dayOfWeek == DayOfWeek.MONDAY && i != 1 )
-            {
-                gbc.gridy++;
-            }
-            JLabel b = new JLabel( String.valueOf( i ) );
-            b.addMouseListener( new MouseAdapter()
+            return;
+        }
+        layoutPainter();
+        MonthSheetPainter.applyTextHints( g );
+        Color foreground = getForeground();
+        for ( int i = 0; i < 7; i++ )
+        {
+            headlineTexts[i] = getHeadline( grid.getWeekday( i ) );
+        }
+        painter.paintHeadlines( g, headlineTexts, foreground );
+        Rectangle clip = g.getClipBounds();
+        int first = grid.getFirstDayIndex();
+        for ( int i = first; i < first + grid.getLengthOfMonth(); i++ )
+        {
+            if ( clip == null || clip.intersects( painter.getCellBounds( i ) ) )
+            {
+                painter.paintCell( g, this, i, DAY_TEXTS[grid.getDayOfMonth( i )], cellFlags( i ), foreground, decorations[i] );
+                if ( eventCounts[i] > 0 )
+                {
+                    Rectangle r = painter.getCellBounds( i );
+                    MonthSheetPainter.paintBadge( g, r.x, r.y, r.width, r.height, eventCounts[i], badgeFont() );
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates headlines Update OGCalendarWeekDayCaption to customize these
+     * headlines
+     */
+    private void createHeadlines()
+    {
+        headlines = new JLabel[7];
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.weightx = gbc.weighty = 1.0;
+        gbc.gridwidth = 1;
+        gbc.gridy = 1;
+        gbc.anchor = GridBagConstraints.CENTER;
+        for ( int i = 1; i < 8; i++ )
+        {
+            gbc.gridx = i;
+            JLabel label = new JLabel( getHeadline( grid.getWeekday( i - 1 ) ) );
+            label.setHorizontalAlignment( SwingConstants.CENTER );
+            headlines[i - 1] = label;
+            this.add( label, gbc );
+        }
+    }
+
+    /**
+     * Creates the fixed grid of day cells. This is done once, afterwards the
+     * cells are only updated by fillDayButtons
+     */
+    private void createDayCells()
+    {
+        dayCells = new DayCell[CELL_COUNT];
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.weightx = gbc.weighty = 1.0;
+        gbc.fill = BOTH;
+        gbc.insets = new Insets( 1, 1, 1, 1 );
+        for ( int i = 0; i < CELL_COUNT; i++ )
+        {
+            gbc.gridx = i % 7 + 1;
+            gbc.gridy = i / 7 + 2;
+            DayCell cell = new DayCell( i );
+            dayCells[i] = cell;
+            this.add( cell, gbc );
+        }
+    }
+
+    /**
+     * Registers one mouse listener and the key bindings for the whole sheet.
+     * The day cells have no listeners of their own, so their mouse events are
+     * delivered to this panel
+     */
+    private void registerDispatcher()
+    {
+        setFocusable( true );
+        DayDispatcher dispatcher = new DayDispatcher();
+        addMouseListener( dispatcher );
+        addMouseMotionListener( dispatcher );
+        addFocusListener( dispatcher );
+        registerKey( KeyEvent.VK_LEFT, "previousDay", -1, 0 );
+        registerKey( KeyEvent.VK_RIGHT, "nextDay", 1, 0 );
+        registerKey( KeyEvent.VK_UP, "previousWeek", -7, 0 );
+        registerKey( KeyEvent.VK_DOWN, "nextWeek", 7, 0 );
+        registerKey( KeyEvent.VK_PAGE_UP, "previousMonth", 0, -1 );
+        registerKey( KeyEvent.VK_PAGE_DOWN, "nextMonth", 0, 1 );
+        getInputMap( JComponent.WHEN_FOCUSED ).put( KeyStroke.getKeyStroke( KeyEvent.VK_ENTER, 0 ), "selectDay" );
+        getActionMap().put( "selectDay", new AbstractAction()
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed( ActionEvent e )
             {
-                @Override
-                public void mouseClicked( MouseEvent e )
+                if ( selectionMode == SelectionMode.RANGE )
+                {
+                    rangeDayChosen( currentYearAndMonth.atDay( focusedDay ), false );
+                }
+                else
                 {
-                    JLabel source = (JLabel) e.getSource();
-                    pcs.firePropertyChange( "dateSelected", null, currentYearAndMonth.atDay( Integer.valueOf( source.getText() ) ) );
+                    selectDay( focusedDay );
                 }
+            }
+        } );
+        getInputMap( JComponent.WHEN_FOCUSED ).put( KeyStroke.getKeyStroke( KeyEvent.VK_ESCAPE, 0 ), "cancelRange" );
+        getActionMap().put( "cancelRange", new AbstractAction()
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed( ActionEvent e )
+            {
+                cancelRange();
+            }
+        } );
+    }
 
-            } );
-            b.setHorizontalAlignment( SwingConstants.CENTER );
-            b.setBorder( new BevelBorder( BevelBorder.RAISED ) );
-            if ( currentYearAndMonth.atDay( i ).isEqual( LocalDate.now() ) )
+    /**
+     * Is called if the user chose a day in SelectionMode.RANGE. The first day
+     * becomes the anchor of the range, the second completes it
+     * @param date
+     * @param pressed true if the day was chosen by a mouse press
+     */
+    private void rangeDayChosen( LocalDate date, boolean pressed )
+    {
+        if ( !isSelectable( date ) )
+        {
+            return;
+        }
+        if ( rangeAnchor == null )
+        {
+            rangeAnchor = date;
+            rangePreview = date;
+            anchorPressed = pressed;
+            updateRangeCells();
+        }
+        else
+        {
+            DateRange range = DateRange.of( rangeAnchor, date );
+            selectedRange = range;
+            rangeAnchor = null;
+            rangePreview = null;
+            updateRangeCells();
+            fire( "rangeSelected", null, range );
+        }
+    }
+
+    /**
+     * Moves the end of the range the user is selecting
+     * @param date 
+     */
+    private void previewRange( LocalDate date )
+    {
+        if ( rangeAnchor != null && !date.equals( rangePreview ) )
+        {
+            rangePreview = date;
+            updateRangeCells();
+        }
+    }
+
+    /**
+     * Cancels the range the user is selecting
+     */
+    private void cancelRange()
+    {
+        if ( rangeAnchor != null )
+        {
+            rangeAnchor = null;
+            rangePreview = null;
+            updateRangeCells();
+        }
+    }
+
+    /**
+     * Computes which cells of the current month are part of the range, either
+     * the one the user is selecting or the selected one
+     * @return bit i is set if cell i is part of the range
+     */
+    private long computeRangeCells()
+    {
+        long low;
+        long high;
+        if ( rangeAnchor != null )
+        {
+            low = Math.min( rangeAnchor.toEpochDay(), rangePreview.toEpochDay() );
+            high = Math.max( rangeAnchor.toEpochDay(), rangePreview.toEpochDay() );
+        }
+        else if ( selectedRange != null )
+        {
+            low = selectedRange.getStart().toEpochDay();
+            high = selectedRange.getEnd().toEpochDay();
+        }
+        else
+        {
+            return 0;
+        }
+        long cells = 0;
+        int first = grid.getFirstDayIndex();
+        for ( int i = first; i < first + grid.getLengthOfMonth(); i++ )
+        {
+            long epochDay = grid.getEpochDay( i );
+            if ( epochDay >= low && epochDay <= high )
+            {
+                cells |= 1L << i;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Updates the range highlight. Only cells whose state has changed are
+     * updated, the rest of the month is left alone
+     */
+    private void updateRangeCells()
+    {
+        long cells = computeRangeCells();
+        long changed = cells ^ rangeCells;
+        rangeCells = cells;
+        while ( changed != 0 )
+        {
+            int index = Long.numberOfTrailingZeros( changed );
+            changed &= changed - 1;
+            if ( painter != null )
+            {
+                repaintCell( index );
+            }
+            else
             {
-                b.setForeground( Color.red );
+                decorateCell( index );
             }
-            this.add( b, gbc );
         }
     }
 
+    /**
+     * Binds the given key to a NavigateAction
+     * @param keyCode
+     * @param name
+     * @param days
+     * @param months 
+     */
+    private void registerKey( int keyCode, String name, int days, int months )
+    {
+        getInputMap( JComponent.WHEN_FOCUSED ).put( KeyStroke.getKeyStroke( keyCode, 0 ), name );
+        getActionMap().put( name, new NavigateAction( days, months ) );
+    }
+
+    /**
+     * Fires the dateSelected event for the given day of the current month
+     * @param day 
+     */
+    private void selectDay( int day )
+    {
+        if ( isDisabled( grid.indexOfDay( day ) ) )
+        {
+            return;
+        }
+        fire( "dateSelected", null, currentYearAndMonth.atDay( day ) );
+    }
+
+    /**
+     * Fires a property change event and reports the time the listeners
+     * needed to the instrumentation
+     * @param propertyName
+     * @param oldValue
+     * @param newValue 
+     */
+    private void fire( String propertyName, Object oldValue, Object newValue )
+    {
+        if ( instrumentation == null )
+        {
+            pcs.firePropertyChange( propertyName, oldValue, newValue );
+            return;
+        }
+        long start = System.nanoTime();
+        pcs.firePropertyChange( propertyName, oldValue, newValue );
+        instrumentation.eventDispatched( this, propertyName, System.nanoTime() - start );
+    }
+
+    /**
+     * Moves the focused day. If the new day is in another month, that month
+     * is displayed
+     * @param days
+     * @param months 
+     */
+    private void navigate( int days, int months )
+    {
+        LocalDate target;
+        try
+        {
+            target = currentYearAndMonth.atDay( focusedDay ).plusMonths( months ).plusDays( days );
+        }
+        catch ( DateTimeException e )
+        {
+            //Out of the supported range, stay where we are
+            return;
+        }
+        YearMonth targetYearAndMonth = YearMonth.from( target );
+        if ( minimumDate != null && targetYearAndMonth.isBefore( YearMonth.from( minimumDate ) )
+                || maximumDate != null && targetYearAndMonth.isAfter( YearMonth.from( maximumDate ) ) )
+        {
+            return;
+        }
+        if ( targetYearAndMonth.equals( currentYearAndMonth ) )
+        {
+            focusedDay = target.getDayOfMonth();
+            updateFocusedCell();
+        }
+        else
+        {
+            YearMonth old = currentYearAndMonth;
+            focusedDay = target.getDayOfMonth();
+            setCurrentYearAndMonth( targetYearAndMonth );
+            fire( "currentYearAndMonth", old, targetYearAndMonth );
+        }
+        previewRange( target );
+    }
+
+    /**
+     * Gives the focused day a lowered border while the sheet has the focus
+     */
+    private void updateFocusedCell()
+    {
+        int focusedIndex = grid.indexOfDay( focusedDay );
+        if ( painter != null )
+        {
+            int newIndex = hasFocus() ? focusedIndex : -1;
+            if ( newIndex != focusIndex )
+            {
+                repaintCell( focusIndex );
+                focusIndex = newIndex;
+                repaintCell( focusIndex );
+            }
+            return;
+        }
+        int first = grid.getFirstDayIndex();
+        for ( int i = first; i < first + grid.getLengthOfMonth(); i++ )
+        {
+            dayCells[i].setBorder( i == focusedIndex && hasFocus() ? MonthSheetPainter.FOCUS_BORDER : MonthSheetPainter.DAY_BORDER );
+        }
+    }
+
+    /**
+     * Updates the day cells to show the current month. Cells before the first
+     * and after the last day of the month stay empty
+     */
+    private void fillDayButtons()
+    {
+        grid = monthGridCache.get( currentYearAndMonth, names.getFirstDayOfWeek() );
+        focusedDay = Math.min( focusedDay, grid.getLengthOfMonth() );
+        todayIndex = grid.indexOf( LocalDate.now() );
+        if ( todayIndex >= 0 && !grid.isInMonth( todayIndex ) )
+        {
+            todayIndex = -1;
+        }
+        rangeCells = computeRangeCells();
+        nonWorkingCells = computeNonWorkingCells();
+        disabledCells = computeDisabledCells();
+        countEvents();
+        if ( painter != null )
+        {
+            //The whole sheet is repainted anyway
+            focusIndex = hasFocus() ? grid.indexOfDay( focusedDay ) : -1;
+            return;
+        }
+        for ( int i = 0; i < CELL_COUNT; i++ )
+        {
+            DayCell cell = dayCells[i];
+            if ( grid.isInMonth( i ) )
+            {
+                cell.setText( DAY_TEXTS[grid.getDayOfMonth( i )] );
+                cell.setBorder( MonthSheetPainter.DAY_BORDER );
+            }
+            else
+            {
+                cell.setText( "" );
+                cell.setBorder( MonthSheetPainter.EMPTY_BORDER );
+            }
+            decorateCell( i );
+        }
+        updateFocusedCell();
+    }
+
+    /**
+     * Sets the colors of a day cell. The today marker has priority over the
+     * foreground of the decoration
+     * @param index 
+     */
+    private void decorateCell( int index )
+    {
+        DayCell cell = dayCells[index];
+        DayDecoration decoration = grid.isInMonth( index ) ? decorations[index] : null;
+        Color background = decoration != null ? decoration.getBackground() : null;
+        if ( background == null && grid.isInMonth( index ) && ( nonWorkingCells & 1L << index ) != 0 )
+        {
+            background = MonthSheetPainter.NON_WORKING_COLOR;
+        }
+        if ( ( rangeCells & 1L << index ) != 0 )
+        {
+            background = MonthSheetPainter.RANGE_COLOR;
+        }
+        Color foreground = decoration != null ? decoration.getForeground() : null;
+        if ( isDisabled( index ) )
+        {
+            foreground = MonthSheetPainter.DISABLED_COLOR;
+        }
+        cell.setForeground( index == todayIndex ? Color.red : foreground );
+        cell.setOpaque( background != null );
+        cell.setBackground( background );
+    }
+
+    /**
+     * Evaluates the limits and the disabled days for all cells of the current
+     * month
+     * @return bit i is set if cell i can not be selected
+     */
+    private long computeDisabledCells()
+    {
+        if ( minimumDate == null && maximumDate == null && disabledDays == null )
+        {
+            return 0;
+        }
+        long cells = 0;
+        int first = grid.getFirstDayIndex();
+        for ( int i = first; i < first + grid.getLengthOfMonth(); i++ )
+        {
+            LocalDate date = grid.getDate( i );
+            if ( !isInLimits( date ) || disabledDays != null && disabledDays.test( date ) )
+            {
+                cells |= 1L << i;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Updates the disabled cells. Only cells whose state has changed are
+     * updated
+     */
+    private void updateDisabledCells()
+    {
+        long cells = computeDisabledCells();
+        long changed = cells ^ disabledCells;
+        disabledCells = cells;
+        while ( changed != 0 )
+        {
+            int index = Long.numberOfTrailingZeros( changed );
+            changed &= changed - 1;
+            if ( painter != null )
+            {
+                repaintCell( index );
+            }
+            else
+            {
+                decorateCell( index );
+            }
+        }
+    }
+
+    /**
+     * Checks if a day is between the minimum and the maximum date
+     * @param date
+     * @return boolean
+     */
+    private boolean isInLimits( LocalDate date )
+    {
+        return ( minimumDate == null || !date.isBefore( minimumDate ) ) && ( maximumDate == null || !date.isAfter( maximumDate ) );
+    }
+
+    /**
+     * Checks if a cell can not be selected
+     * @param index
+     * @return boolean
+     */
+    private boolean isDisabled( int index )
+    {
+        return index >= 0 && ( disabledCells & 1L << index ) != 0;
+    }
+
+    /**
+     * Looks up the weekends and holidays of all cells of the current month
+     * @return bit i is set if cell i is not a working day
+     */
+    private long computeNonWorkingCells()
+    {
+        if ( businessCalendar == null )
+        {
+            return 0;
+        }
+        int first = grid.getFirstValidIndex();
+        return businessCalendar.nonWorkingMask( grid.getDate( first ), grid.getLastValidIndex() - first + 1 ) << first;
+    }
+
+    /**
+     * Counts the events of all cells of the current month
+     */
+    private void countEvents()
+    {
+        if ( eventStore != null )
+        {
+            eventStore.countEvents( grid.getEpochDay( 0 ), eventCounts );
+        }
+        else
+        {
+            Arrays.fill( eventCounts, 0 );
+        }
+        if ( painter == null )
+        {
+            for ( int i = 0; i < CELL_COUNT; i++ )
+            {
+                dayCells[i].setEventCount( grid.isInMonth( i ) ? eventCounts[i] : 0 );
+            }
+        }
+    }
+
+    /**
+     * Is called by the event store if events were added or removed. Only
+     * the cells whose number of events has changed are updated
+     * @param from
+     * @param to
+     */
+    private void eventsChanged( LocalDate from, LocalDate to )
+    {
+        if ( !SwingUtilities.isEventDispatchThread() )
+        {
+            SwingUtilities.invokeLater( () -> eventsChanged( from, to ) );
+            return;
+        }
+        long first = Math.max( from.toEpochDay(), grid.getEpochDay( 0 ) );
+        long last = Math.min( to.toEpochDay(), grid.getEpochDay( CELL_COUNT - 1 ) );
+        if ( eventStore == null || first > last )
+        {
+            return;
+        }
+        eventStore.countEvents( grid.getEpochDay( 0 ), changedCounts );
+        for ( int i = grid.indexOfEpochDay( first ); i <= grid.indexOfEpochDay( last ); i++ )
+        {
+            if ( changedCounts[i] != eventCounts[i] )
+            {
+                eventCounts[i] = changedCounts[i];
+                if ( painter != null )
+                {
+                    repaintCell( i );
+                }
+                else
+                {
+                    dayCells[i].setEventCount( grid.isInMonth( i ) ? eventCounts[i] : 0 );
+                }
+            }
+        }
+    }
+
+    /**
+     * Getter for the font of the event badges, it is derived again if the
+     * font of the sheet has changed
+     * @return Font
+     */
+    private Font badgeFont()
+    {
+        if ( !getFont().equals( badgeBaseFont ) )
+        {
+            badgeBaseFont = getFont();
+            badgeFont = MonthSheetPainter.badgeFont( badgeBaseFont );
+        }
+        return badgeFont;
+    }
+
+    /**
+     * Is called by the DecorationLoader when the decorations of a month are
+     * loaded. All cells are updated at once
+     * @param loadedGrid the grid the decorations were loaded for
+     * @param loaded decorations by day or null to remove them
+     */
+    private void applyDecorations( MonthGrid loadedGrid, Map<LocalDate, DayDecoration> loaded )
+    {
+        if ( loaded != null && dayDecorator != null )
+        {
+            decorationCache.put( loadedGrid, loaded );
+        }
+        if ( !loadedGrid.equals( grid ) )
+        {
+            return;
+        }
+        for ( int i = 0; i < CELL_COUNT; i++ )
+        {
+            decorations[i] = loaded != null && grid.isValid( i ) ? loaded.get( grid.getDate( i ) ) : null;
+        }
+        if ( painter != null )
+        {
+            repaint();
+            return;
+        }
+        for ( int i = 0; i < CELL_COUNT; i++ )
+        {
+            decorateCell( i );
+        }
+    }
+
+    /**
+     * Updates the cached geometry of the painter to the current size and font
+     */
+    private void layoutPainter()
+    {
+        Insets insets = getInsets();
+        painter.layout( getFontMetrics( getFont() ), insets.left, insets.top,
+                getWidth() - insets.left - insets.right, getHeight() - insets.top - insets.bottom );
+    }
+
+    /**
+     * Collects the state of a cell for the painter
+     * @param index
+     * @return flags of MonthSheetPainter
+     */
+    private int cellFlags( int index )
+    {
+        int flags = MonthSheetPainter.IN_MONTH;
+        if ( index == todayIndex )
+        {
+            flags |= MonthSheetPainter.TODAY;
+        }
+        if ( index == focusIndex )
+        {
+            flags |= MonthSheetPainter.FOCUSED;
+        }
+        if ( index == hoverIndex )
+        {
+            flags |= MonthSheetPainter.HOVER;
+        }
+        if ( ( rangeCells & 1L << index ) != 0 )
+        {
+            flags |= MonthSheetPainter.IN_RANGE;
+        }
+        if ( ( nonWorkingCells & 1L << index ) != 0 )
+        {
+            flags |= MonthSheetPainter.NON_WORKING;
+        }
+        if ( isDisabled( index ) )
+        {
+            flags |= MonthSheetPainter.DISABLED;
+        }
+        return flags;
+    }
+
+    /**
+     * Repaints the area of a single cell in RenderMode.PAINTED
+     * @param index the index of the cell, -1 is ignored
+     */
+    private void repaintCell( int index )
+    {
+        if ( index >= 0 )
+        {
+            layoutPainter();
+            Rectangle r = painter.getCellBounds( index );
+            repaint( r.x, r.y, r.width, r.height );
+        }
+    }
+
+    /**
+     * Finds the index of the cell at the given point
+     * @param x
+     * @param y
+     * @return index or -1 if there is no cell
+     */
+    private int cellIndexAt( int x, int y )
+    {
+        if ( painter != null )
+        {
+            layoutPainter();
+            return painter.cellAt( x, y );
+        }
+        Component component = getComponentAt( x, y );
+        return component instanceof DayCell ? ( (DayCell) component ).index : -1;
+    }
+
     /**
      * Getter method for the Headline Strings
      * @param day
@@ -196,24 +1405,269 @@ public class OGDayChooser extends JPanel
      */
     private String getHeadline( DayOfWeek day )
     {
-        switch ( day )
-        {
-            case MONDAY:
-                return MONDAY;
-            case TUESDAY:
-                return TUESDAY;
-            case WEDNESDAY:
-                return WEDNESDAY;
-            case THURSDAY:
-                return THURSDAY;
-            case FRIDAY:
-                return FRIDAY;
-            case SATURDAY:
-                return SATURDAY;
-            case SUNDAY:
-                return SUNDAY;
-            default:
-                return "UNKNOWN";
+        String headline = headlineOverrides[day.getValue() - 1];
+        return headline != null ? headline : names.getWeekdayName( day );
+    }
+
+    /**
+     * Shows the headlines in the order of the current first day of the week
+     */
+    private void updateHeadlines()
+    {
+        if ( painter != null )
+        {
+            repaint();
+            return;
+        }
+        for ( int i = 0; i < 7; i++ )
+        {
+            headlines[i].setText( getHeadline( grid.getWeekday( i ) ) );
+        }
+    }
+
+    /**
+     * Handles the mouse and focus events of the whole sheet. The clicked day
+     * is determined by the index of the cell under the mouse
+     */
+    private class DayDispatcher extends MouseAdapter implements FocusListener
+    {
+
+        @Override
+        public void mousePressed( MouseEvent e )
+        {
+            requestFocusInWindow();
+            int index = dayIndexAt( e );
+            if ( selectionMode == SelectionMode.RANGE && index >= 0 && rangeAnchor == null )
+            {
+                rangeDayChosen( grid.getDate( index ), true );
+            }
+        }
+
+        @Override
+        public void mouseReleased( MouseEvent e )
+        {
+            int index = dayIndexAt( e );
+            if ( selectionMode != SelectionMode.RANGE || index < 0 || rangeAnchor == null )
+            {
+                return;
+            }
+            LocalDate date = grid.getDate( index );
+            //A plain click on the anchor waits for the second click
+            if ( !anchorPressed || !date.equals( rangeAnchor ) )
+            {
+                rangeDayChosen( date, false );
+            }
+            anchorPressed = false;
+        }
+
+        @Override
+        public void mouseClicked( MouseEvent e )
+        {
+            int index = dayIndexAt( e );
+            if ( index >= 0 )
+            {
+                focusedDay = grid.getDayOfMonth( index );
+                updateFocusedCell();
+                if ( selectionMode == SelectionMode.SINGLE )
+                {
+                    selectDay( focusedDay );
+                }
+            }
+        }
+
+        @Override
+        public void mouseMoved( MouseEvent e )
+        {
+            int index = dayIndexAt( e );
+            if ( painter != null )
+            {
+                setHoverIndex( isDisabled( index ) ? -1 : index );
+            }
+            if ( index >= 0 )
+            {
+                previewRange( grid.getDate( index ) );
+            }
+        }
+
+        @Override
+        public void mouseDragged( MouseEvent e )
+        {
+            mouseMoved( e );
+        }
+
+        /**
+         * Finds the day under the mouse
+         * @param e
+         * @return index of the cell or -1 if it is not a day of the month
+         */
+        private int dayIndexAt( MouseEvent e )
+        {
+            int index = cellIndexAt( e.getX(), e.getY() );
+            return index >= 0 && grid.isInMonth( index ) ? index : -1;
+        }
+
+        @Override
+        public void mouseExited( MouseEvent e )
+        {
+            setHoverIndex( -1 );
+        }
+
+        /**
+         * Moves the hover highlight and repaints the two affected cells
+         * @param index 
+         */
+        private void setHoverIndex( int index )
+        {
+            if ( index != hoverIndex )
+            {
+                repaintCell( hoverIndex );
+                hoverIndex = index;
+                repaintCell( hoverIndex );
+            }
+        }
+
+        @Override
+        public void focusGained( FocusEvent e )
+        {
+            updateFocusedCell();
+        }
+
+        @Override
+        public void focusLost( FocusEvent e )
+        {
+            updateFocusedCell();
+        }
+    }
+
+    /**
+     * Moves the focused day by the given amount of days and months
+     */
+    private class NavigateAction extends AbstractAction
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int days;
+        private final int months;
+
+        NavigateAction( int days, int months )
+        {
+            this.days = days;
+            this.months = months;
+        }
+
+        @Override
+        public void actionPerformed( ActionEvent e )
+        {
+            navigate( days, months );
+        }
+    }
+
+    /**
+     * A label for a single day. Its size does not depend on the text, so
+     * changing the month never requires a new layout of the sheet
+     */
+    private static class DayCell extends JLabel
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        //Position of this cell in the grid
+        private final int index;
+        private int eventCount;
+        private Font badgeFont;
+        private Font badgeBaseFont;
+        //Set while setText runs, see revalidate
+        private boolean settingText;
+
+        DayCell( int index )
+        {
+            this.index = index;
+            setHorizontalAlignment( SwingConstants.CENTER );
+            setBorder( MonthSheetPainter.EMPTY_BORDER );
+        }
+
+        @Override
+        public Dimension getPreferredSize()
+        {
+            if ( isPreferredSizeSet() )
+            {
+                return super.getPreferredSize();
+            }
+            FontMetrics fm = getFontMetrics( getFont() );
+            Insets insets = getInsets();
+            return new Dimension( fm.stringWidth( "00" ) + insets.left + insets.right,
+                    fm.getHeight() + insets.top + insets.bottom );
+        }
+
+        @Override
+        public Dimension getMinimumSize()
+        {
+            return isMinimumSizeSet() ? super.getMinimumSize() : getPreferredSize();
+        }
+
+        /**
+         * Sets the number of events shown in the badge of the cell
+         * @param eventCount 
+         */
+        void setEventCount( int eventCount )
+        {
+            if ( this.eventCount != eventCount )
+            {
+                this.eventCount = eventCount;
+                repaint();
+            }
+        }
+
+        @Override
+        protected void paintComponent( Graphics g )
+        {
+            super.paintComponent( g );
+            if ( eventCount > 0 )
+            {
+                if ( !getFont().equals( badgeBaseFont ) )
+                {
+                    badgeBaseFont = getFont();
+                    badgeFont = MonthSheetPainter.badgeFont( badgeBaseFont );
+                }
+                MonthSheetPainter.paintBadge( g, 0, 0, getWidth(), getHeight(), eventCount, badgeFont );
+            }
+        }
+
+        /**
+         * The day texts do not affect the size, so changing the text does
+         * not relayout the sheet
+         * @param text
+         */
+        @Override
+        public void setText( String text )
+        {
+            settingText = true;
+            try
+            {
+                super.setText( text );
+            }
+            finally
+            {
+                settingText = false;
+            }
+        }
+
+        /**
+         * Only the relayout caused by setText is skipped, a changed font,
+         * border or look and feel still changes the size
+         */
+        @Override
+        public void revalidate()
+        {
+            if ( settingText )
+            {
+                repaint();
+            }
+            else
+            {
+                super.revalidate();
+            }
         }
     }
 }
@@ -6,8 +6,12 @@ import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.time.Month;
+import java.time.YearMonth;
+import java.util.Locale;
+import javax.swing.DefaultComboBoxModel;
 import javax.swing.JComboBox;
 import javax.swing.JPanel;
 import javax.swing.JSpinner;
@@ -20,7 +24,11 @@ import javax.swing.event.ChangeListener;
  * A JPanel that represents a month chooser. User can chooser either by
  * selecting in a combobox or spin buttons. Register a propertychange listener
  * with propertyname "monthSelected" to receive the current Month value selected
- * by the user
+ * by the user. If a spin button is held down the month moves by 3 and later
+ * by 6 months per step. Every step fires a single monthSelected event,
+ * listeners can follow the change of the year with getLastStep. The month
+ * names are taken from the locale of the component unless they are set
+ * with setMonths
  *
  * @author Dominik Sust
  * @creation 19.12.2017 14:49:26
@@ -29,16 +37,31 @@ public class OGMonthChooser extends JPanel
 {
 
     private final PropertyChangeSupport pcs = new PropertyChangeSupport( this );
+    private OGCalendarInstrumentation instrumentation;
     private JComboBox<String> combobox;
+    private OGCalendarModel model;
+    private final PropertyChangeListener modelListener = (e) -> modelChanged( (YearMonth) e.getNewValue() );
+    //Set while the chooser follows a change of the model
+    private boolean modelChanging;
 
     private Month currentMonth;
+    //Months moved by the last change of the user, negative values moved back
+    private int lastStep;
 
-    private String[] months = new String[]
-    {
-        "Januar", "Februar", "März", "April", "Mai", "Juni", "Juli", "August", "September", "Oktober", "November", "Dezember"
-    };
+    //Month names set by setMonths, null if the names of the locale are used
+    private String[] monthOverrides;
+    //Set while the combobox is changed by this component
+    private boolean adjusting;
 
     private int oldSpinnerValue;
+    private final SpinAcceleration acceleration = new SpinAcceleration( new long[]
+    {
+        1000, 2500
+    }, new int[]
+    {
+        3, 6
+    } );
+    private boolean accelerationEnabled = true;
 
     /**
      * Constructor which sets current Month to the current
@@ -70,7 +93,23 @@ public class OGMonthChooser extends JPanel
     {
         if ( values.length == 12 )
         {
-            months = values;
+            monthOverrides = values.clone();
+            updateMonthNames();
+        }
+    }
+
+    /**
+     * Sets the locale which defines the month names, unless they are set
+     * with setMonths
+     * @param locale 
+     */
+    @Override
+    public void setLocale( Locale locale )
+    {
+        super.setLocale( locale );
+        if ( monthOverrides == null )
+        {
+            updateMonthNames();
         }
     }
 
@@ -85,7 +124,20 @@ public class OGMonthChooser extends JPanel
     }
 
     /**
-     * Sets the current month to the given value
+     * Getter for the number of months the last change of the user has moved,
+     * e.g. 3 or -6 while a spin button is held down. A monthSelected
+     * listener can compute the change of the year from it, going from
+     * december to january is a step of 1
+     * @return int, negative values moved back
+     */
+    public int getLastStep()
+    {
+        return lastStep;
+    }
+
+    /**
+     * Sets the current month to the given value. Must be called on the EDT,
+     * other threads change the model, see setModel
      *
      * @param currentMonth
      */
@@ -93,6 +145,79 @@ public class OGMonthChooser extends JPanel
     {
         this.currentMonth = currentMonth;
         updateCombobox();
+        if ( model != null && !modelChanging )
+        {
+            model.setCurrentMonth( currentMonth );
+        }
+    }
+
+    /**
+     * Connects the chooser with a model which can be changed from any
+     * thread. The chooser shows the month of the model and the model
+     * follows the month chosen by the user, going from december to january
+     * moves it into the next year. Null disconnects the model. Must be
+     * called on the EDT
+     * @param model
+     */
+    public void setModel( OGCalendarModel model )
+    {
+        if ( this.model != null )
+        {
+            this.model.removePropertyChangeListener( "currentDate", modelListener );
+        }
+        this.model = model;
+        if ( model != null )
+        {
+            model.addPropertyChangeListener( "currentDate", modelListener );
+            modelChanged( model.getCurrentDate() );
+        }
+    }
+
+    /**
+     * Getter for the model connected with the chooser
+     * @return OGCalendarModel or null
+     */
+    public OGCalendarModel getModel()
+    {
+        return model;
+    }
+
+    /**
+     * Enables or disables the growing step size while a spin button is held
+     * down. It is enabled by default
+     * @param accelerationEnabled 
+     */
+    public void setAccelerationEnabled( boolean accelerationEnabled )
+    {
+        this.accelerationEnabled = accelerationEnabled;
+    }
+
+    /**
+     * Checks if the step size grows while a spin button is held down
+     * @return boolean
+     */
+    public boolean isAccelerationEnabled()
+    {
+        return accelerationEnabled;
+    }
+
+    /**
+     * Sets the instrumentation which receives the measurements of this
+     * component. Null disables the measurement
+     * @param instrumentation 
+     */
+    public void setInstrumentation( OGCalendarInstrumentation instrumentation )
+    {
+        this.instrumentation = instrumentation;
+    }
+
+    /**
+     * Getter for the instrumentation of this component
+     * @return OGCalendarInstrumentation or null
+     */
+    public OGCalendarInstrumentation getInstrumentation()
+    {
+        return instrumentation;
     }
 
     /**
@@ -125,7 +250,7 @@ public class OGMonthChooser extends JPanel
     private void buildComponent()
     {
         setLayout( new BorderLayout() );
-        combobox = new JComboBox<>( months );
+        combobox = new JComboBox<>( monthNames() );
         combobox.setBorder( new EmptyBorder( 0, 0, 0, 0 ) );
         JSpinner spinner = new JSpinner()
         {
@@ -147,19 +272,16 @@ public class OGMonthChooser extends JPanel
             {
                 int newSpinnerValue = (int) spinner.getModel().getValue();
 
-                //User pressed up
-                if ( newSpinnerValue > oldSpinnerValue )
+                if ( newSpinnerValue != oldSpinnerValue )
                 {
+                    //User pressed up or down
+                    int direction = newSpinnerValue > oldSpinnerValue ? 1 : -1;
+                    int step = accelerationEnabled ? acceleration.nextStep() : 1;
                     Month temp = currentMonth;
-                    currentMonth = currentMonth.plus( 1 );
-                    pcs.firePropertyChange( "monthSelected", temp, currentMonth );
-                }
-                //User pressed down
-                else if ( newSpinnerValue < oldSpinnerValue )
-                {
-                    Month temp = currentMonth;
-                    currentMonth = currentMonth.minus( 1 );
-                    pcs.firePropertyChange( "monthSelected", temp, currentMonth );
+                    lastStep = direction * step;
+                    currentMonth = currentMonth.plus( lastStep );
+                    fire( "monthSelected", temp, currentMonth );
+                    updateModel( temp );
                 }
                 oldSpinnerValue = newSpinnerValue;
                 updateCombobox();
@@ -170,11 +292,18 @@ public class OGMonthChooser extends JPanel
             @Override
             public void itemStateChanged( ItemEvent event )
             {
-                if ( event.getStateChange() == ItemEvent.SELECTED )
+                //The combobox also reports the months set by this component
+                if ( event.getStateChange() == ItemEvent.SELECTED && !adjusting
+                        && combobox.getSelectedIndex() != currentMonth.getValue() - 1 )
                 {
                     Month temp = currentMonth;
                     currentMonth = Month.of( combobox.getSelectedIndex() + 1 );
-                    pcs.firePropertyChange( "monthSelected", temp, currentMonth );
+                    //Going from december to january moves into the next year and vice versa
+                    lastStep = temp == Month.DECEMBER && currentMonth == Month.JANUARY ? 1
+                            : temp == Month.JANUARY && currentMonth == Month.DECEMBER ? -1
+                            : currentMonth.getValue() - temp.getValue();
+                    fire( "monthSelected", temp, currentMonth );
+                    updateModel( temp );
                 }
             }
         } );
@@ -183,6 +312,109 @@ public class OGMonthChooser extends JPanel
         add( spinner, BorderLayout.CENTER );
     }
 
+    /**
+     * Fires a property change event and reports the time the listeners
+     * needed to the instrumentation
+     * @param propertyName
+     * @param oldValue
+     * @param newValue 
+     */
+    private void fire( String propertyName, Object oldValue, Object newValue )
+    {
+        if ( oldValue != null && oldValue.equals( newValue ) )
+        {
+            return;
+        }
+        if ( instrumentation == null )
+        {
+            pcs.firePropertyChange( propertyName, oldValue, newValue );
+            return;
+        }
+        long start = System.nanoTime();
+        pcs.firePropertyChange( propertyName, oldValue, newValue );
+        instrumentation.eventDispatched( this, propertyName, System.nanoTime() - start );
+    }
+
+    /**
+     * Passes a month chosen by the user to the model
+     * @param oldMonth the month before
+     */
+    private void updateModel( Month oldMonth )
+    {
+        if ( model == null || oldMonth == currentMonth )
+        {
+            return;
+        }
+        int step = lastStep;
+        model.updateCurrentDate( (value) -> move( value.withMonth( oldMonth.getValue() ), step ) );
+    }
+
+    /**
+     * Moves a month by the given number of months
+     * @param yearMonth
+     * @param months
+     * @return the moved month or the given one if the result would be out
+     * of the supported range
+     */
+    static YearMonth move( YearMonth yearMonth, int months )
+    {
+        try
+        {
+            return yearMonth.plusMonths( months );
+        }
+        catch ( DateTimeException e )
+        {
+            return yearMonth;
+        }
+    }
+
+    /**
+     * Is called on the EDT when the model has changed
+     * @param yearMonth the latest value of the model
+     */
+    private void modelChanged( YearMonth yearMonth )
+    {
+        if ( yearMonth.getMonth() == currentMonth )
+        {
+            return;
+        }
+        modelChanging = true;
+        try
+        {
+            setCurrentMonth( yearMonth.getMonth() );
+        }
+        finally
+        {
+            modelChanging = false;
+        }
+    }
+
+    /**
+     * Getter for the names shown in the combobox
+     * @return String[]
+     */
+    private String[] monthNames()
+    {
+        return monthOverrides != null ? monthOverrides : CalendarNames.of( getLocale() ).getMonthNames();
+    }
+
+    /**
+     * Replaces the names in the combobox, the selected month stays the same
+     */
+    private void updateMonthNames()
+    {
+        adjusting = true;
+        try
+        {
+            combobox.setModel( new DefaultComboBoxModel<>( monthNames() ) );
+            updateCombobox();
+        }
+        finally
+        {
+            adjusting = false;
+        }
+    }
+
     /**
      * Updates the combobox to the new month value
      */
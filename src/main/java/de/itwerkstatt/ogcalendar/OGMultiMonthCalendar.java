@@ -0,0 +1,555 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.KeyStroke;
+
+/**
+ * A JPanel that shows several months side by side, e.g. 3, 6 or 12 months
+ * for an overview. All months are painted by this panel with the same look
+ * as an OGDayChooser in RenderMode.PAINTED. They share one layout, one font
+ * and one mouse listener.
+ * The mouse wheel and the keys page up and page down scroll by one month.
+ * Register a propertychange listener with propertyname "dateSelected" to
+ * receive the LocalDate selected by the user and "firstMonth" to receive
+ * the first YearMonth shown after scrolling.
+ * Headlines, month names and the first day of the week follow the locale of
+ * the component
+ */
+public class OGMultiMonthCalendar extends JPanel
+{
+
+    //Space between the months
+    private static final int GAP = 8;
+    //The months a LocalDate can have
+    private static final YearMonth FIRST_MONTH = YearMonth.from( LocalDate.MIN );
+    private static final YearMonth LAST_MONTH = YearMonth.from( LocalDate.MAX );
+    private static final String[] DAY_TEXTS = new String[32];
+
+    static
+    {
+        for ( int i = 1; i < DAY_TEXTS.length; i++ )
+        {
+            DAY_TEXTS[i] = String.valueOf( i );
+        }
+    }
+
+    private final PropertyChangeSupport pcs = new PropertyChangeSupport( this );
+    //One painter for all months, they all have the same size
+    private final MonthSheetPainter painter = new MonthSheetPainter();
+    private final MonthGrid[] grids;
+    private final String[] titles;
+    private final int columns;
+    private MonthGridCache monthGridCache;
+
+    private CalendarNames names;
+    //Headlines set by setHeadline, indexed by DayOfWeek.getValue() - 1
+    private final String[] headlineOverrides = new String[7];
+    //Month names set by setMonthNames, null if the names of the locale are used
+    private String[] monthOverrides;
+    //Headlines in the order of the columns
+    private final String[] headlines = new String[7];
+
+    //Geometry of a single month, computed in updateGeometry
+    private int monthWidth;
+    private int monthHeight;
+    private int titleHeight;
+    private int hoverMonth = -1;
+    private int hoverIndex = -1;
+
+    /**
+     * Constructor which shows the twelve months of the current year in
+     * four columns
+     */
+    public OGMultiMonthCalendar()
+    {
+        this( YearMonth.now().withMonth( 1 ), 12, 4 );
+    }
+
+    /**
+     * Constructor which shows the given number of months
+     * @param firstMonth the month shown first
+     * @param months number of months, at least 1
+     * @param columns number of months side by side, at least 1
+     */
+    public OGMultiMonthCalendar( YearMonth firstMonth, int months, int columns )
+    {
+        if ( months < 1 || columns < 1 )
+        {
+            throw new IllegalArgumentException( "months and columns must be at least 1" );
+        }
+        this.columns = columns;
+        names = CalendarNames.of( getLocale() );
+        updateHeadlines();
+        grids = new MonthGrid[months];
+        titles = new String[months];
+        //An own cache, so an overview does not push the months of other components out of the shared one
+        monthGridCache = new MonthGridCache( 2 * months );
+        YearMonth first = clamp( firstMonth );
+        for ( int i = 0; i < months; i++ )
+        {
+            setMonth( i, first.plusMonths( i ) );
+        }
+        registerDispatcher();
+    }
+
+    /**
+     * Shows the months starting with the given one. Months which are already
+     * shown are reused, only the new ones are taken from the cache. Near the
+     * ends of the supported range the first month is moved, so all months
+     * exist
+     * @param firstMonth
+     */
+    public void setFirstMonth( YearMonth firstMonth )
+    {
+        firstMonth = clamp( firstMonth );
+        YearMonth old = getFirstMonth();
+        if ( old.equals( firstMonth ) )
+        {
+            return;
+        }
+        long shift = old.until( firstMonth, ChronoUnit.MONTHS );
+        int count = grids.length;
+        if ( Math.abs( shift ) < count )
+        {
+            int offset = (int) shift;
+            if ( offset > 0 )
+            {
+                System.arraycopy( grids, offset, grids, 0, count - offset );
+                System.arraycopy( titles, offset, titles, 0, count - offset );
+                for ( int i = count - offset; i < count; i++ )
+                {
+                    setMonth( i, firstMonth.plusMonths( i ) );
+                }
+            }
+            else
+            {
+                System.arraycopy( grids, 0, grids, -offset, count + offset );
+                System.arraycopy( titles, 0, titles, -offset, count + offset );
+                for ( int i = 0; i < -offset; i++ )
+                {
+                    setMonth( i, firstMonth.plusMonths( i ) );
+                }
+            }
+        }
+        else
+        {
+            for ( int i = 0; i < count; i++ )
+            {
+                setMonth( i, firstMonth.plusMonths( i ) );
+            }
+        }
+        repaint();
+        pcs.firePropertyChange( "firstMonth", old, firstMonth );
+    }
+
+    /**
+     * Getter for the first month shown
+     * @return YearMonth
+     */
+    public YearMonth getFirstMonth()
+    {
+        return grids[0].getYearMonth();
+    }
+
+    /**
+     * Getter for the number of months shown
+     * @return int
+     */
+    public int getMonthCount()
+    {
+        return grids.length;
+    }
+
+    /**
+     * Moves all months by the given amount
+     * @param months negative values scroll back
+     */
+    public void scroll( int months )
+    {
+        YearMonth first;
+        try
+        {
+            first = getFirstMonth().plusMonths( months );
+        }
+        catch ( DateTimeException e )
+        {
+            //Out of the supported range, stop at its end
+            first = months < 0 ? FIRST_MONTH : LAST_MONTH;
+        }
+        setFirstMonth( first );
+    }
+
+    /**
+     * Moves a first month into the supported range, so the last month shown
+     * is not after the last month of LocalDate
+     * @param firstMonth
+     * @return YearMonth
+     */
+    private YearMonth clamp( YearMonth firstMonth )
+    {
+        //Every YearMonth is after the first month of LocalDate
+        YearMonth last = LAST_MONTH.minusMonths( grids.length - 1 );
+        return firstMonth.isAfter( last ) ? last : firstMonth;
+    }
+
+    /**
+     * Sets the caption Strings for weekdays
+     * @param day
+     * @param value
+     */
+    public void setHeadline( DayOfWeek day, String value )
+    {
+        headlineOverrides[day.getValue() - 1] = value;
+        updateHeadlines();
+        repaint();
+    }
+
+    /**
+     * Setter for the month names in the titles. If the parameter is not an
+     * array with 12 values nothing will change
+     * @param values
+     */
+    public void setMonthNames( String[] values )
+    {
+        if ( values.length == 12 )
+        {
+            monthOverrides = values.clone();
+            updateMonths();
+        }
+    }
+
+    /**
+     * Sets the locale which defines the headlines, the month names and the
+     * first day of the week. Names set by setHeadline or setMonthNames are
+     * kept
+     * @param locale
+     */
+    @Override
+    public void setLocale( Locale locale )
+    {
+        super.setLocale( locale );
+        CalendarNames localeNames = CalendarNames.of( getLocale() );
+        if ( localeNames != names )
+        {
+            names = localeNames;
+            updateHeadlines();
+            updateMonths();
+        }
+    }
+
+    /**
+     * Sets the cache the layout of the months is taken from. By default every
+     * instance has its own cache for twice the number of months shown
+     * @param monthGridCache
+     */
+    public void setMonthGridCache( MonthGridCache monthGridCache )
+    {
+        this.monthGridCache = monthGridCache;
+    }
+
+    /**
+     * Register the following PropertyChangeListeners to receive the values:
+     * dateSelected = get the selected LocalDate
+     * firstMonth = get the first YearMonth shown
+     * @param propertyName
+     * @param listener
+     */
+    @Override
+    public void addPropertyChangeListener( String propertyName, PropertyChangeListener listener )
+    {
+        pcs.addPropertyChangeListener( propertyName, listener );
+    }
+
+    /**
+     * Register the following PropertyChangeListeners to receive the values:
+     * dateSelected = get the selected LocalDate
+     * firstMonth = get the first YearMonth shown
+     * @param listener
+     */
+    @Override
+    public void addPropertyChangeListener( PropertyChangeListener listener )
+    {
+        pcs.addPropertyChangeListener( listener );
+    }
+
+    @Override
+    public Dimension getPreferredSize()
+    {
+        if ( isPreferredSizeSet() )
+        {
+            return super.getPreferredSize();
+        }
+        FontMetrics fm = getFontMetrics( getFont() );
+        Dimension sheet = MonthSheetPainter.preferredSize( fm );
+        int rows = ( grids.length + columns - 1 ) / columns;
+        int visibleColumns = Math.min( columns, grids.length );
+        Insets insets = getInsets();
+        return new Dimension( visibleColumns * sheet.width + ( visibleColumns - 1 ) * GAP + insets.left + insets.right,
+                rows * ( sheet.height + fm.getHeight() ) + ( rows - 1 ) * GAP + insets.top + insets.bottom );
+    }
+
+    /**
+     * Paints all months which intersect the clip
+     * @param g
+     */
+    @Override
+    protected void paintComponent( Graphics g )
+    {
+        super.paintComponent( g );
+        updateGeometry();
+        MonthSheetPainter.applyTextHints( g );
+        FontMetrics fm = getFontMetrics( getFont() );
+        Color foreground = getForeground();
+        Rectangle clip = g.getClipBounds();
+        LocalDate today = LocalDate.now();
+        for ( int month = 0; month < grids.length; month++ )
+        {
+            int left = monthX( month );
+            int top = monthY( month );
+            if ( clip != null && !clip.intersects( left, top, monthWidth, monthHeight ) )
+            {
+                continue;
+            }
+            MonthGrid grid = grids[month];
+            g.setColor( foreground );
+            g.setFont( getFont() );
+            g.drawString( titles[month], left + ( monthWidth - fm.stringWidth( titles[month] ) ) / 2, top + fm.getAscent() );
+            g.translate( left, top + titleHeight );
+            painter.paintHeadlines( g, headlines, foreground );
+            int todayIndex = grid.indexOf( today );
+            int first = grid.getFirstDayIndex();
+            for ( int i = first; i < first + grid.getLengthOfMonth(); i++ )
+            {
+                int flags = MonthSheetPainter.IN_MONTH;
+                if ( i == todayIndex )
+                {
+                    flags |= MonthSheetPainter.TODAY;
+                }
+                if ( month == hoverMonth && i == hoverIndex )
+                {
+                    flags |= MonthSheetPainter.HOVER;
+                }
+                painter.paintCell( g, this, i, DAY_TEXTS[grid.getDayOfMonth( i )], flags, foreground, null );
+            }
+            g.translate( -left, -( top + titleHeight ) );
+        }
+    }
+
+    /**
+     * Sets a month and its title
+     * @param slot
+     * @param yearMonth
+     */
+    private void setMonth( int slot, YearMonth yearMonth )
+    {
+        grids[slot] = monthGridCache.get( yearMonth, names.getFirstDayOfWeek() );
+        String name = monthOverrides != null ? monthOverrides[yearMonth.getMonthValue() - 1] : names.getMonthName( yearMonth.getMonth() );
+        titles[slot] = name + " " + yearMonth.getYear();
+    }
+
+    /**
+     * Sets all months again, e.g. after the names have changed
+     */
+    private void updateMonths()
+    {
+        for ( int i = 0; i < grids.length; i++ )
+        {
+            setMonth( i, grids[i].getYearMonth() );
+        }
+        repaint();
+    }
+
+    /**
+     * Computes the headlines in the order of the first day of the week
+     */
+    private void updateHeadlines()
+    {
+        for ( int column = 0; column < 7; column++ )
+        {
+            DayOfWeek day = names.getFirstDayOfWeek().plus( column );
+            String headline = headlineOverrides[day.getValue() - 1];
+            headlines[column] = headline != null ? headline : names.getWeekdayName( day );
+        }
+    }
+
+    /**
+     * Computes the size of a single month from the size of the panel and
+     * lays out the shared painter
+     */
+    private void updateGeometry()
+    {
+        Insets insets = getInsets();
+        FontMetrics fm = getFontMetrics( getFont() );
+        int rows = ( grids.length + columns - 1 ) / columns;
+        int visibleColumns = Math.min( columns, grids.length );
+        monthWidth = ( getWidth() - insets.left - insets.right - ( visibleColumns - 1 ) * GAP ) / visibleColumns;
+        monthHeight = ( getHeight() - insets.top - insets.bottom - ( rows - 1 ) * GAP ) / rows;
+        titleHeight = fm.getHeight();
+        painter.layout( fm, 0, 0, monthWidth, monthHeight - titleHeight );
+    }
+
+    private int monthX( int month )
+    {
+        return getInsets().left + ( month % columns ) * ( monthWidth + GAP );
+    }
+
+    private int monthY( int month )
+    {
+        return getInsets().top + ( month / columns ) * ( monthHeight + GAP );
+    }
+
+    /**
+     * Finds the month at the given point
+     * @param x
+     * @param y
+     * @return index of the month or -1
+     */
+    private int monthAt( int x, int y )
+    {
+        updateGeometry();
+        for ( int month = 0; month < grids.length; month++ )
+        {
+            int left = monthX( month );
+            int top = monthY( month );
+            if ( x >= left && x < left + monthWidth && y >= top && y < top + monthHeight )
+            {
+                return month;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the cell of a month at the given point
+     * @param month
+     * @param x
+     * @param y
+     * @return index of the cell or -1
+     */
+    private int cellAt( int month, int x, int y )
+    {
+        int index = painter.cellAt( x - monthX( month ), y - monthY( month ) - titleHeight );
+        return index >= 0 && grids[month].isInMonth( index ) ? index : -1;
+    }
+
+    /**
+     * Repaints a single cell of a month
+     * @param month
+     * @param index
+     */
+    private void repaintCell( int month, int index )
+    {
+        if ( month >= 0 && index >= 0 )
+        {
+            updateGeometry();
+            Rectangle r = painter.getCellBounds( index );
+            repaint( monthX( month ) + r.x, monthY( month ) + titleHeight + r.y, r.width, r.height );
+        }
+    }
+
+    /**
+     * Registers one listener for all months and the key bindings
+     */
+    private void registerDispatcher()
+    {
+        setFocusable( true );
+        MouseAdapter dispatcher = new MouseAdapter()
+        {
+            @Override
+            public void mousePressed( MouseEvent e )
+            {
+                requestFocusInWindow();
+            }
+
+            @Override
+            public void mouseClicked( MouseEvent e )
+            {
+                int month = monthAt( e.getX(), e.getY() );
+                int index = month >= 0 ? cellAt( month, e.getX(), e.getY() ) : -1;
+                if ( index >= 0 )
+                {
+                    pcs.firePropertyChange( "dateSelected", null, grids[month].getDate( index ) );
+                }
+            }
+
+            @Override
+            public void mouseMoved( MouseEvent e )
+            {
+                int month = monthAt( e.getX(), e.getY() );
+                int index = month >= 0 ? cellAt( month, e.getX(), e.getY() ) : -1;
+                setHover( index >= 0 ? month : -1, index );
+            }
+
+            @Override
+            public void mouseExited( MouseEvent e )
+            {
+                setHover( -1, -1 );
+            }
+
+            @Override
+            public void mouseWheelMoved( MouseWheelEvent e )
+            {
+                setHover( -1, -1 );
+                scroll( e.getWheelRotation() );
+            }
+
+            private void setHover( int month, int index )
+            {
+                if ( month != hoverMonth || index != hoverIndex )
+                {
+                    repaintCell( hoverMonth, hoverIndex );
+                    hoverMonth = month;
+                    hoverIndex = index;
+                    repaintCell( hoverMonth, hoverIndex );
+                }
+            }
+        };
+        addMouseListener( dispatcher );
+        addMouseMotionListener( dispatcher );
+        addMouseWheelListener( dispatcher );
+        registerScrollKey( KeyEvent.VK_PAGE_UP, "previousMonth", -1 );
+        registerScrollKey( KeyEvent.VK_PAGE_DOWN, "nextMonth", 1 );
+    }
+
+    /**
+     * Binds a key to scrolling by the given amount of months
+     * @param keyCode
+     * @param name
+     * @param months
+     */
+    private void registerScrollKey( int keyCode, String name, int months )
+    {
+        getInputMap( JComponent.WHEN_FOCUSED ).put( KeyStroke.getKeyStroke( keyCode, 0 ), name );
+        getActionMap().put( name, new AbstractAction()
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed( ActionEvent e )
+            {
+                scroll( months );
+            }
+        } );
+    }
+}
@@ -0,0 +1,765 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.event.ActionEvent;
+import java.awt.event.AdjustmentEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Locale;
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.JScrollBar;
+import javax.swing.KeyStroke;
+
+/**
+ * A JPanel that shows the days as one endless list of weeks which is
+ * scrolled vertically, from the first to the last day LocalDate supports.
+ * Only the visible weeks are painted. Their texts are kept in a small pool
+ * of rows which is recycled while scrolling, so the memory and the work per
+ * frame stay the same no matter how far the user scrolls.
+ * The scrollbar covers a window of some hundred years around the visible
+ * weeks. The window is moved whenever the visible weeks come near its end,
+ * so jumping across centuries with scrollToDate costs nothing.
+ * Register a propertychange listener with propertyname "dateSelected" to
+ * receive the LocalDate selected by the user and "firstVisibleDate" to
+ * receive the first day shown after scrolling.
+ * Headlines, month names and the first day of the week follow the locale of
+ * the component
+ */
+public class OGScrollingCalendar extends JPanel
+{
+
+    //Number of weeks covered by the scrollbar, about 380 years
+    private static final int SCROLL_WEEKS = 20000;
+    private static final String[] DAY_TEXTS = new String[32];
+    //Background of every second month, so the months can be told apart
+    private static final DayDecoration ODD_MONTH = new DayDecoration( new Color( 0, 0, 0, 28 ) );
+
+    static
+    {
+        for ( int i = 1; i < DAY_TEXTS.length; i++ )
+        {
+            DAY_TEXTS[i] = String.valueOf( i );
+        }
+    }
+
+    private final PropertyChangeSupport pcs = new PropertyChangeSupport( this );
+    private final MonthSheetPainter painter = new MonthSheetPainter();
+    private final WeekSheet sheet = new WeekSheet();
+    private final JScrollBar scrollBar = new JScrollBar( JScrollBar.VERTICAL );
+    private CalendarNames names;
+    //Headlines set by setHeadline, indexed by DayOfWeek.getValue() - 1
+    private final String[] headlineOverrides = new String[7];
+    //Month names set by setMonthNames, null if the names of the locale are used
+    private String[] monthOverrides;
+    private String[] monthNames;
+    private DayOfWeek firstDayOfWeek;
+    //Epoch day of the first day of week 0
+    private long firstEpochDay;
+    private long minWeek;
+    private long maxWeek;
+
+    //Recycled rows, week w is kept in row w modulo the length of the pool
+    private WeekRow[] rows = new WeekRow[0];
+    //First visible week
+    private long topWeek;
+    //Week at the top end of the scrollbar
+    private long anchorWeek;
+    //Set while the scrollbar is changed by this component
+    private boolean adjustingScrollBar;
+    private long hoverEpochDay = Long.MIN_VALUE;
+
+    /**
+     * Constructor which shows the current week first
+     */
+    public OGScrollingCalendar()
+    {
+        this( LocalDate.now() );
+    }
+
+    /**
+     * Constructor which shows the week of the given day first
+     * @param date
+     */
+    public OGScrollingCalendar( LocalDate date )
+    {
+        names = CalendarNames.of( getLocale() );
+        monthNames = names.getMonthNames();
+        applyFirstDayOfWeek();
+        topWeek = weekOf( date.toEpochDay() );
+        centerScrollBar();
+        setLayout( new BorderLayout() );
+        add( sheet, BorderLayout.CENTER );
+        add( scrollBar, BorderLayout.EAST );
+        scrollBar.addAdjustmentListener( (e) -> scrollBarMoved( e ) );
+        registerDispatcher();
+        updateScrollBar();
+    }
+
+    /**
+     * Scrolls so the week of the given day is shown first
+     * @param date
+     */
+    public void scrollToDate( LocalDate date )
+    {
+        setTopWeek( weekOf( date.toEpochDay() ) );
+    }
+
+    /**
+     * Scrolls by the given number of weeks
+     * @param weeks negative values scroll back
+     */
+    public void scrollWeeks( long weeks )
+    {
+        setTopWeek( topWeek + weeks );
+    }
+
+    /**
+     * Getter for the first day shown
+     * @return LocalDate
+     */
+    public LocalDate getFirstVisibleDate()
+    {
+        return LocalDate.ofEpochDay( Math.max( weekStart( topWeek ), LocalDate.MIN.toEpochDay() ) );
+    }
+
+    /**
+     * Sets the caption Strings for weekdays
+     * @param day
+     * @param value
+     */
+    public void setHeadline( DayOfWeek day, String value )
+    {
+        headlineOverrides[day.getValue() - 1] = value;
+        sheet.repaint();
+    }
+
+    /**
+     * Setter for the month names next to the weeks. If the parameter is not
+     * an array with 12 values nothing will change
+     * @param values
+     */
+    public void setMonthNames( String[] values )
+    {
+        if ( values.length == 12 )
+        {
+            monthOverrides = values.clone();
+            monthNames = monthOverrides;
+            sheet.clearTitleWidth();
+            clearRows();
+            sheet.repaint();
+        }
+    }
+
+    /**
+     * Sets the locale which defines the headlines, the month names and the
+     * first day of the week. Names set by setHeadline or setMonthNames are
+     * kept. The first visible day stays visible
+     * @param locale
+     */
+    @Override
+    public void setLocale( Locale locale )
+    {
+        super.setLocale( locale );
+        CalendarNames localeNames = CalendarNames.of( getLocale() );
+        if ( localeNames == names )
+        {
+            return;
+        }
+        names = localeNames;
+        if ( monthOverrides == null )
+        {
+            monthNames = names.getMonthNames();
+            sheet.clearTitleWidth();
+        }
+        long firstVisible = weekStart( topWeek );
+        applyFirstDayOfWeek();
+        topWeek = weekOf( firstVisible );
+        centerScrollBar();
+        updateScrollBar();
+        clearRows();
+        sheet.repaint();
+    }
+
+    /**
+     * Register the following PropertyChangeListeners to receive the values:
+     * dateSelected = get the selected LocalDate
+     * firstVisibleDate = get the first LocalDate shown
+     * @param propertyName
+     * @param listener
+     */
+    @Override
+    public void addPropertyChangeListener( String propertyName, PropertyChangeListener listener )
+    {
+        pcs.addPropertyChangeListener( propertyName, listener );
+    }
+
+    /**
+     * Register the following PropertyChangeListeners to receive the values:
+     * dateSelected = get the selected LocalDate
+     * firstVisibleDate = get the first LocalDate shown
+     * @param listener
+     */
+    @Override
+    public void addPropertyChangeListener( PropertyChangeListener listener )
+    {
+        pcs.addPropertyChangeListener( listener );
+    }
+
+    /**
+     * Sets the first visible week and moves the scrollbar
+     * @param week
+     */
+    private void setTopWeek( long week )
+    {
+        week = Math.max( minWeek, Math.min( week, maxWeek - sheet.visibleWeeks() + 1 ) );
+        if ( week == topWeek )
+        {
+            return;
+        }
+        LocalDate old = getFirstVisibleDate();
+        topWeek = week;
+        if ( !scrollBar.getValueIsAdjusting() )
+        {
+            moveScrollBarWindow();
+        }
+        updateScrollBar();
+        sheet.repaint();
+        pcs.firePropertyChange( "firstVisibleDate", old, getFirstVisibleDate() );
+    }
+
+    /**
+     * Moves the window of the scrollbar if the visible weeks come near one
+     * of its ends
+     */
+    private void moveScrollBarWindow()
+    {
+        if ( topWeek < anchorWeek + SCROLL_WEEKS / 4 || topWeek > anchorWeek + SCROLL_WEEKS * 3 / 4 )
+        {
+            centerScrollBar();
+        }
+    }
+
+    /**
+     * Moves the window of the scrollbar so the visible weeks are in its
+     * middle
+     */
+    private void centerScrollBar()
+    {
+        anchorWeek = Math.max( minWeek, Math.min( topWeek - SCROLL_WEEKS / 2, maxWeek - SCROLL_WEEKS + 1 ) );
+    }
+
+    /**
+     * Sets the scrollbar to the visible weeks
+     */
+    private void updateScrollBar()
+    {
+        int visible = sheet.visibleWeeks();
+        adjustingScrollBar = true;
+        try
+        {
+            scrollBar.setValues( (int) ( topWeek - anchorWeek ), visible, 0, SCROLL_WEEKS );
+            scrollBar.setBlockIncrement( Math.max( 1, visible - 1 ) );
+        }
+        finally
+        {
+            adjustingScrollBar = false;
+        }
+    }
+
+    /**
+     * Is called if the user moved the scrollbar
+     * @param e
+     */
+    private void scrollBarMoved( AdjustmentEvent e )
+    {
+        if ( !adjustingScrollBar )
+        {
+            setTopWeek( anchorWeek + e.getValue() );
+            //At the end of a drag the window is moved if necessary
+            if ( !e.getValueIsAdjusting() )
+            {
+                moveScrollBarWindow();
+                updateScrollBar();
+            }
+        }
+    }
+
+    /**
+     * Computes the numbering of the weeks for the first day of the week of
+     * the locale
+     */
+    private void applyFirstDayOfWeek()
+    {
+        firstDayOfWeek = names.getFirstDayOfWeek();
+        firstEpochDay = -Math.floorMod( DayOfWeek.THURSDAY.getValue() - firstDayOfWeek.getValue(), 7 );
+        minWeek = weekOf( LocalDate.MIN.toEpochDay() );
+        maxWeek = weekOf( LocalDate.MAX.toEpochDay() );
+    }
+
+    /**
+     * Marks all rows of the pool as empty, they are filled again when they
+     * are painted next time
+     */
+    private void clearRows()
+    {
+        for ( WeekRow row : rows )
+        {
+            row.week = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Number of the week containing the given day
+     * @param epochDay
+     * @return long
+     */
+    private long weekOf( long epochDay )
+    {
+        return Math.floorDiv( epochDay - firstEpochDay, 7 );
+    }
+
+    /**
+     * Epoch day of the first day of a week
+     * @param week
+     * @return long
+     */
+    private long weekStart( long week )
+    {
+        return firstEpochDay + week * 7;
+    }
+
+    /**
+     * Makes sure the pool has one row more than fits on the sheet. The pool
+     * only grows
+     * @param visible
+     */
+    private void ensureRows( int visible )
+    {
+        if ( visible + 1 > rows.length )
+        {
+            rows = new WeekRow[visible + 1];
+            for ( int i = 0; i < rows.length; i++ )
+            {
+                rows[i] = new WeekRow();
+            }
+        }
+    }
+
+    /**
+     * Returns the row showing the given week. The row is taken from the pool
+     * and filled if it showed another week before
+     * @param week
+     * @return WeekRow
+     */
+    private WeekRow row( long week )
+    {
+        WeekRow row = rows[(int) Math.floorMod( week, (long) rows.length )];
+        if ( row.week != week )
+        {
+            row.bind( week );
+        }
+        return row;
+    }
+
+    /**
+     * Registers the key bindings
+     */
+    private void registerDispatcher()
+    {
+        setFocusable( true );
+        registerScrollKey( KeyEvent.VK_UP, "previousWeek", -1 );
+        registerScrollKey( KeyEvent.VK_DOWN, "nextWeek", 1 );
+        registerScrollKey( KeyEvent.VK_PAGE_UP, "previousPage", 0 );
+        registerScrollKey( KeyEvent.VK_PAGE_DOWN, "nextPage", 0 );
+    }
+
+    /**
+     * Binds a key to scrolling by the given amount of weeks
+     * @param keyCode
+     * @param name
+     * @param weeks 0 scrolls by the visible weeks in the direction of the key
+     */
+    private void registerScrollKey( int keyCode, String name, int weeks )
+    {
+        getInputMap( JComponent.WHEN_FOCUSED ).put( KeyStroke.getKeyStroke( keyCode, 0 ), name );
+        getActionMap().put( name, new AbstractAction()
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed( ActionEvent e )
+            {
+                if ( weeks != 0 )
+                {
+                    scrollWeeks( weeks );
+                }
+                else
+                {
+                    int page = Math.max( 1, sheet.visibleWeeks() - 1 );
+                    scrollWeeks( keyCode == KeyEvent.VK_PAGE_UP ? -page : page );
+                }
+            }
+        } );
+    }
+
+    /**
+     * The texts of one visible week. Rows are reused for other weeks while
+     * scrolling
+     */
+    private class WeekRow
+    {
+
+        private long week = Long.MIN_VALUE;
+        private final String[] texts = new String[7];
+        //Flags of the days, IN_MONTH is set for days LocalDate supports
+        private final int[] flags = new int[7];
+        private final boolean[] oddMonth = new boolean[7];
+        //Month and year if a month starts in this week, else null
+        private String title;
+
+        /**
+         * Fills the row with the days of the given week
+         * @param week
+         */
+        void bind( long week )
+        {
+            this.week = week;
+            title = null;
+            long start = weekStart( week );
+            for ( int column = 0; column < 7; column++ )
+            {
+                long epochDay = start + column;
+                if ( epochDay < LocalDate.MIN.toEpochDay() || epochDay > LocalDate.MAX.toEpochDay() )
+                {
+                    flags[column] = 0;
+                    continue;
+                }
+                LocalDate date = LocalDate.ofEpochDay( epochDay );
+                texts[column] = DAY_TEXTS[date.getDayOfMonth()];
+                flags[column] = MonthSheetPainter.IN_MONTH;
+                oddMonth[column] = date.getMonthValue() % 2 == 1;
+                if ( date.getDayOfMonth() == 1 )
+                {
+                    title = monthNames[date.getMonthValue() - 1] + " " + date.getYear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Paints the visible weeks and handles the mouse
+     */
+    private class WeekSheet extends JComponent
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Rectangle cell = new Rectangle();
+        //Width of the column with the month titles and the font it was measured with
+        private Font titleWidthFont;
+        private int titleWidth;
+
+        WeekSheet()
+        {
+            MouseAdapter dispatcher = new MouseAdapter()
+            {
+                @Override
+                public void mousePressed( MouseEvent e )
+                {
+                    OGScrollingCalendar.this.requestFocusInWindow();
+                }
+
+                @Override
+                public void mouseClicked( MouseEvent e )
+                {
+                    long epochDay = epochDayAt( e.getX(), e.getY() );
+                    if ( epochDay != Long.MIN_VALUE )
+                    {
+                        pcs.firePropertyChange( "dateSelected", null, LocalDate.ofEpochDay( epochDay ) );
+                    }
+                }
+
+                @Override
+                public void mouseMoved( MouseEvent e )
+                {
+                    setHover( epochDayAt( e.getX(), e.getY() ) );
+                }
+
+                @Override
+                public void mouseExited( MouseEvent e )
+                {
+                    setHover( Long.MIN_VALUE );
+                }
+
+                @Override
+                public void mouseWheelMoved( MouseWheelEvent e )
+                {
+                    setHover( Long.MIN_VALUE );
+                    scrollWeeks( e.getUnitsToScroll() );
+                }
+            };
+            addMouseListener( dispatcher );
+            addMouseMotionListener( dispatcher );
+            addMouseWheelListener( dispatcher );
+        }
+
+        @Override
+        public Dimension getPreferredSize()
+        {
+            if ( isPreferredSizeSet() )
+            {
+                return super.getPreferredSize();
+            }
+            FontMetrics fm = getFontMetrics( getFont() );
+            Dimension month = MonthSheetPainter.preferredSize( fm );
+            Insets insets = getInsets();
+            return new Dimension( titleWidth() + month.width + insets.left + insets.right,
+                    fm.getHeight() + 2 * month.height + insets.top + insets.bottom );
+        }
+
+        @Override
+        public void setBounds( int x, int y, int width, int height )
+        {
+            super.setBounds( x, y, width, height );
+            //More weeks may fit now, the last one must stay visible
+            setTopWeek( topWeek );
+            updateScrollBar();
+        }
+
+        /**
+         * Paints the headlines and the weeks which intersect the clip
+         * @param g
+         */
+        @Override
+        protected void paintComponent( Graphics g )
+        {
+            if ( isOpaque() )
+            {
+                g.setColor( getBackground() );
+                g.fillRect( 0, 0, getWidth(), getHeight() );
+            }
+            MonthSheetPainter.applyTextHints( g );
+            FontMetrics fm = getFontMetrics( getFont() );
+            painter.setFontMetrics( fm );
+            Color foreground = getForeground();
+            Insets insets = getInsets();
+            int rowHeight = MonthSheetPainter.preferredRowHeight( fm );
+            int top = insets.top + fm.getHeight();
+            g.setFont( getFont() );
+            g.setColor( foreground );
+            for ( int column = 0; column < 7; column++ )
+            {
+                DayOfWeek day = firstDayOfWeek.plus( column );
+                String text = headlineOverrides[day.getValue() - 1] != null
+                        ? headlineOverrides[day.getValue() - 1] : names.getWeekdayName( day );
+                int x = columnStart( column );
+                int width = columnStart( column + 1 ) - x;
+                g.drawString( text, x + ( width - fm.stringWidth( text ) ) / 2, insets.top + fm.getAscent() );
+            }
+            Rectangle clip = g.getClipBounds();
+            long today = LocalDate.now().toEpochDay();
+            int visible = visibleWeeks();
+            ensureRows( visible );
+            for ( int i = 0; i < visible && topWeek + i <= maxWeek; i++ )
+            {
+                int y = top + i * rowHeight;
+                if ( clip != null && ( y + rowHeight <= clip.y || y >= clip.y + clip.height ) )
+                {
+                    continue;
+                }
+                WeekRow row = row( topWeek + i );
+                if ( row.title != null )
+                {
+                    //Years with more than four digits are cut
+                    Shape oldClip = g.getClip();
+                    g.clipRect( insets.left, y, columnStart( 0 ) - insets.left, rowHeight );
+                    g.setFont( getFont() );
+                    g.setColor( foreground );
+                    g.drawString( row.title, insets.left, y + ( rowHeight - fm.getHeight() ) / 2 + fm.getAscent() );
+                    g.setClip( oldClip );
+                }
+                long start = weekStart( row.week );
+                for ( int column = 0; column < 7; column++ )
+                {
+                    int flags = row.flags[column];
+                    if ( start + column == today )
+                    {
+                        flags |= MonthSheetPainter.TODAY;
+                    }
+                    if ( start + column == hoverEpochDay )
+                    {
+                        flags |= MonthSheetPainter.HOVER;
+                    }
+                    cellBounds( i, column, top, rowHeight );
+                    painter.paintDay( g, this, cell, row.texts[column], flags, foreground,
+                            row.oddMonth[column] ? ODD_MONTH : null );
+                }
+            }
+        }
+
+        /**
+         * Number of weeks which fit on the sheet, the last one may be cut
+         * @return int
+         */
+        int visibleWeeks()
+        {
+            FontMetrics fm = getFontMetrics( getFont() );
+            Insets insets = getInsets();
+            int height = getHeight() - insets.top - insets.bottom - fm.getHeight();
+            int rowHeight = MonthSheetPainter.preferredRowHeight( fm );
+            return Math.max( 1, ( height + rowHeight - 1 ) / rowHeight );
+        }
+
+        @Override
+        public void setFont( Font font )
+        {
+            super.setFont( font );
+            clearTitleWidth();
+        }
+
+        @Override
+        public void updateUI()
+        {
+            super.updateUI();
+            clearTitleWidth();
+        }
+
+        /**
+         * Forces the width of the month titles to be measured again, e.g.
+         * for new month names
+         */
+        void clearTitleWidth()
+        {
+            titleWidthFont = null;
+        }
+
+        /**
+         * Width of the column with the month titles. It is only measured
+         * again if the font or the month names have changed, columnStart
+         * needs it for every cell
+         * @return int
+         */
+        private int titleWidth()
+        {
+            Font font = getFont();
+            if ( font != titleWidthFont )
+            {
+                FontMetrics fm = getFontMetrics( font );
+                int width = 0;
+                for ( String name : monthNames )
+                {
+                    width = Math.max( width, fm.stringWidth( name + " 0000" ) );
+                }
+                titleWidth = width + fm.stringWidth( " " );
+                titleWidthFont = font;
+            }
+            return titleWidth;
+        }
+
+        /**
+         * Left edge of the given column
+         * @param column
+         * @return int
+         */
+        private int columnStart( int column )
+        {
+            Insets insets = getInsets();
+            int left = insets.left + titleWidth();
+            int width = getWidth() - insets.right - left;
+            return left + column * width / 7;
+        }
+
+        /**
+         * Sets the shared cell rectangle to the bounds of a day
+         * @param row visible row, 0 is the first one
+         * @param column
+         * @param top
+         * @param rowHeight
+         */
+        private void cellBounds( int row, int column, int top, int rowHeight )
+        {
+            int x = columnStart( column );
+            cell.setBounds( x + 1, top + row * rowHeight + 1, columnStart( column + 1 ) - x - 2, rowHeight - 2 );
+        }
+
+        /**
+         * Finds the day at the given position
+         * @param x
+         * @param y
+         * @return epoch day or Long.MIN_VALUE if there is no day
+         */
+        private long epochDayAt( int x, int y )
+        {
+            FontMetrics fm = getFontMetrics( getFont() );
+            Insets insets = getInsets();
+            int top = insets.top + fm.getHeight();
+            int rowHeight = MonthSheetPainter.preferredRowHeight( fm );
+            if ( y < top || x < columnStart( 0 ) || x >= columnStart( 7 ) )
+            {
+                return Long.MIN_VALUE;
+            }
+            int column = 6;
+            while ( column > 0 && x < columnStart( column ) )
+            {
+                column--;
+            }
+            long epochDay = weekStart( topWeek + ( y - top ) / rowHeight ) + column;
+            if ( epochDay < LocalDate.MIN.toEpochDay() || epochDay > LocalDate.MAX.toEpochDay() )
+            {
+                return Long.MIN_VALUE;
+            }
+            return epochDay;
+        }
+
+        /**
+         * Sets the day under the mouse and repaints the old and the new one
+         * @param epochDay
+         */
+        private void setHover( long epochDay )
+        {
+            if ( epochDay != hoverEpochDay )
+            {
+                repaintDay( hoverEpochDay );
+                hoverEpochDay = epochDay;
+                repaintDay( hoverEpochDay );
+            }
+        }
+
+        /**
+         * Repaints a single day if it is visible
+         * @param epochDay
+         */
+        private void repaintDay( long epochDay )
+        {
+            if ( epochDay == Long.MIN_VALUE )
+            {
+                return;
+            }
+            long row = weekOf( epochDay ) - topWeek;
+            if ( row >= 0 && row < visibleWeeks() )
+            {
+                FontMetrics fm = getFontMetrics( getFont() );
+                int rowHeight = MonthSheetPainter.preferredRowHeight( fm );
+                cellBounds( (int) row, (int) ( epochDay - weekStart( weekOf( epochDay ) ) ),
+                        getInsets().top + fm.getHeight(), rowHeight );
+                repaint( cell );
+            }
+        }
+    }
+}
@@ -0,0 +1,1147 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.awt.Color;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JViewport;
+import javax.swing.KeyStroke;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+
+/**
+ * A JPanel that shows the timed events of a day or a week in slots of 15
+ * minutes, with one column for every day and resource, see
+ * OGCalendarEvent.getResource. It is meant to be the view of a JScrollPane,
+ * the times and the days with the resources are then shown as row and
+ * column header.
+ * The panel, the time ruler and the column header are the only components,
+ * no matter how many days, resources or events are shown. Only the slots,
+ * columns and events inside the clip are painted. The events of the shown
+ * days are taken from the OGCalendarEventStore once and kept sorted by
+ * column and start, they are only taken again when the store reports a
+ * change of the shown days. All day events are not shown.
+ * The keys page up and page down move by one day or week.
+ * Register a propertychange listener with propertyname "firstDay" to
+ * receive the first LocalDate shown, "slotSelected" to receive the
+ * LocalDateTime of the slot clicked by the user, see getSelectedResource,
+ * and "eventSelected" to receive the OGCalendarEvent clicked by the user
+ */
+public class OGTimelineView extends JPanel implements Scrollable
+{
+
+    /**
+     * The number of days shown
+     */
+    public enum ViewMode
+    {
+        /**
+         * A single day
+         */
+        DAY( 1 ),
+        /**
+         * Seven days, starting with the first day of the week of the locale
+         */
+        WEEK( 7 );
+
+        private final int days;
+
+        private ViewMode( int days )
+        {
+            this.days = days;
+        }
+
+        /**
+         * Getter for the number of days shown
+         * @return int
+         */
+        public int getDays()
+        {
+            return days;
+        }
+    }
+
+    /**
+     * Default length of a slot in minutes
+     */
+    public static final int DEFAULT_SLOT_MINUTES = 15;
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final String[] HOUR_TEXTS = new String[24];
+
+    static
+    {
+        for ( int i = 0; i < HOUR_TEXTS.length; i++ )
+        {
+            HOUR_TEXTS[i] = ( i < 10 ? "0" : "" ) + i + ":00";
+        }
+    }
+
+    private static final Color SLOT_LINE_COLOR = new Color( 232, 232, 232 );
+    private static final Color HOUR_LINE_COLOR = new Color( 200, 200, 200 );
+    private static final Color DAY_LINE_COLOR = new Color( 140, 140, 140 );
+    private static final Color TODAY_BACKGROUND = new Color( 255, 250, 225 );
+    private static final Color EVENT_COLOR = new Color( 70, 110, 180 );
+    private static final Booking[] NO_BOOKINGS = new Booking[0];
+    private static final Comparator<Booking> BY_START = Comparator.comparingInt( (Booking b) -> b.start ).thenComparingInt( (b) -> -b.end );
+
+    private final PropertyChangeSupport pcs = new PropertyChangeSupport( this );
+    private final TimeRuler timeRuler = new TimeRuler();
+    private final ColumnHeader columnHeader = new ColumnHeader();
+    private final OGCalendarEventStore.StoreListener storeListener = (from, to) -> eventsChanged( from, to );
+    private OGCalendarEventStore eventStore;
+    private CalendarNames names;
+    private DateTimeFormatter dayFormatter;
+    private ViewMode viewMode;
+    private LocalDate firstDay;
+    private int slotMinutes = DEFAULT_SLOT_MINUTES;
+    private int columnWidth = 100;
+    private String[] resources = new String[0];
+    private final Map<String, Integer> resourceIndex = new HashMap<>();
+    //Texts of the shown days, indexed by the day
+    private final String[] dayTexts = new String[7];
+    //Events of every column sorted by start, null if they must be taken from the store again
+    private Booking[][] bookings;
+    //Days whose events must be taken from the store again, none if first is after last
+    private int dirtyFirstDay;
+    private int dirtyLastDay = -1;
+    private LocalDateTime selectedSlot;
+    private int selectedColumn = -1;
+
+    /**
+     * Constructor which shows the current week
+     */
+    public OGTimelineView()
+    {
+        this( LocalDate.now(), ViewMode.WEEK );
+    }
+
+    /**
+     * Constructor which shows the day or week of the given day
+     * @param day
+     * @param viewMode
+     */
+    public OGTimelineView( LocalDate day, ViewMode viewMode )
+    {
+        this.viewMode = viewMode;
+        names = CalendarNames.of( getLocale() );
+        dayFormatter = DateTimeFormatter.ofLocalizedDate( FormatStyle.SHORT ).withLocale( getLocale() );
+        firstDay = align( day );
+        updateDayTexts();
+        setBackground( Color.white );
+        registerDispatcher();
+        addComponentListener( new ComponentAdapter()
+        {
+            @Override
+            public void componentResized( ComponentEvent e )
+            {
+                //The column header is as wide as the panel
+                columnHeader.revalidate();
+                columnHeader.repaint();
+            }
+        } );
+    }
+
+    /**
+     * Shows the given day, in ViewMode.WEEK the week of the given day
+     * @param day
+     */
+    public void setFirstDay( LocalDate day )
+    {
+        LocalDate old = firstDay;
+        LocalDate aligned = align( day );
+        if ( aligned.equals( old ) )
+        {
+            return;
+        }
+        firstDay = aligned;
+        contentChanged();
+        pcs.firePropertyChange( "firstDay", old, firstDay );
+    }
+
+    /**
+     * Getter for the first day shown
+     * @return LocalDate
+     */
+    public LocalDate getFirstDay()
+    {
+        return firstDay;
+    }
+
+    /**
+     * Getter for the last day shown
+     * @return LocalDate
+     */
+    public LocalDate getLastDay()
+    {
+        return firstDay.plusDays( viewMode.getDays() - 1 );
+    }
+
+    /**
+     * Moves by the given number of days or weeks
+     * @param periods negative values move back
+     */
+    public void scroll( int periods )
+    {
+        setFirstDay( firstDay.plusDays( (long) periods * viewMode.getDays() ) );
+    }
+
+    /**
+     * Sets the number of days shown
+     * @param viewMode
+     */
+    public void setViewMode( ViewMode viewMode )
+    {
+        if ( this.viewMode == viewMode )
+        {
+            return;
+        }
+        this.viewMode = viewMode;
+        LocalDate old = firstDay;
+        firstDay = align( firstDay );
+        structureChanged();
+        pcs.firePropertyChange( "firstDay", old, firstDay );
+    }
+
+    /**
+     * Getter for the number of days shown
+     * @return ViewMode
+     */
+    public ViewMode getViewMode()
+    {
+        return viewMode;
+    }
+
+    /**
+     * Sets the resources which get a column on every day. Only events of
+     * these resources are shown. Without resources every day has a single
+     * column with all events
+     * @param resources
+     */
+    public void setResources( List<String> resources )
+    {
+        this.resources = resources.toArray( new String[resources.size()] );
+        resourceIndex.clear();
+        for ( int i = 0; i < this.resources.length; i++ )
+        {
+            resourceIndex.put( this.resources[i], i );
+        }
+        structureChanged();
+    }
+
+    /**
+     * Getter for the resources which get a column on every day
+     * @return a new list
+     */
+    public List<String> getResources()
+    {
+        return new ArrayList<>( Arrays.asList( resources ) );
+    }
+
+    /**
+     * Sets the length of a slot
+     * @param slotMinutes a divisor of 60, e.g. 15 or 30
+     */
+    public void setSlotMinutes( int slotMinutes )
+    {
+        if ( slotMinutes < 1 || 60 % slotMinutes != 0 )
+        {
+            throw new IllegalArgumentException( "slotMinutes must be a divisor of 60: " + slotMinutes );
+        }
+        this.slotMinutes = slotMinutes;
+        structureChanged();
+    }
+
+    /**
+     * Getter for the length of a slot in minutes
+     * @return int
+     */
+    public int getSlotMinutes()
+    {
+        return slotMinutes;
+    }
+
+    /**
+     * Sets the preferred width of a column. If the viewport is wider the
+     * columns are widened to fill it
+     * @param columnWidth
+     */
+    public void setColumnWidth( int columnWidth )
+    {
+        if ( columnWidth < 1 )
+        {
+            throw new IllegalArgumentException( "columnWidth must be positive: " + columnWidth );
+        }
+        this.columnWidth = columnWidth;
+        structureChanged();
+    }
+
+    /**
+     * Getter for the preferred width of a column
+     * @return int
+     */
+    public int getColumnWidth()
+    {
+        return columnWidth;
+    }
+
+    /**
+     * Sets the store whose timed events are shown. The view follows the
+     * changes of the store. Null removes all events
+     * @param eventStore
+     */
+    public void setEventStore( OGCalendarEventStore eventStore )
+    {
+        if ( this.eventStore != null )
+        {
+            this.eventStore.removeStoreListener( storeListener );
+        }
+        this.eventStore = eventStore;
+        if ( eventStore != null )
+        {
+            eventStore.addStoreListener( storeListener );
+        }
+        bookings = null;
+        repaint();
+    }
+
+    /**
+     * Getter for the store whose events are shown
+     * @return OGCalendarEventStore or null
+     */
+    public OGCalendarEventStore getEventStore()
+    {
+        return eventStore;
+    }
+
+    /**
+     * Getter for the slot clicked last
+     * @return LocalDateTime of the start of the slot or null
+     */
+    public LocalDateTime getSelectedSlot()
+    {
+        return selectedSlot;
+    }
+
+    /**
+     * Getter for the resource of the slot clicked last
+     * @return String or null if there are no resources or no slot was
+     * clicked
+     */
+    public String getSelectedResource()
+    {
+        return selectedColumn >= 0 && resources.length > 0 ? resources[selectedColumn % resources.length] : null;
+    }
+
+    /**
+     * Scrolls the enclosing viewport so the given time is at the top
+     * @param time
+     */
+    public void scrollToTime( LocalTime time )
+    {
+        Rectangle visible = getVisibleRect();
+        scrollRectToVisible( new Rectangle( visible.x, minuteY( time.getHour() * 60 + time.getMinute() ), 1, Math.max( 1, visible.height ) ) );
+    }
+
+    /**
+     * Sets the locale which defines the first day of the week and the texts
+     * of the days
+     * @param locale
+     */
+    @Override
+    public void setLocale( Locale locale )
+    {
+        super.setLocale( locale );
+        names = CalendarNames.of( getLocale() );
+        dayFormatter = DateTimeFormatter.ofLocalizedDate( FormatStyle.SHORT ).withLocale( getLocale() );
+        setFirstDay( firstDay );
+        updateDayTexts();
+        columnHeader.repaint();
+    }
+
+    /**
+     * Register the following PropertyChangeListeners to receive the values:
+     * firstDay = get the first LocalDate shown
+     * slotSelected = get the LocalDateTime of the slot clicked by the user
+     * eventSelected = get the OGCalendarEvent clicked by the user
+     * @param propertyName
+     * @param listener
+     */
+    @Override
+    public void addPropertyChangeListener( String propertyName, PropertyChangeListener listener )
+    {
+        pcs.addPropertyChangeListener( propertyName, listener );
+    }
+
+    /**
+     * Register the following PropertyChangeListeners to receive the values:
+     * firstDay = get the first LocalDate shown
+     * slotSelected = get the LocalDateTime of the slot clicked by the user
+     * eventSelected = get the OGCalendarEvent clicked by the user
+     * @param listener
+     */
+    @Override
+    public void addPropertyChangeListener( PropertyChangeListener listener )
+    {
+        pcs.addPropertyChangeListener( listener );
+    }
+
+    /**
+     * Installs the time ruler and the column header if the panel is the
+     * view of a JScrollPane
+     */
+    @Override
+    public void addNotify()
+    {
+        super.addNotify();
+        JScrollPane scrollPane = enclosingScrollPane();
+        if ( scrollPane != null )
+        {
+            scrollPane.setRowHeaderView( timeRuler );
+            scrollPane.setColumnHeaderView( columnHeader );
+        }
+    }
+
+    /**
+     * Removes the time ruler and the column header from the JScrollPane
+     */
+    @Override
+    public void removeNotify()
+    {
+        JScrollPane scrollPane = enclosingScrollPane();
+        if ( scrollPane != null )
+        {
+            if ( scrollPane.getRowHeader() != null && scrollPane.getRowHeader().getView() == timeRuler )
+            {
+                scrollPane.setRowHeaderView( null );
+            }
+            if ( scrollPane.getColumnHeader() != null && scrollPane.getColumnHeader().getView() == columnHeader )
+            {
+                scrollPane.setColumnHeaderView( null );
+            }
+        }
+        super.removeNotify();
+    }
+
+    @Override
+    public Dimension getPreferredSize()
+    {
+        if ( isPreferredSizeSet() )
+        {
+            return super.getPreferredSize();
+        }
+        return new Dimension( columnCount() * columnWidth, rowCount() * rowHeight() );
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize()
+    {
+        Dimension size = getPreferredSize();
+        //A week without resources and eight hours
+        return new Dimension( Math.min( size.width, 7 * columnWidth ), Math.min( size.height, 8 * 60 / slotMinutes * rowHeight() ) );
+    }
+
+    @Override
+    public int getScrollableUnitIncrement( Rectangle visibleRect, int orientation, int direction )
+    {
+        if ( orientation == SwingConstants.VERTICAL )
+        {
+            return rowHeight();
+        }
+        return Math.max( 1, getWidth() / columnCount() );
+    }
+
+    @Override
+    public int getScrollableBlockIncrement( Rectangle visibleRect, int orientation, int direction )
+    {
+        int unit = getScrollableUnitIncrement( visibleRect, orientation, direction );
+        int extent = orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+        return Math.max( unit, extent - unit );
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth()
+    {
+        return getParent() instanceof JViewport && getParent().getWidth() > getPreferredSize().width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight()
+    {
+        return getParent() instanceof JViewport && getParent().getHeight() > getPreferredSize().height;
+    }
+
+    /**
+     * Paints the slots, columns and events inside the clip
+     * @param g
+     */
+    @Override
+    protected void paintComponent( Graphics g )
+    {
+        super.paintComponent( g );
+        Rectangle clip = g.getClipBounds();
+        if ( clip == null )
+        {
+            clip = new Rectangle( 0, 0, getWidth(), getHeight() );
+        }
+        int columns = columnCount();
+        int rowHeight = rowHeight();
+        int firstColumn = columnAt( clip.x );
+        int lastColumn = columnAt( clip.x + clip.width - 1 );
+        int firstRow = Math.max( 0, clip.y / rowHeight );
+        int lastRow = Math.min( rowCount() - 1, ( clip.y + clip.height - 1 ) / rowHeight );
+        if ( firstColumn < 0 || lastColumn < 0 || firstRow > lastRow )
+        {
+            return;
+        }
+        int resourceCount = resourceCount();
+        long today = LocalDate.now().toEpochDay() - firstDay.toEpochDay();
+        if ( today >= 0 && today < viewMode.getDays() )
+        {
+            int left = Math.max( clip.x, columnX( (int) today * resourceCount ) );
+            int right = Math.min( clip.x + clip.width, columnX( ( (int) today + 1 ) * resourceCount ) );
+            if ( left < right )
+            {
+                g.setColor( TODAY_BACKGROUND );
+                g.fillRect( left, clip.y, right - left, clip.height );
+            }
+        }
+        if ( selectedColumn >= firstColumn && selectedColumn <= lastColumn )
+        {
+            int minute = selectedSlot.getHour() * 60 + selectedSlot.getMinute();
+            g.setColor( MonthSheetPainter.RANGE_COLOR );
+            g.fillRect( columnX( selectedColumn ), minuteY( minute ), columnX( selectedColumn + 1 ) - columnX( selectedColumn ), rowHeight );
+        }
+        int slotsPerHour = 60 / slotMinutes;
+        for ( int row = firstRow; row <= lastRow + 1; row++ )
+        {
+            g.setColor( row % slotsPerHour == 0 ? HOUR_LINE_COLOR : SLOT_LINE_COLOR );
+            g.drawLine( clip.x, row * rowHeight, clip.x + clip.width, row * rowHeight );
+        }
+        for ( int column = firstColumn; column <= Math.min( lastColumn + 1, columns ); column++ )
+        {
+            g.setColor( column % resourceCount == 0 ? DAY_LINE_COLOR : HOUR_LINE_COLOR );
+            g.drawLine( columnX( column ), clip.y, columnX( column ), clip.y + clip.height );
+        }
+        paintBookings( g, firstColumn, lastColumn, firstRow * slotMinutes, ( lastRow + 1 ) * slotMinutes );
+    }
+
+    /**
+     * Paints the events of the given columns which overlap the given minutes
+     * @param g
+     * @param firstColumn
+     * @param lastColumn
+     * @param fromMinute inclusive
+     * @param toMinute exclusive
+     */
+    private void paintBookings( Graphics g, int firstColumn, int lastColumn, int fromMinute, int toMinute )
+    {
+        ensureBookings();
+        MonthSheetPainter.applyTextHints( g );
+        FontMetrics fm = getFontMetrics( getFont() );
+        for ( int column = firstColumn; column <= lastColumn; column++ )
+        {
+            int left = columnX( column ) + 1;
+            int width = columnX( column + 1 ) - left - 1;
+            for ( Booking booking : bookings[column] )
+            {
+                if ( booking.start >= toMinute )
+                {
+                    //Sorted by start, all following events start later
+                    break;
+                }
+                if ( booking.end <= fromMinute )
+                {
+                    continue;
+                }
+                int laneWidth = width / booking.lanes;
+                int x = left + booking.lane * laneWidth;
+                int y = minuteY( booking.start ) + 1;
+                int height = minuteY( booking.end ) - y;
+                Color color = booking.event.getColor();
+                g.setColor( color != null ? color : EVENT_COLOR );
+                g.fillRect( x, y, laneWidth - 1, height );
+                Graphics text = g.create( x, y, laneWidth - 1, height );
+                try
+                {
+                    text.setColor( Color.white );
+                    text.setFont( getFont() );
+                    text.drawString( booking.event.getTitle(), 2, fm.getAscent() );
+                }
+                finally
+                {
+                    text.dispose();
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes the events of the shown days from the store and puts them into
+     * the columns. After a change of the store only the changed days are
+     * taken again
+     */
+    private void ensureBookings()
+    {
+        if ( bookings == null || bookings.length != columnCount() )
+        {
+            bookings = new Booking[columnCount()][];
+            dirtyFirstDay = 0;
+            dirtyLastDay = viewMode.getDays() - 1;
+        }
+        if ( dirtyFirstDay <= dirtyLastDay )
+        {
+            layoutDays( dirtyFirstDay, dirtyLastDay );
+            dirtyFirstDay = 0;
+            dirtyLastDay = -1;
+        }
+    }
+
+    /**
+     * Puts the events of the given days into their columns
+     * @param fromDay index of the first day
+     * @param toDay index of the last day, inclusive
+     */
+    private void layoutDays( int fromDay, int toDay )
+    {
+        int resourceCount = resourceCount();
+        int firstColumn = fromDay * resourceCount;
+        int columns = ( toDay - fromDay + 1 ) * resourceCount;
+        Arrays.fill( bookings, firstColumn, firstColumn + columns, NO_BOOKINGS );
+        if ( eventStore == null )
+        {
+            return;
+        }
+        long firstEpochDay = firstDay.toEpochDay();
+        List<List<Booking>> columnBookings = new ArrayList<>( columns );
+        for ( int i = 0; i < columns; i++ )
+        {
+            columnBookings.add( new ArrayList<>() );
+        }
+        for ( OGCalendarEvent event : eventStore.getEvents( firstDay.plusDays( fromDay ), firstDay.plusDays( toDay ) ) )
+        {
+            if ( event.isAllDay() )
+            {
+                continue;
+            }
+            int resource = 0;
+            if ( resources.length > 0 )
+            {
+                Integer index = resourceIndex.get( event.getResource() );
+                if ( index == null )
+                {
+                    continue;
+                }
+                resource = index;
+            }
+            long startDay = event.getStart().toLocalDate().toEpochDay();
+            long endDay = event.getEnd().toLocalDate().toEpochDay();
+            int first = (int) Math.max( fromDay, startDay - firstEpochDay );
+            int last = (int) Math.min( toDay, endDay - firstEpochDay );
+            for ( int day = first; day <= last; day++ )
+            {
+                long epochDay = firstEpochDay + day;
+                int start = epochDay > startDay ? 0 : minuteOfDay( event.getStart() );
+                int end = epochDay < endDay ? MINUTES_PER_DAY : minuteOfDay( event.getEnd() );
+                if ( end <= start && epochDay == endDay && epochDay > startDay )
+                {
+                    //The event ends at midnight
+                    continue;
+                }
+                //Short events get at least one slot, so they can be seen and clicked
+                end = Math.min( MINUTES_PER_DAY, Math.max( end, start + slotMinutes ) );
+                columnBookings.get( ( day - fromDay ) * resourceCount + resource ).add( new Booking( event, start, end ) );
+            }
+        }
+        for ( int i = 0; i < columns; i++ )
+        {
+            List<Booking> list = columnBookings.get( i );
+            if ( !list.isEmpty() )
+            {
+                Booking[] sorted = list.toArray( new Booking[list.size()] );
+                Arrays.sort( sorted, BY_START );
+                assignLanes( sorted );
+                bookings[firstColumn + i] = sorted;
+            }
+        }
+    }
+
+    /**
+     * Places overlapping events of a column side by side. Events which
+     * overlap directly or through other events form a group, all events of
+     * a group get the same width
+     * @param column sorted by start
+     */
+    private static void assignLanes( Booking[] column )
+    {
+        int[] laneEnds = new int[column.length];
+        int groupStart = 0;
+        int groupEnd = 0;
+        int lanes = 0;
+        for ( int i = 0; i < column.length; i++ )
+        {
+            Booking booking = column[i];
+            if ( booking.start >= groupEnd )
+            {
+                for ( int j = groupStart; j < i; j++ )
+                {
+                    column[j].lanes = lanes;
+                }
+                groupStart = i;
+                lanes = 0;
+            }
+            int lane = 0;
+            while ( lane < lanes && laneEnds[lane] > booking.start )
+            {
+                lane++;
+            }
+            if ( lane == lanes )
+            {
+                lanes++;
+            }
+            laneEnds[lane] = booking.end;
+            booking.lane = lane;
+            groupEnd = Math.max( groupEnd, booking.end );
+        }
+        for ( int j = groupStart; j < column.length; j++ )
+        {
+            column[j].lanes = lanes;
+        }
+    }
+
+    /**
+     * Is called by the store after events were added or removed. Only the
+     * changed days are painted again
+     * @param from
+     * @param to
+     */
+    private void eventsChanged( LocalDate from, LocalDate to )
+    {
+        if ( !SwingUtilities.isEventDispatchThread() )
+        {
+            SwingUtilities.invokeLater( () -> eventsChanged( from, to ) );
+            return;
+        }
+        long first = Math.max( from.toEpochDay(), firstDay.toEpochDay() ) - firstDay.toEpochDay();
+        long last = Math.min( to.toEpochDay(), getLastDay().toEpochDay() ) - firstDay.toEpochDay();
+        if ( first > last )
+        {
+            return;
+        }
+        if ( dirtyFirstDay <= dirtyLastDay )
+        {
+            first = Math.min( first, dirtyFirstDay );
+            last = Math.max( last, dirtyLastDay );
+        }
+        dirtyFirstDay = (int) first;
+        dirtyLastDay = (int) last;
+        int left = columnX( (int) first * resourceCount() );
+        int right = columnX( (int) ( last + 1 ) * resourceCount() );
+        repaint( left, 0, right - left, getHeight() );
+    }
+
+    /**
+     * Finds the event at the given point
+     * @param column
+     * @param x
+     * @param minute
+     * @return OGCalendarEvent or null
+     */
+    private OGCalendarEvent eventAt( int column, int x, int minute )
+    {
+        ensureBookings();
+        int left = columnX( column ) + 1;
+        int width = columnX( column + 1 ) - left - 1;
+        for ( Booking booking : bookings[column] )
+        {
+            if ( booking.start > minute )
+            {
+                break;
+            }
+            int laneWidth = width / booking.lanes;
+            int laneX = left + booking.lane * laneWidth;
+            if ( booking.end > minute && x >= laneX && x < laneX + laneWidth )
+            {
+                return booking.event;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Selects the slot at the given point or the event painted there
+     * @param x
+     * @param y
+     */
+    private void clicked( int x, int y )
+    {
+        int column = columnAt( x );
+        int minute = (int) ( (long) y * slotMinutes / rowHeight() );
+        if ( column < 0 || y < 0 || minute >= MINUTES_PER_DAY )
+        {
+            return;
+        }
+        OGCalendarEvent event = eventAt( column, x, minute );
+        if ( event != null )
+        {
+            pcs.firePropertyChange( "eventSelected", null, event );
+            return;
+        }
+        repaintSlot();
+        selectedColumn = column;
+        selectedSlot = firstDay.plusDays( column / resourceCount() ).atTime( LocalTime.ofSecondOfDay( minute / slotMinutes * slotMinutes * 60L ) );
+        repaintSlot();
+        pcs.firePropertyChange( "slotSelected", null, selectedSlot );
+    }
+
+    /**
+     * Repaints the selected slot
+     */
+    private void repaintSlot()
+    {
+        if ( selectedColumn >= 0 )
+        {
+            int left = columnX( selectedColumn );
+            repaint( left, minuteY( selectedSlot.getHour() * 60 + selectedSlot.getMinute() ), columnX( selectedColumn + 1 ) - left, rowHeight() );
+        }
+    }
+
+    /**
+     * Registers the mouse listener and the key bindings
+     */
+    private void registerDispatcher()
+    {
+        setFocusable( true );
+        MouseAdapter dispatcher = new MouseAdapter()
+        {
+            @Override
+            public void mousePressed( MouseEvent e )
+            {
+                requestFocusInWindow();
+            }
+
+            @Override
+            public void mouseClicked( MouseEvent e )
+            {
+                clicked( e.getX(), e.getY() );
+            }
+        };
+        addMouseListener( dispatcher );
+        registerScrollKey( KeyEvent.VK_PAGE_UP, "previousPeriod", -1 );
+        registerScrollKey( KeyEvent.VK_PAGE_DOWN, "nextPeriod", 1 );
+    }
+
+    /**
+     * Binds a key to moving by the given amount of days or weeks
+     * @param keyCode
+     * @param name
+     * @param periods
+     */
+    private void registerScrollKey( int keyCode, String name, int periods )
+    {
+        getInputMap( JComponent.WHEN_FOCUSED ).put( KeyStroke.getKeyStroke( keyCode, 0 ), name );
+        getActionMap().put( name, new AbstractAction()
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed( ActionEvent e )
+            {
+                scroll( periods );
+            }
+        } );
+    }
+
+    /**
+     * Moves a day to the first day of its week in ViewMode.WEEK
+     * @param day
+     * @return LocalDate
+     */
+    private LocalDate align( LocalDate day )
+    {
+        return viewMode == ViewMode.WEEK ? day.with( TemporalAdjusters.previousOrSame( names.getFirstDayOfWeek() ) ) : day;
+    }
+
+    /**
+     * Computes the texts of the shown days
+     */
+    private void updateDayTexts()
+    {
+        for ( int day = 0; day < viewMode.getDays(); day++ )
+        {
+            LocalDate date = firstDay.plusDays( day );
+            dayTexts[day] = names.getWeekdayName( date.getDayOfWeek() ) + " " + dayFormatter.format( date );
+        }
+    }
+
+    /**
+     * Is called when other days are shown, the size stays the same
+     */
+    private void contentChanged()
+    {
+        bookings = null;
+        selectedColumn = -1;
+        selectedSlot = null;
+        updateDayTexts();
+        repaint();
+        columnHeader.repaint();
+    }
+
+    /**
+     * Is called when the number of columns or rows has changed
+     */
+    private void structureChanged()
+    {
+        contentChanged();
+        revalidate();
+        timeRuler.revalidate();
+        timeRuler.repaint();
+        columnHeader.revalidate();
+    }
+
+    /**
+     * Returns the JScrollPane the panel is the view of
+     * @return JScrollPane or null
+     */
+    private JScrollPane enclosingScrollPane()
+    {
+        Container parent = getParent();
+        if ( parent instanceof JViewport && parent.getParent() instanceof JScrollPane )
+        {
+            JScrollPane scrollPane = (JScrollPane) parent.getParent();
+            if ( scrollPane.getViewport() == parent )
+            {
+                return scrollPane;
+            }
+        }
+        return null;
+    }
+
+    private int resourceCount()
+    {
+        return Math.max( 1, resources.length );
+    }
+
+    private int columnCount()
+    {
+        return viewMode.getDays() * resourceCount();
+    }
+
+    private int rowCount()
+    {
+        return MINUTES_PER_DAY / slotMinutes;
+    }
+
+    private int rowHeight()
+    {
+        return getFontMetrics( getFont() ).getHeight() + 4;
+    }
+
+    /**
+     * Left edge of the given column
+     * @param column
+     * @return int
+     */
+    private int columnX( int column )
+    {
+        return (int) ( (long) column * getWidth() / columnCount() );
+    }
+
+    /**
+     * Finds the column at the given position
+     * @param x
+     * @return index of the column or -1
+     */
+    private int columnAt( int x )
+    {
+        int columns = columnCount();
+        if ( x < 0 || x >= getWidth() )
+        {
+            return -1;
+        }
+        int column = (int) ( (long) x * columns / getWidth() );
+        while ( column < columns - 1 && x >= columnX( column + 1 ) )
+        {
+            column++;
+        }
+        while ( column > 0 && x < columnX( column ) )
+        {
+            column--;
+        }
+        return column;
+    }
+
+    /**
+     * Top edge of the given minute of the day
+     * @param minute
+     * @return int
+     */
+    private int minuteY( int minute )
+    {
+        return minute * rowHeight() / slotMinutes;
+    }
+
+    private static int minuteOfDay( LocalDateTime time )
+    {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    /**
+     * An event placed into a column
+     */
+    private static final class Booking
+    {
+
+        private final OGCalendarEvent event;
+        //Minutes of the day, end is exclusive
+        private final int start;
+        private final int end;
+        private int lane;
+        private int lanes;
+
+        private Booking( OGCalendarEvent event, int start, int end )
+        {
+            this.event = event;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * The times shown left of the slots as row header
+     */
+    private final class TimeRuler extends JPanel
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Dimension getPreferredSize()
+        {
+            FontMetrics fm = getFontMetrics( getFont() );
+            return new Dimension( fm.stringWidth( "00:00" ) + 8, OGTimelineView.this.getPreferredSize().height );
+        }
+
+        @Override
+        protected void paintComponent( Graphics g )
+        {
+            super.paintComponent( g );
+            Rectangle clip = g.getClipBounds();
+            MonthSheetPainter.applyTextHints( g );
+            FontMetrics fm = getFontMetrics( getFont() );
+            int hourHeight = minuteY( 60 );
+            int first = Math.max( 0, clip.y / hourHeight );
+            int last = Math.min( 23, ( clip.y + clip.height ) / hourHeight );
+            g.setFont( getFont() );
+            for ( int hour = first; hour <= last; hour++ )
+            {
+                int y = hour * hourHeight;
+                g.setColor( HOUR_LINE_COLOR );
+                g.drawLine( 0, y, getWidth(), y );
+                g.setColor( getForeground() );
+                g.drawString( HOUR_TEXTS[hour], getWidth() - 4 - fm.stringWidth( HOUR_TEXTS[hour] ), y + fm.getAscent() + 1 );
+            }
+        }
+    }
+
+    /**
+     * The days and resources shown above the slots as column header
+     */
+    private final class ColumnHeader extends JPanel
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Dimension getPreferredSize()
+        {
+            FontMetrics fm = getFontMetrics( getFont() );
+            int width = OGTimelineView.this.getWidth() > 0 ? OGTimelineView.this.getWidth() : OGTimelineView.this.getPreferredSize().width;
+            return new Dimension( width, ( resources.length > 0 ? 2 : 1 ) * fm.getHeight() + 4 );
+        }
+
+        @Override
+        protected void paintComponent( Graphics g )
+        {
+            super.paintComponent( g );
+            Rectangle clip = g.getClipBounds();
+            Rectangle visible = getVisibleRect();
+            MonthSheetPainter.applyTextHints( g );
+            FontMetrics fm = getFontMetrics( getFont() );
+            int resourceCount = resourceCount();
+            int firstColumn = Math.max( 0, columnAt( clip.x ) );
+            int lastColumn = columnAt( Math.min( clip.x + clip.width, OGTimelineView.this.getWidth() ) - 1 );
+            if ( lastColumn < 0 )
+            {
+                return;
+            }
+            g.setFont( getFont() );
+            LocalDate today = LocalDate.now();
+            for ( int day = firstColumn / resourceCount; day <= lastColumn / resourceCount; day++ )
+            {
+                int left = columnX( day * resourceCount );
+                int right = columnX( ( day + 1 ) * resourceCount );
+                String text = dayTexts[day];
+                //The text stays visible while a wide day is scrolled
+                int textX = Math.min( Math.max( left, visible.x ) + 4, right - 4 - fm.stringWidth( text ) );
+                g.setColor( firstDay.plusDays( day ).equals( today ) ? Color.red : getForeground() );
+                g.drawString( text, Math.max( left + 4, textX ), 2 + fm.getAscent() );
+                g.setColor( DAY_LINE_COLOR );
+                g.drawLine( left, 0, left, getHeight() );
+            }
+            if ( resources.length > 0 )
+            {
+                int y = 2 + fm.getHeight();
+                for ( int column = firstColumn; column <= lastColumn; column++ )
+                {
+                    int left = columnX( column );
+                    if ( column % resourceCount != 0 )
+                    {
+                        g.setColor( HOUR_LINE_COLOR );
+                        g.drawLine( left, y, left, getHeight() );
+                    }
+                    Graphics text = g.create( left + 4, y, columnX( column + 1 ) - left - 8, fm.getHeight() );
+                    try
+                    {
+                        text.setColor( getForeground() );
+                        text.drawString( resources[column % resourceCount], 0, fm.getAscent() );
+                    }
+                    finally
+                    {
+                        text.dispose();
+                    }
+                }
+            }
+            g.setColor( DAY_LINE_COLOR );
+            g.drawLine( clip.x, getHeight() - 1, clip.x + clip.width, getHeight() - 1 );
+        }
+    }
+}
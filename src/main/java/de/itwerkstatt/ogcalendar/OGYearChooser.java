@@ -4,6 +4,7 @@ import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.time.LocalDate;
 import java.time.Year;
+import java.time.YearMonth;
 import javax.swing.JPanel;
 import javax.swing.JSpinner;
 import javax.swing.SpinnerNumberModel;
@@ -14,7 +15,8 @@ import javax.swing.event.ChangeListener;
  * A JPanel that represents a year chooser. User can chooser by selecting by
  * spin buttons or just typing the year. Register a propertychange listener with
  * propertyname "yearSelected" to receive the current Month value selected by
- * the user
+ * the user. If a spin button is held down the step size grows from 1 over
+ * 5 and 10 up to 100 years
  *
  * @author Dominik Sust
  * @creation 19.12.2017 14:49:14
@@ -23,10 +25,27 @@ public class OGYearChooser extends JPanel
 {
 
     private final PropertyChangeSupport pcs = new PropertyChangeSupport( this );
+    private OGCalendarInstrumentation instrumentation;
+    private OGCalendarModel model;
+    private final PropertyChangeListener modelListener = (e) -> modelChanged( (YearMonth) e.getNewValue() );
+    //Set while the chooser follows a change of the model
+    private boolean modelChanging;
 
     private JSpinner spinner;
+    private final SpinAcceleration acceleration = new SpinAcceleration( new long[]
+    {
+        1000, 2500, 4000
+    }, new int[]
+    {
+        5, 10, 100
+    } );
+    private boolean accelerationEnabled = true;
+    //Set while the spinner is changed by this component
+    private boolean adjusting;
 
     private Year currentYear;
+    private int minimumYear = Year.MIN_VALUE;
+    private int maximumYear = Year.MAX_VALUE;
 
     /**
      * Constructor which sets current Year to the current Date
@@ -48,14 +67,49 @@ public class OGYearChooser extends JPanel
     }
 
     /**
-     * Sets the current year which is displayed
+     * Sets the current year which is displayed. Must be called on the EDT,
+     * other threads change the model, see setModel
      *
      * @param year
      */
     public void setCurrentYear( Year year )
     {
         currentYear = year;
-        spinner.setValue( currentYear.getValue() );
+        updateSpinner();
+        if ( model != null && !modelChanging )
+        {
+            model.setCurrentYear( year );
+        }
+    }
+
+    /**
+     * Connects the chooser with a model which can be changed from any
+     * thread. The chooser shows the year of the model and the model follows
+     * the year chosen by the user. Null disconnects the model. Must be
+     * called on the EDT
+     * @param model
+     */
+    public void setModel( OGCalendarModel model )
+    {
+        if ( this.model != null )
+        {
+            this.model.removePropertyChangeListener( "currentDate", modelListener );
+        }
+        this.model = model;
+        if ( model != null )
+        {
+            model.addPropertyChangeListener( "currentDate", modelListener );
+            modelChanged( model.getCurrentDate() );
+        }
+    }
+
+    /**
+     * Getter for the model connected with the chooser
+     * @return OGCalendarModel or null
+     */
+    public OGCalendarModel getModel()
+    {
+        return model;
     }
 
     /**
@@ -68,6 +122,91 @@ public class OGYearChooser extends JPanel
         return currentYear;
     }
 
+    /**
+     * Limits the years which can be chosen. The current year is moved into
+     * the limits without firing an event
+     * @param minimum
+     * @param maximum
+     */
+    public void setYearRange( Year minimum, Year maximum )
+    {
+        if ( minimum.isAfter( maximum ) )
+        {
+            throw new IllegalArgumentException( "minimum must not be after maximum: " + minimum + " - " + maximum );
+        }
+        minimumYear = minimum.getValue();
+        maximumYear = maximum.getValue();
+        currentYear = Year.of( Math.max( minimumYear, Math.min( maximumYear, currentYear.getValue() ) ) );
+        adjusting = true;
+        try
+        {
+            SpinnerNumberModel model = (SpinnerNumberModel) spinner.getModel();
+            model.setMinimum( minimumYear );
+            model.setMaximum( maximumYear );
+            model.setValue( currentYear.getValue() );
+        }
+        finally
+        {
+            adjusting = false;
+        }
+    }
+
+    /**
+     * Getter for the first year which can be chosen
+     * @return Year
+     */
+    public Year getMinimumYear()
+    {
+        return Year.of( minimumYear );
+    }
+
+    /**
+     * Getter for the last year which can be chosen
+     * @return Year
+     */
+    public Year getMaximumYear()
+    {
+        return Year.of( maximumYear );
+    }
+
+    /**
+     * Enables or disables the growing step size while a spin button is held
+     * down. It is enabled by default
+     * @param accelerationEnabled 
+     */
+    public void setAccelerationEnabled( boolean accelerationEnabled )
+    {
+        this.accelerationEnabled = accelerationEnabled;
+    }
+
+    /**
+     * Checks if the step size grows while a spin button is held down
+     * @return boolean
+     */
+    public boolean isAccelerationEnabled()
+    {
+        return accelerationEnabled;
+    }
+
+    /**
+     * Sets the instrumentation which receives the measurements of this
+     * component. Null disables the measurement
+     * @param instrumentation 
+     */
+    public void setInstrumentation( OGCalendarInstrumentation instrumentation )
+    {
+        this.instrumentation = instrumentation;
+    }
+
+    /**
+     * Getter for the instrumentation of this component
+     * @return OGCalendarInstrumentation or null
+     */
+    public OGCalendarInstrumentation getInstrumentation()
+    {
+        return instrumentation;
+    }
+
     /**
      * Register the following PropertyChangeListeners to receive the values:
      * yearSelected = get the selected Year
@@ -110,25 +249,95 @@ public class OGYearChooser extends JPanel
             @Override
             public void stateChanged( ChangeEvent e )
             {
+                if ( adjusting )
+                {
+                    return;
+                }
                 int newSpinnerValue = (int) spinner.getModel().getValue();
-
-                //User pressed up
-                if ( newSpinnerValue > currentYear.getValue() )
+                int difference = newSpinnerValue - currentYear.getValue();
+                Year temp = currentYear;
+                //User pressed up or down, a typed year is taken as it is
+                if ( difference == 1 || difference == -1 )
                 {
-                    Year temp = currentYear;
-                    currentYear = currentYear.plusYears( 1 );
-                    pcs.firePropertyChange( "yearSelected", temp, currentYear );
-
+                    int step = accelerationEnabled ? acceleration.nextStep() : 1;
+                    long value = (long) currentYear.getValue() + (long) difference * step;
+                    currentYear = Year.of( (int) Math.max( minimumYear, Math.min( maximumYear, value ) ) );
+                }
+                else if ( difference != 0 )
+                {
+                    currentYear = Year.of( newSpinnerValue );
+                }
+                if ( newSpinnerValue != currentYear.getValue() )
+                {
+                    updateSpinner();
                 }
-                //User pressed down
-                else if ( newSpinnerValue < currentYear.getValue() )
+                fire( "yearSelected", temp, currentYear );
+                if ( model != null && !temp.equals( currentYear ) )
                 {
-                    Year temp = currentYear;
-                    currentYear = currentYear.minusYears( 1 );
-                    pcs.firePropertyChange( "yearSelected", temp, currentYear );
+                    model.setCurrentYear( currentYear );
                 }
             }
         } );
         add( spinner );
     }
+
+    /**
+     * Is called on the EDT when the model has changed
+     * @param yearMonth the latest value of the model
+     */
+    private void modelChanged( YearMonth yearMonth )
+    {
+        if ( yearMonth.getYear() == currentYear.getValue() )
+        {
+            return;
+        }
+        modelChanging = true;
+        try
+        {
+            setCurrentYear( Year.from( yearMonth ) );
+        }
+        finally
+        {
+            modelChanging = false;
+        }
+    }
+
+    /**
+     * Sets the spinner to the current year without reacting to its event
+     */
+    private void updateSpinner()
+    {
+        adjusting = true;
+        try
+        {
+            spinner.setValue( currentYear.getValue() );
+        }
+        finally
+        {
+            adjusting = false;
+        }
+    }
+
+    /**
+     * Fires a property change event and reports the time the listeners
+     * needed to the instrumentation
+     * @param propertyName
+     * @param oldValue
+     * @param newValue 
+     */
+    private void fire( String propertyName, Object oldValue, Object newValue )
+    {
+        if ( oldValue != null && oldValue.equals( newValue ) )
+        {
+            return;
+        }
+        if ( instrumentation == null )
+        {
+            pcs.firePropertyChange( propertyName, oldValue, newValue );
+            return;
+        }
+        long start = System.nanoTime();
+        pcs.firePropertyChange( propertyName, oldValue, newValue );
+        instrumentation.eventDispatched( this, propertyName, System.nanoTime() - start );
+    }
 }
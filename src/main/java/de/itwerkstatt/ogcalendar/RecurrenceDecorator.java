@@ -0,0 +1,76 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A DayDecorator which decorates the days of recurring appointments, e.g.
+ * shifts. Every RecurrenceRule has its own decoration, if rules meet on a
+ * day the rule added first wins. Only the visible days of the rules are
+ * computed.
+ * After rules were added or removed refreshDecorations of the OGDayChooser
+ * has to be called
+ */
+public class RecurrenceDecorator implements DayDecorator
+{
+
+    private final List<Entry> entries = new CopyOnWriteArrayList<>();
+
+    /**
+     * Adds a rule
+     * @param rule
+     * @param decoration the look of the days of the rule
+     */
+    public void addRule( RecurrenceRule rule, DayDecoration decoration )
+    {
+        if ( rule == null || decoration == null )
+        {
+            throw new IllegalArgumentException( "rule and decoration must not be null" );
+        }
+        entries.add( new Entry( rule, decoration ) );
+    }
+
+    /**
+     * Removes a rule
+     * @param rule
+     */
+    public void removeRule( RecurrenceRule rule )
+    {
+        entries.removeIf( (entry) -> entry.rule == rule );
+    }
+
+    @Override
+    public Map<LocalDate, DayDecoration> decorate( LocalDate from, LocalDate to )
+    {
+        Map<LocalDate, DayDecoration> decorations = new HashMap<>();
+        for ( Entry entry : entries )
+        {
+            Iterator<LocalDate> days = entry.rule.iterator( from, to );
+            while ( days.hasNext() )
+            {
+                decorations.putIfAbsent( days.next(), entry.decoration );
+            }
+        }
+        return decorations;
+    }
+
+    /**
+     * A rule and its decoration
+     */
+    private static final class Entry
+    {
+
+        private final RecurrenceRule rule;
+        private final DayDecoration decoration;
+
+        private Entry( RecurrenceRule rule, DayDecoration decoration )
+        {
+            this.rule = rule;
+            this.decoration = decoration;
+        }
+    }
+}
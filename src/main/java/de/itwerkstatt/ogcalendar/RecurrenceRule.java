@@ -0,0 +1,672 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The days on which a recurring appointment takes place, described by a
+ * RRULE of RFC 5545, e.g.
+ * FREQ=WEEKLY;INTERVAL=2;BYDAY=TU for every second tuesday,
+ * FREQ=MONTHLY;BYDAY=2TU for the second tuesday of every month or
+ * FREQ=MONTHLY;BYDAY=MO,TU,WE,TH,FR;BYSETPOS=-1 for the last workday of
+ * every month.
+ * Supported are FREQ DAILY, WEEKLY, MONTHLY and YEARLY together with
+ * INTERVAL, COUNT, UNTIL, BYDAY, BYMONTHDAY, BYMONTH, BYSETPOS and WKST.
+ * BYSETPOS is only used with MONTHLY and YEARLY. Times are not part of the
+ * rule, BYHOUR, BYMINUTE and BYSECOND are ignored.
+ * The days are never expanded as a whole. They are computed per month when
+ * a range of days is requested and the months are cached, so a rule
+ * spanning decades costs only the months which are shown. Instances are
+ * thread safe
+ */
+public final class RecurrenceRule
+{
+
+    //Number of months whose days are cached
+    private static final int CACHED_MONTHS = 240;
+    private static final LocalDate[] NO_DAYS = new LocalDate[0];
+    private static final String[] WEEKDAY_CODES = { "MO", "TU", "WE", "TH", "FR", "SA", "SU" };
+
+    /**
+     * How often the rule repeats
+     */
+    public enum Frequency
+    {
+        DAILY, WEEKLY, MONTHLY, YEARLY
+    }
+
+    private final String rule;
+    private final LocalDate start;
+    private final Frequency frequency;
+    private final int interval;
+    //0 if the number of occurrences is not limited
+    private final int count;
+    private final LocalDate until;
+    private final DayOfWeek weekStart;
+    //Bit month - 1 is set for every month of BYMONTH
+    private final int monthMask;
+    private final int[] monthDays;
+    //Bit DayOfWeek.getValue() - 1 is set for every weekday of BYDAY without ordinal
+    private final int weekdayMask;
+    //Weekdays of BYDAY with ordinal like 2TU or -1MO
+    private final int[] ordinals;
+    private final DayOfWeek[] ordinalDays;
+    private final int[] setPositions;
+    private final Map<YearMonth, LocalDate[]> cache = new LinkedHashMap<YearMonth, LocalDate[]>( 32, 0.75f, true )
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<YearMonth, LocalDate[]> eldest )
+        {
+            return size() > CACHED_MONTHS;
+        }
+    };
+
+    private RecurrenceRule( String rule, LocalDate start )
+    {
+        this.rule = rule;
+        this.start = start;
+        Frequency parsedFrequency = null;
+        int parsedInterval = 1;
+        int parsedCount = 0;
+        LocalDate parsedUntil = null;
+        DayOfWeek parsedWeekStart = DayOfWeek.MONDAY;
+        int parsedMonths = 0;
+        int parsedWeekdays = 0;
+        List<Integer> parsedMonthDays = new ArrayList<>();
+        List<Integer> parsedOrdinals = new ArrayList<>();
+        List<DayOfWeek> parsedOrdinalDays = new ArrayList<>();
+        List<Integer> parsedPositions = new ArrayList<>();
+        for ( String part : rule.split( ";" ) )
+        {
+            if ( part.trim().isEmpty() )
+            {
+                continue;
+            }
+            int equals = part.indexOf( '=' );
+            if ( equals < 0 )
+            {
+                throw new IllegalArgumentException( "Invalid part of rule: " + part );
+            }
+            String key = part.substring( 0, equals ).trim().toUpperCase();
+            String value = part.substring( equals + 1 ).trim().toUpperCase();
+            try
+            {
+                switch ( key )
+                {
+                    case "FREQ":
+                        parsedFrequency = Frequency.valueOf( value );
+                        break;
+                    case "INTERVAL":
+                        parsedInterval = Integer.parseInt( value );
+                        break;
+                    case "COUNT":
+                        parsedCount = Integer.parseInt( value );
+                        break;
+                    case "UNTIL":
+                        //Only the date is used, a time and zone are dropped
+                        parsedUntil = LocalDate.of( Integer.parseInt( value.substring( 0, 4 ) ),
+                                Integer.parseInt( value.substring( 4, 6 ) ), Integer.parseInt( value.substring( 6, 8 ) ) );
+                        break;
+                    case "WKST":
+                        parsedWeekStart = weekday( value );
+                        break;
+                    case "BYMONTH":
+                        for ( String month : value.split( "," ) )
+                        {
+                            parsedMonths |= 1 << ( range( month, 1, 12 ) - 1 );
+                        }
+                        break;
+                    case "BYMONTHDAY":
+                        for ( String day : value.split( "," ) )
+                        {
+                            parsedMonthDays.add( range( day, -31, 31 ) );
+                        }
+                        break;
+                    case "BYDAY":
+                        for ( String day : value.split( "," ) )
+                        {
+                            DayOfWeek weekday = weekday( day.substring( Math.max( 0, day.length() - 2 ) ) );
+                            if ( day.length() == 2 )
+                            {
+                                parsedWeekdays |= 1 << ( weekday.getValue() - 1 );
+                            }
+                            else
+                            {
+                                String ordinal = day.substring( 0, day.length() - 2 );
+                                parsedOrdinals.add( range( ordinal.startsWith( "+" ) ? ordinal.substring( 1 ) : ordinal, -53, 53 ) );
+                                parsedOrdinalDays.add( weekday );
+                            }
+                        }
+                        break;
+                    case "BYSETPOS":
+                        for ( String position : value.split( "," ) )
+                        {
+                            parsedPositions.add( range( position, -366, 366 ) );
+                        }
+                        break;
+                    case "BYHOUR":
+                    case "BYMINUTE":
+                    case "BYSECOND":
+                        break;
+                    default:
+                        throw new IllegalArgumentException( "Unsupported part of rule: " + part );
+                }
+            }
+            catch ( NumberFormatException | IndexOutOfBoundsException | DateTimeException ex )
+            {
+                throw new IllegalArgumentException( "Invalid part of rule: " + part, ex );
+            }
+        }
+        if ( parsedFrequency == null )
+        {
+            throw new IllegalArgumentException( "Rule without FREQ: " + rule );
+        }
+        if ( parsedInterval < 1 || parsedCount < 0 )
+        {
+            throw new IllegalArgumentException( "Invalid INTERVAL or COUNT: " + rule );
+        }
+        if ( !parsedPositions.isEmpty() && ( parsedFrequency == Frequency.DAILY || parsedFrequency == Frequency.WEEKLY ) )
+        {
+            throw new IllegalArgumentException( "BYSETPOS is only supported with MONTHLY and YEARLY: " + rule );
+        }
+        frequency = parsedFrequency;
+        interval = parsedInterval;
+        count = parsedCount;
+        until = parsedUntil;
+        weekStart = parsedWeekStart;
+        monthMask = parsedMonths;
+        weekdayMask = parsedWeekdays;
+        monthDays = toArray( parsedMonthDays );
+        ordinals = toArray( parsedOrdinals );
+        ordinalDays = parsedOrdinalDays.toArray( new DayOfWeek[0] );
+        setPositions = toArray( parsedPositions );
+    }
+
+    /**
+     * Parses a rule, e.g. the value of the RRULE property of an iCalendar
+     * file
+     * @param rule e.g. FREQ=MONTHLY;BYDAY=2TU
+     * @param start the first day of the recurrence, e.g. the day of DTSTART
+     * @return RecurrenceRule
+     * @throws IllegalArgumentException if the rule is invalid or uses an
+     * unsupported part
+     */
+    public static RecurrenceRule parse( String rule, LocalDate start )
+    {
+        if ( rule == null || start == null )
+        {
+            throw new IllegalArgumentException( "rule and start must not be null" );
+        }
+        return new RecurrenceRule( rule, start );
+    }
+
+    /**
+     * Getter for the first day of the recurrence
+     * @return LocalDate
+     */
+    public LocalDate getStart()
+    {
+        return start;
+    }
+
+    /**
+     * Getter for the frequency
+     * @return Frequency
+     */
+    public Frequency getFrequency()
+    {
+        return frequency;
+    }
+
+    /**
+     * Getter for the interval, 2 means every second period
+     * @return int
+     */
+    public int getInterval()
+    {
+        return interval;
+    }
+
+    /**
+     * Getter for the number of occurrences
+     * @return int, 0 if the number is not limited
+     */
+    public int getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Getter for the last possible day
+     * @return LocalDate or null if there is none
+     */
+    public LocalDate getUntil()
+    {
+        return until;
+    }
+
+    /**
+     * Returns the days of the recurrence in the given range. The days are
+     * computed while iterating
+     * @param from
+     * @param to inclusive
+     * @return Iterator with the days in ascending order
+     */
+    public Iterator<LocalDate> iterator( LocalDate from, LocalDate to )
+    {
+        return new Occurrences( from, to );
+    }
+
+    /**
+     * Returns the days of the recurrence in the given range as a stream
+     * @param from
+     * @param to inclusive
+     * @return sorted Stream
+     */
+    public Stream<LocalDate> stream( LocalDate from, LocalDate to )
+    {
+        return StreamSupport.stream( Spliterators.spliteratorUnknownSize( iterator( from, to ),
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL ), false );
+    }
+
+    /**
+     * Checks if the recurrence takes place on the given day
+     * @param day
+     * @return boolean
+     */
+    public boolean occursOn( LocalDate day )
+    {
+        YearMonth month = YearMonth.from( day );
+        LocalDate[] days = days( month );
+        for ( int i = 0; i < days.length; i++ )
+        {
+            if ( days[i].equals( day ) )
+            {
+                return count == 0 || countBefore( month ) + i < count;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the days of a month, COUNT is not taken into account
+     * @param month
+     * @return the days in ascending order, must not be changed
+     */
+    private LocalDate[] days( YearMonth month )
+    {
+        synchronized ( cache )
+        {
+            LocalDate[] days = cache.get( month );
+            if ( days != null )
+            {
+                return days;
+            }
+        }
+        LocalDate[] days = computeDays( month );
+        synchronized ( cache )
+        {
+            cache.put( month, days );
+        }
+        return days;
+    }
+
+    /**
+     * Counts the days of the recurrence in the months before the given one.
+     * Stops as soon as COUNT is reached
+     * @param month
+     * @return int
+     */
+    private int countBefore( YearMonth month )
+    {
+        int before = 0;
+        for ( YearMonth m = YearMonth.from( start ); m.isBefore( month ) && before < count; m = m.plusMonths( 1 ) )
+        {
+            before += days( m ).length;
+        }
+        return before;
+    }
+
+    /**
+     * Computes the days of a month
+     * @param month
+     * @return LocalDate[]
+     */
+    private LocalDate[] computeDays( YearMonth month )
+    {
+        if ( month.isBefore( YearMonth.from( start ) ) || until != null && month.isAfter( YearMonth.from( until ) )
+                || monthMask != 0 && ( monthMask & 1 << ( month.getMonthValue() - 1 ) ) == 0 )
+        {
+            return NO_DAYS;
+        }
+        List<LocalDate> days = new ArrayList<>();
+        if ( frequency == Frequency.MONTHLY
+                && Math.floorMod( ChronoUnit.MONTHS.between( YearMonth.from( start ), month ), (long) interval ) != 0
+                || frequency == Frequency.YEARLY && Math.floorMod( month.getYear() - start.getYear(), interval ) != 0 )
+        {
+            return NO_DAYS;
+        }
+        if ( frequency == Frequency.YEARLY && ( setPositions.length > 0 || ordinals.length > 0 && monthMask == 0 ) )
+        {
+            //Positions and ordinals refer to the whole year
+            LocalDate day = LocalDate.of( month.getYear(), 1, 1 );
+            for ( int i = 0; i < day.lengthOfYear(); i++ )
+            {
+                LocalDate candidate = day.plusDays( i );
+                if ( matches( candidate, monthMask == 0 ) )
+                {
+                    days.add( candidate );
+                }
+            }
+            days = select( days );
+            days.removeIf( (d) -> d.getMonthValue() != month.getMonthValue() );
+        }
+        else
+        {
+            for ( int i = 1; i <= month.lengthOfMonth(); i++ )
+            {
+                LocalDate candidate = month.atDay( i );
+                if ( inPeriod( candidate ) && matches( candidate, false ) )
+                {
+                    days.add( candidate );
+                }
+            }
+            if ( frequency == Frequency.MONTHLY )
+            {
+                days = select( days );
+            }
+        }
+        days.removeIf( (d) -> d.isBefore( start ) || until != null && d.isAfter( until ) );
+        return days.isEmpty() ? NO_DAYS : days.toArray( new LocalDate[days.size()] );
+    }
+
+    /**
+     * Checks if a day belongs to a DAILY or WEEKLY period of the interval
+     * @param day
+     * @return boolean
+     */
+    private boolean inPeriod( LocalDate day )
+    {
+        switch ( frequency )
+        {
+            case DAILY:
+                return Math.floorMod( day.toEpochDay() - start.toEpochDay(), (long) interval ) == 0;
+            case WEEKLY:
+                return Math.floorMod( Math.floorDiv( weekOf( day ) - weekOf( start ), 7L ), (long) interval ) == 0;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Returns the epoch day of the first day of the week of a day
+     * @param day
+     * @return long
+     */
+    private long weekOf( LocalDate day )
+    {
+        return day.toEpochDay() - Math.floorMod( day.getDayOfWeek().getValue() - weekStart.getValue(), 7 );
+    }
+
+    /**
+     * Checks BYMONTHDAY and BYDAY, without both the day has to match the
+     * start
+     * @param day
+     * @param yearly true if ordinals count the weekdays of the year
+     * @return boolean
+     */
+    private boolean matches( LocalDate day, boolean yearly )
+    {
+        if ( monthMask != 0 && ( monthMask & 1 << ( day.getMonthValue() - 1 ) ) == 0 )
+        {
+            return false;
+        }
+        if ( monthDays.length > 0 && !matchesMonthDay( day ) )
+        {
+            return false;
+        }
+        if ( weekdayMask != 0 || ordinals.length > 0 )
+        {
+            return matchesWeekday( day, yearly );
+        }
+        if ( monthDays.length > 0 )
+        {
+            return true;
+        }
+        switch ( frequency )
+        {
+            case WEEKLY:
+                return day.getDayOfWeek() == start.getDayOfWeek();
+            case MONTHLY:
+                return day.getDayOfMonth() == start.getDayOfMonth();
+            case YEARLY:
+                return day.getDayOfMonth() == start.getDayOfMonth() && ( monthMask != 0 || day.getMonth() == start.getMonth() );
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Checks BYMONTHDAY, negative days count from the end of the month
+     * @param day
+     * @return boolean
+     */
+    private boolean matchesMonthDay( LocalDate day )
+    {
+        int dayOfMonth = day.getDayOfMonth();
+        int length = day.lengthOfMonth();
+        for ( int monthDay : monthDays )
+        {
+            if ( monthDay == dayOfMonth || monthDay < 0 && length + monthDay + 1 == dayOfMonth )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks BYDAY. For DAILY and WEEKLY the ordinals are ignored
+     * @param day
+     * @param yearly true if ordinals count the weekdays of the year
+     * @return boolean
+     */
+    private boolean matchesWeekday( LocalDate day, boolean yearly )
+    {
+        DayOfWeek weekday = day.getDayOfWeek();
+        if ( ( weekdayMask & 1 << ( weekday.getValue() - 1 ) ) != 0 )
+        {
+            return true;
+        }
+        boolean ignoreOrdinals = frequency == Frequency.DAILY || frequency == Frequency.WEEKLY;
+        int position = yearly ? day.getDayOfYear() : day.getDayOfMonth();
+        int length = yearly ? day.lengthOfYear() : day.lengthOfMonth();
+        for ( int i = 0; i < ordinals.length; i++ )
+        {
+            if ( ordinalDays[i] == weekday )
+            {
+                int ordinal = ordinals[i] > 0 ? ( position - 1 ) / 7 + 1 : -( ( length - position ) / 7 + 1 );
+                if ( ignoreOrdinals || ordinal == ordinals[i] )
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies BYSETPOS to the days of a period
+     * @param days sorted
+     * @return the selected days, sorted
+     */
+    private List<LocalDate> select( List<LocalDate> days )
+    {
+        if ( setPositions.length == 0 )
+        {
+            return days;
+        }
+        TreeSet<LocalDate> selected = new TreeSet<>();
+        for ( int position : setPositions )
+        {
+            int index = position > 0 ? position - 1 : days.size() + position;
+            if ( index >= 0 && index < days.size() )
+            {
+                selected.add( days.get( index ) );
+            }
+        }
+        return new ArrayList<>( selected );
+    }
+
+    /**
+     * Parses a number and checks its range, 0 is not allowed
+     * @param text
+     * @param min
+     * @param max
+     * @return int
+     */
+    private static int range( String text, int min, int max )
+    {
+        int value = Integer.parseInt( text.trim() );
+        if ( value == 0 || value < min || value > max )
+        {
+            throw new NumberFormatException( "Out of range: " + text );
+        }
+        return value;
+    }
+
+    /**
+     * Parses a weekday code like MO
+     * @param code
+     * @return DayOfWeek
+     */
+    private static DayOfWeek weekday( String code )
+    {
+        for ( int i = 0; i < WEEKDAY_CODES.length; i++ )
+        {
+            if ( WEEKDAY_CODES[i].equals( code ) )
+            {
+                return DayOfWeek.of( i + 1 );
+            }
+        }
+        throw new IllegalArgumentException( "Invalid weekday: " + code );
+    }
+
+    /**
+     * Converts a list of numbers to an array
+     * @param values
+     * @return int[]
+     */
+    private static int[] toArray( List<Integer> values )
+    {
+        int[] array = new int[values.size()];
+        for ( int i = 0; i < array.length; i++ )
+        {
+            array[i] = values.get( i );
+        }
+        return array;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RecurrenceRule[" + rule + ", " + start + "]";
+    }
+
+    /**
+     * Iterates the days of a range month by month. Only the month of the
+     * current day is computed
+     */
+    private final class Occurrences implements Iterator<LocalDate>
+    {
+
+        private final LocalDate from;
+        private final LocalDate to;
+        private final YearMonth last;
+        private YearMonth month;
+        private LocalDate[] days;
+        private int position;
+        //Occurrences left until COUNT is reached
+        private long remaining;
+        private LocalDate next;
+
+        private Occurrences( LocalDate from, LocalDate to )
+        {
+            this.from = from;
+            this.to = until != null && until.isBefore( to ) ? until : to;
+            last = YearMonth.from( this.to );
+            month = YearMonth.from( from.isBefore( start ) ? start : from );
+            days = days( month );
+            remaining = count == 0 ? Long.MAX_VALUE : count - countBefore( month );
+            advance();
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return next != null;
+        }
+
+        @Override
+        public LocalDate next()
+        {
+            if ( next == null )
+            {
+                throw new NoSuchElementException();
+            }
+            LocalDate current = next;
+            advance();
+            return current;
+        }
+
+        /**
+         * Moves to the next day in the range
+         */
+        private void advance()
+        {
+            next = null;
+            while ( remaining > 0 && !month.isAfter( last ) )
+            {
+                while ( position < days.length && remaining > 0 )
+                {
+                    LocalDate day = days[position++];
+                    //Days before the range count for COUNT as well
+                    remaining--;
+                    if ( day.isAfter( to ) )
+                    {
+                        remaining = 0;
+                        return;
+                    }
+                    if ( !day.isBefore( from ) )
+                    {
+                        next = day;
+                        return;
+                    }
+                }
+                if ( !month.isBefore( last ) )
+                {
+                    return;
+                }
+                month = month.plusMonths( 1 );
+                days = days( month );
+                position = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package de.itwerkstatt.ogcalendar;
+
+/**
+ * Computes the step size of a spinner whose arrow is held down. Changes
+ * which follow each other within a short gap belong to the same run, the
+ * longer the run lasts the bigger the step gets. A single click always
+ * steps by one
+ */
+class SpinAcceleration
+{
+
+    //Longest gap between two changes of the same run, the spinner repeats every 60 ms
+    private static final long REPEAT_GAP = 150_000_000L;
+
+    private final long[] thresholds;
+    private final int[] steps;
+    private long runStart;
+    private long lastChange = Long.MIN_VALUE;
+
+    /**
+     * Constructor with the step sizes and the time after which they are used
+     * @param thresholds milliseconds since the start of the run, ascending
+     * @param steps step size used from the threshold with the same index on
+     */
+    SpinAcceleration( long[] thresholds, int[] steps )
+    {
+        this.thresholds = new long[thresholds.length];
+        for ( int i = 0; i < thresholds.length; i++ )
+        {
+            this.thresholds[i] = thresholds[i] * 1_000_000L;
+        }
+        this.steps = steps.clone();
+    }
+
+    /**
+     * Is called on every change of the spinner and returns the step size
+     * @return step size, at least 1
+     */
+    int nextStep()
+    {
+        long now = System.nanoTime();
+        if ( lastChange == Long.MIN_VALUE || now - lastChange > REPEAT_GAP )
+        {
+            runStart = now;
+        }
+        lastChange = now;
+        long held = now - runStart;
+        int step = 1;
+        for ( int i = 0; i < thresholds.length && held >= thresholds[i]; i++ )
+        {
+            step = steps[i];
+        }
+        return step;
+    }
+}
@@ -0,0 +1,190 @@
+package de.itwerkstatt.ogcalendar;
+
+import de.itwerkstatt.ogcalendar.BusinessCalendar.HolidayRule;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of BusinessCalendar
+ */
+public class BusinessCalendarTest
+{
+
+    //The nationwide holidays of Germany
+    private static final BusinessCalendar GERMANY = new BusinessCalendar(
+            HolidayRule.fixed( Month.JANUARY, 1 ),
+            HolidayRule.easter( -2 ),
+            HolidayRule.easter( 1 ),
+            HolidayRule.fixed( Month.MAY, 1 ),
+            HolidayRule.easter( 39 ),
+            HolidayRule.easter( 50 ),
+            HolidayRule.fixed( Month.OCTOBER, 3 ),
+            HolidayRule.fixed( Month.DECEMBER, 25 ),
+            HolidayRule.fixed( Month.DECEMBER, 26 ) );
+
+    @Test
+    public void easterSundayIsComputed()
+    {
+        assertEquals( LocalDate.of( 1961, 4, 2 ), BusinessCalendar.easterSunday( 1961 ) );
+        assertEquals( LocalDate.of( 2000, 4, 23 ), BusinessCalendar.easterSunday( 2000 ) );
+        assertEquals( LocalDate.of( 2019, 4, 21 ), BusinessCalendar.easterSunday( 2019 ) );
+        assertEquals( LocalDate.of( 2024, 3, 31 ), BusinessCalendar.easterSunday( 2024 ) );
+        assertEquals( LocalDate.of( 2026, 4, 5 ), BusinessCalendar.easterSunday( 2026 ) );
+    }
+
+    @Test
+    public void holidaysAndWeekendsAreNoWorkingDays()
+    {
+        assertTrue( GERMANY.isWorkingDay( LocalDate.of( 2026, 10, 2 ) ) );
+        assertFalse( GERMANY.isHoliday( LocalDate.of( 2026, 10, 2 ) ) );
+        //The day of German unity is a saturday in 2026
+        assertFalse( GERMANY.isWorkingDay( LocalDate.of( 2026, 10, 3 ) ) );
+        assertTrue( GERMANY.isHoliday( LocalDate.of( 2026, 10, 3 ) ) );
+        assertFalse( GERMANY.isWorkingDay( LocalDate.of( 2026, 10, 4 ) ) );
+        assertFalse( GERMANY.isHoliday( LocalDate.of( 2026, 10, 4 ) ) );
+        assertFalse( GERMANY.isWorkingDay( LocalDate.of( 2026, 4, 3 ) ) );
+        assertFalse( GERMANY.isWorkingDay( LocalDate.of( 2026, 4, 6 ) ) );
+        assertFalse( GERMANY.isWorkingDay( LocalDate.of( 2026, 5, 14 ) ) );
+        assertFalse( GERMANY.isWorkingDay( LocalDate.of( 2026, 5, 25 ) ) );
+        assertTrue( GERMANY.isHoliday( LocalDate.of( 2026, 12, 25 ) ) );
+    }
+
+    @Test
+    public void otherWeekendsAndRecurringHolidays()
+    {
+        BusinessCalendar calendar = new BusinessCalendar( new DayOfWeek[]
+        {
+            DayOfWeek.FRIDAY, DayOfWeek.SATURDAY
+        }, HolidayRule.of( RecurrenceRule.parse( "FREQ=YEARLY;BYMONTH=11;BYDAY=4TH", LocalDate.of( 2000, 11, 23 ) ) ) );
+        assertFalse( calendar.isWorkingDay( LocalDate.of( 2026, 10, 16 ) ) );
+        assertTrue( calendar.isWorkingDay( LocalDate.of( 2026, 10, 18 ) ) );
+        assertTrue( calendar.isHoliday( LocalDate.of( 2026, 11, 26 ) ) );
+        assertTrue( calendar.isWorkingDay( LocalDate.of( 2026, 11, 19 ) ) );
+        assertEquals( LocalDate.of( 2026, 11, 29 ), calendar.addBusinessDays( LocalDate.of( 2026, 11, 25 ), 1 ) );
+    }
+
+    @Test
+    public void addingMovesOverHolidaysAndTheEndOfTheYear()
+    {
+        assertEquals( LocalDate.of( 2026, 12, 28 ), GERMANY.addBusinessDays( LocalDate.of( 2026, 12, 24 ), 1 ) );
+        assertEquals( LocalDate.of( 2027, 1, 4 ), GERMANY.addBusinessDays( LocalDate.of( 2026, 12, 31 ), 1 ) );
+        assertEquals( LocalDate.of( 2026, 12, 31 ), GERMANY.addBusinessDays( LocalDate.of( 2027, 1, 4 ), -1 ) );
+        assertEquals( LocalDate.of( 2026, 4, 2 ), GERMANY.addBusinessDays( LocalDate.of( 2026, 4, 7 ), -1 ) );
+        //Without moving the day is kept, even on a weekend
+        assertEquals( LocalDate.of( 2026, 10, 3 ), GERMANY.addBusinessDays( LocalDate.of( 2026, 10, 3 ), 0 ) );
+    }
+
+    @Test
+    public void addingAndCountingAgree()
+    {
+        for ( LocalDate day = LocalDate.of( 2025, 12, 1 ); day.isBefore( LocalDate.of( 2027, 2, 1 ) ); day = day.plusDays( 3 ) )
+        {
+            for ( int businessDays = -400; businessDays <= 400; businessDays += 13 )
+            {
+                LocalDate moved = GERMANY.addBusinessDays( day, businessDays );
+                assertEquals( day + " " + businessDays, stepped( day, businessDays ), moved );
+                if ( businessDays > 0 )
+                {
+                    assertEquals( businessDays, GERMANY.countBusinessDays( day.plusDays( 1 ), moved.plusDays( 1 ) ) );
+                }
+                else if ( businessDays < 0 )
+                {
+                    assertEquals( businessDays, GERMANY.countBusinessDays( day, moved ) );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void countingManyYearsMatchesTheYears()
+    {
+        long sum = 0;
+        for ( int year = 1900; year < 2100; year++ )
+        {
+            sum += GERMANY.countBusinessDays( LocalDate.of( year, 1, 1 ), LocalDate.of( year + 1, 1, 1 ) );
+        }
+        LocalDate from = LocalDate.of( 1900, 1, 1 );
+        LocalDate to = LocalDate.of( 2100, 1, 1 );
+        assertEquals( sum, GERMANY.countBusinessDays( from, to ) );
+        assertEquals( -sum, GERMANY.countBusinessDays( to, from ) );
+        assertEquals( to.minusDays( 1 ), GERMANY.addBusinessDays( GERMANY.addBusinessDays( from, -1 ), sum ) );
+        assertEquals( 0, GERMANY.countBusinessDays( from, from ) );
+    }
+
+    @Test
+    public void nonWorkingMaskMatchesTheDays()
+    {
+        LocalDate[] firsts =
+        {
+            LocalDate.of( 2026, 9, 28 ), LocalDate.of( 2026, 11, 30 ), LocalDate.of( 2028, 2, 1 )
+        };
+        for ( LocalDate first : firsts )
+        {
+            long mask = GERMANY.nonWorkingMask( first, 64 );
+            for ( int i = 0; i < 64; i++ )
+            {
+                assertEquals( first.plusDays( i ).toString(), !GERMANY.isWorkingDay( first.plusDays( i ) ), ( mask & 1L << i ) != 0 );
+            }
+        }
+        assertEquals( 0, GERMANY.nonWorkingMask( LocalDate.of( 2026, 10, 3 ), 0 ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void nonWorkingMaskIsLimitedTo64Days()
+    {
+        GERMANY.nonWorkingMask( LocalDate.of( 2026, 10, 1 ), 65 );
+    }
+
+    @Test
+    public void aCalendarWithoutWorkingDaysStopsSearching()
+    {
+        //The rule takes all days the weekend leaves
+        BusinessCalendar closed = new BusinessCalendar( HolidayRule.of( RecurrenceRule.parse( "FREQ=DAILY", LocalDate.of( 1900, 1, 1 ) ) ) );
+        assertEquals( 0, closed.countBusinessDays( LocalDate.of( 2026, 1, 1 ), LocalDate.of( 2027, 1, 1 ) ) );
+        try
+        {
+            closed.addBusinessDays( LocalDate.of( 2026, 10, 18 ), 1 );
+            throw new AssertionError( "Found a working day" );
+        }
+        catch ( DateTimeException expected )
+        {
+            //expected
+        }
+        try
+        {
+            closed.addBusinessDays( LocalDate.of( 2026, 10, 18 ), -1 );
+            throw new AssertionError( "Found a working day" );
+        }
+        catch ( DateTimeException expected )
+        {
+            //expected
+        }
+    }
+
+    /**
+     * Moves a day by working days one day after another
+     * @param day
+     * @param businessDays
+     * @return LocalDate
+     */
+    private static LocalDate stepped( LocalDate day, int businessDays )
+    {
+        int step = businessDays < 0 ? -1 : 1;
+        for ( int remaining = Math.abs( businessDays ); remaining > 0; )
+        {
+            day = day.plusDays( step );
+            if ( GERMANY.isWorkingDay( day ) )
+            {
+                remaining--;
+            }
+        }
+        return day;
+    }
+}
@@ -0,0 +1,121 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests of DateParser with the orders of Germany, the US and ISO
+ */
+public class DateParserTest
+{
+
+    private static final LocalDate DAY = LocalDate.of( 2026, 10, 17 );
+    private static final DateParser GERMANY = DateParser.of( Locale.GERMANY );
+    private static final DateParser US = DateParser.of( Locale.US );
+    private static final DateParser SWEDEN = DateParser.of( new Locale( "sv", "SE" ) );
+
+    @Test
+    public void dayMonthYear()
+    {
+        assertEquals( DAY, GERMANY.parse( "17.10.2026" ) );
+        assertEquals( DAY, GERMANY.parse( "17.10.26" ) );
+        assertEquals( DAY, GERMANY.parse( "17/10/2026" ) );
+        assertEquals( DAY, GERMANY.parse( " 17 10 2026 " ) );
+        assertEquals( DAY, GERMANY.parse( "17102026" ) );
+        assertEquals( DAY, GERMANY.parse( "171026" ) );
+        assertEquals( LocalDate.of( 2026, 2, 3 ), GERMANY.parse( "3.2.2026" ) );
+    }
+
+    @Test
+    public void monthDayYear()
+    {
+        assertEquals( DAY, US.parse( "10/17/2026" ) );
+        assertEquals( DAY, US.parse( "10/17/26" ) );
+        assertEquals( DAY, US.parse( "10172026" ) );
+        assertEquals( DAY, US.parse( "101726" ) );
+        assertEquals( LocalDate.of( 2026, 3, 2 ), US.parse( "3/2/2026" ) );
+        assertNull( US.parse( "17/10/2026" ) );
+    }
+
+    @Test
+    public void yearMonthDay()
+    {
+        assertEquals( DAY, SWEDEN.parse( "2026-10-17" ) );
+        assertEquals( DAY, SWEDEN.parse( "26-10-17" ) );
+        assertEquals( DAY, SWEDEN.parse( "20261017" ) );
+        assertEquals( DAY, SWEDEN.parse( "261017" ) );
+        assertEquals( LocalDate.of( LocalDate.now().getYear(), 10, 17 ), SWEDEN.parse( "10-17" ) );
+    }
+
+    @Test
+    public void isoDatesAreReadInEveryLocale()
+    {
+        assertEquals( DAY, GERMANY.parse( "2026-10-17" ) );
+        assertEquals( DAY, US.parse( "2026-10-17" ) );
+        assertEquals( DAY, SWEDEN.parse( "2026-10-17" ) );
+    }
+
+    @Test
+    public void aMissingYearIsTheCurrentYear()
+    {
+        int year = LocalDate.now().getYear();
+        assertEquals( LocalDate.of( year, 10, 17 ), GERMANY.parse( "17.10" ) );
+        assertEquals( LocalDate.of( year, 10, 17 ), GERMANY.parse( "17.10." ) );
+        assertEquals( LocalDate.of( year, 10, 17 ), US.parse( "10/17" ) );
+    }
+
+    @Test
+    public void twoDigitYearsAreNearTheCurrentYear()
+    {
+        int year = LocalDate.now().getYear();
+        for ( int twoDigits = 0; twoDigits < 100; twoDigits++ )
+        {
+            int expected = year - year % 100 + twoDigits;
+            if ( expected > year + 20 )
+            {
+                expected -= 100;
+            }
+            else if ( expected <= year - 80 )
+            {
+                expected += 100;
+            }
+            String text = String.format( "1.2.%02d", twoDigits );
+            assertEquals( text, LocalDate.of( expected, 2, 1 ), GERMANY.parse( text ) );
+        }
+    }
+
+    @Test
+    public void invalidTextIsNoDate()
+    {
+        String[] texts =
+        {
+            "", "abc", "17", "32.10.2026", "29.02.2026", "17.13.2026", "17.10.2026.1", "1710202", "123456789", "0.0"
+        };
+        for ( String text : texts )
+        {
+            assertNull( text, GERMANY.parse( text ) );
+        }
+        assertEquals( LocalDate.of( 2028, 2, 29 ), GERMANY.parse( "29.02.2028" ) );
+    }
+
+    @Test
+    public void datesAreFormattedWithFourDigitYears()
+    {
+        assertEquals( "17.10.2026", GERMANY.format( DAY ) );
+        assertEquals( "10/17/2026", US.format( DAY ) );
+        assertEquals( "2026-10-17", SWEDEN.format( DAY ) );
+        assertEquals( "", GERMANY.format( null ) );
+        assertEquals( DAY, US.parse( US.format( DAY ) ) );
+        assertEquals( DAY, SWEDEN.parse( SWEDEN.format( DAY ) ) );
+    }
+
+    @Test
+    public void parsersAreSharedPerLocale()
+    {
+        assertEquals( GERMANY, DateParser.of( Locale.GERMANY ) );
+    }
+}
@@ -0,0 +1,411 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.awt.Color;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of ICalendarReader and ICalendarWriter
+ */
+public class ICalendarReaderTest
+{
+
+    private static final ZoneId BERLIN = ZoneId.of( "Europe/Berlin" );
+    private static final LocalDate OCTOBER_FIRST = LocalDate.of( 2026, 10, 1 );
+    private static final LocalDate OCTOBER_LAST = LocalDate.of( 2026, 10, 31 );
+
+    @Test
+    public void writtenEventsAreReadBack() throws IOException
+    {
+        List<OGCalendarEvent> written = new ArrayList<>();
+        written.add( new OGCalendarEvent( "Meeting", LocalDateTime.of( 2026, 10, 17, 9, 30 ), LocalDateTime.of( 2026, 10, 17, 11, 0 ) ) );
+        written.add( new OGCalendarEvent( "Holidays", LocalDate.of( 2026, 10, 19 ), LocalDate.of( 2026, 10, 23 ) ) );
+        written.add( new OGCalendarEvent( "Review; part 1, with \\ and\nsecond line", LocalDateTime.of( 2026, 10, 20, 14, 0 ),
+                LocalDateTime.of( 2026, 10, 20, 15, 0 ), false, "Room 1, ground floor", new Color( 0x12AB34 ) ) );
+        try ( ICalendarReader reader = reader( write( written ) ) )
+        {
+            for ( OGCalendarEvent expected : written )
+            {
+                assertTrue( reader.next() );
+                OGCalendarEvent read = reader.toEvent();
+                assertEquals( expected.getTitle(), read.getTitle() );
+                assertEquals( expected.getStart(), read.getStart() );
+                assertEquals( expected.getEnd(), read.getEnd() );
+                assertEquals( expected.isAllDay(), read.isAllDay() );
+                assertEquals( expected.getFirstDay(), read.getFirstDay() );
+                assertEquals( expected.getLastDay(), read.getLastDay() );
+                assertEquals( expected.getResource(), read.getResource() );
+                assertEquals( expected.getColor(), read.getColor() );
+            }
+            assertFalse( reader.next() );
+        }
+    }
+
+    @Test
+    public void longLinesAreFoldedAndJoined() throws IOException
+    {
+        StringBuilder title = new StringBuilder();
+        for ( int i = 0; i < 40; i++ )
+        {
+            //Two bytes in UTF-8, a fold must not split them
+            title.append( "Größe " );
+        }
+        List<OGCalendarEvent> written = new ArrayList<>();
+        written.add( new OGCalendarEvent( title.toString(), LocalDateTime.of( 2026, 10, 17, 9, 0 ), LocalDateTime.of( 2026, 10, 17, 10, 0 ) ) );
+        byte[] file = write( written );
+        for ( String line : new String( file, StandardCharsets.UTF_8 ).split( "\r\n" ) )
+        {
+            assertTrue( line, line.getBytes( StandardCharsets.UTF_8 ).length <= 75 );
+        }
+        try ( ICalendarReader reader = reader( file ) )
+        {
+            assertTrue( reader.next() );
+            assertEquals( title.toString(), reader.getSummary() );
+        }
+    }
+
+    @Test
+    public void foldedLinesWithTabsAndUnixLineBreaksAreJoined() throws IOException
+    {
+        String file = "BEGIN:VCALENDAR\n"
+                + "BEGIN:VEVENT\n"
+                + "UID:1\n"
+                + "DTSTART:20261017T090000\n"
+                + "SUMMARY:A long\n"
+                + "\t summary\n"
+                + "  text\n"
+                + "END:VEVENT\n"
+                + "END:VCALENDAR";
+        try ( ICalendarReader reader = reader( file ) )
+        {
+            assertTrue( reader.next() );
+            assertEquals( "A long summary text", reader.getSummary() );
+            assertEquals( LocalDateTime.of( 2026, 10, 17, 9, 0 ), reader.getEnd() );
+        }
+    }
+
+    @Test
+    public void zonesAreConvertedToTheZoneOfTheReader() throws IOException
+    {
+        String file = calendar(
+                "BEGIN:VEVENT",
+                "DTSTART;TZID=America/New_York:20261017T090000",
+                "DURATION:PT1H30M",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "DTSTART:20261017T080000Z",
+                "DTEND:20261017T090000Z",
+                "BEGIN:VALARM",
+                "DTSTART:20000101T000000",
+                "END:VALARM",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "SUMMARY:No start",
+                "END:VEVENT" );
+        try ( ICalendarReader reader = reader( file ) )
+        {
+            assertTrue( reader.next() );
+            assertEquals( LocalDateTime.of( 2026, 10, 17, 15, 0 ), reader.getStart() );
+            assertEquals( LocalDateTime.of( 2026, 10, 17, 16, 30 ), reader.getEnd() );
+            assertTrue( reader.next() );
+            assertEquals( LocalDateTime.of( 2026, 10, 17, 10, 0 ), reader.getStart() );
+            assertEquals( LocalDateTime.of( 2026, 10, 17, 11, 0 ), reader.getEnd() );
+            assertFalse( reader.next() );
+        }
+    }
+
+    @Test( expected = IOException.class )
+    public void invalidDatesAreReported() throws IOException
+    {
+        try ( ICalendarReader reader = reader( calendar( "BEGIN:VEVENT", "DTSTART:20261317T090000", "END:VEVENT" ) ) )
+        {
+            reader.next();
+        }
+    }
+
+    @Test
+    public void recurringEventsAreExpandedForTheRequestedDays() throws IOException
+    {
+        String file = calendar(
+                "BEGIN:VEVENT",
+                "UID:weekly",
+                "DTSTART:20260105T100000",
+                "DTEND:20260105T103000",
+                "RRULE:FREQ=WEEKLY;BYDAY=MO",
+                "SUMMARY:Standup",
+                "END:VEVENT" );
+        try ( ICalendarReader reader = reader( file ) )
+        {
+            assertTrue( reader.next() );
+            List<OGCalendarEvent> events = new ArrayList<>();
+            reader.expand( OCTOBER_FIRST, OCTOBER_LAST, events::add );
+            assertStarts( events, "2026-10-05T10:00", "2026-10-12T10:00", "2026-10-19T10:00", "2026-10-26T10:00" );
+        }
+    }
+
+    @Test
+    public void untilWithATimeEndsTheSeriesAtThatTime() throws IOException
+    {
+        String file = calendar(
+                "BEGIN:VEVENT",
+                "UID:until",
+                "DTSTART;TZID=Europe/Berlin:20261005T100000",
+                "DTEND;TZID=Europe/Berlin:20261005T103000",
+                "RRULE:FREQ=WEEKLY;UNTIL=20261019T075959Z;BYDAY=MO",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:inclusive",
+                "DTSTART;TZID=Europe/Berlin:20261005T100000",
+                "DTEND;TZID=Europe/Berlin:20261005T103000",
+                "RRULE:FREQ=WEEKLY;BYDAY=MO;UNTIL=20261019T080000Z",
+                "END:VEVENT" );
+        try ( ICalendarReader reader = reader( file ) )
+        {
+            assertTrue( reader.next() );
+            List<OGCalendarEvent> events = new ArrayList<>();
+            reader.expand( OCTOBER_FIRST, OCTOBER_LAST, events::add );
+            assertStarts( events, "2026-10-05T10:00", "2026-10-12T10:00" );
+            assertTrue( reader.next() );
+            events.clear();
+            reader.expand( OCTOBER_FIRST, OCTOBER_LAST, events::add );
+            assertStarts( events, "2026-10-05T10:00", "2026-10-12T10:00", "2026-10-19T10:00" );
+        }
+    }
+
+    @Test
+    public void excludedDatesAreLeftOut() throws IOException
+    {
+        String file = calendar(
+                "BEGIN:VEVENT",
+                "UID:standup",
+                "DTSTART;TZID=Europe/Berlin:20261005T100000",
+                "DTEND;TZID=Europe/Berlin:20261005T103000",
+                "RRULE:FREQ=WEEKLY;BYDAY=MO,WE",
+                "EXDATE;TZID=Europe/Berlin:20261007T100000,20261012T100000",
+                "EXDATE:20261021T080000Z",
+                "EXDATE;VALUE=DATE:20261026",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:holidays",
+                "DTSTART;VALUE=DATE:20261001",
+                "RRULE:FREQ=DAILY;COUNT=5",
+                "EXDATE;VALUE=DATE:20261002,20261004",
+                "END:VEVENT" );
+        try ( ICalendarReader reader = reader( file ) )
+        {
+            List<OGCalendarEvent> events = new ArrayList<>();
+            assertTrue( reader.next() );
+            reader.expand( OCTOBER_FIRST, OCTOBER_LAST, events::add );
+            assertStarts( events, "2026-10-05T10:00", "2026-10-14T10:00", "2026-10-19T10:00", "2026-10-28T10:00" );
+            events.clear();
+            assertTrue( reader.next() );
+            reader.expand( OCTOBER_FIRST, OCTOBER_LAST, events::add );
+            assertStarts( events, "2026-10-01T00:00", "2026-10-03T00:00", "2026-10-05T00:00" );
+        }
+    }
+
+    @Test
+    public void replacedOccurrencesAreReadOnce() throws IOException
+    {
+        String master = String.join( "\r\n",
+                "BEGIN:VEVENT",
+                "UID:standup",
+                "DTSTART;TZID=Europe/Berlin:20261005T100000",
+                "DTEND;TZID=Europe/Berlin:20261005T103000",
+                "RRULE:FREQ=WEEKLY;BYDAY=MO",
+                "SUMMARY:Standup",
+                "END:VEVENT" );
+        String moved = String.join( "\r\n",
+                "BEGIN:VEVENT",
+                "UID:standup",
+                "RECURRENCE-ID;TZID=Europe/Berlin:20261012T100000",
+                "DTSTART;TZID=Europe/Berlin:20261013T140000",
+                "DTEND;TZID=Europe/Berlin:20261013T143000",
+                "SUMMARY:Standup moved",
+                "END:VEVENT" );
+        String other = String.join( "\r\n",
+                "BEGIN:VEVENT",
+                "UID:other",
+                "RECURRENCE-ID;TZID=Europe/Berlin:20261019T100000",
+                "DTSTART;TZID=Europe/Berlin:20261020T100000",
+                "SUMMARY:Other series",
+                "END:VEVENT" );
+        //The replacing instance can come before or after the recurring event
+        for ( String file : new String[] { calendar( master, moved, other ), calendar( moved, other, master ) } )
+        {
+            OGCalendarEventStore store = new OGCalendarEventStore();
+            try ( ICalendarReader reader = reader( file ) )
+            {
+                assertEquals( 5, reader.readInto( store, OCTOBER_FIRST, OCTOBER_LAST ) );
+            }
+            List<OGCalendarEvent> events = store.getEvents( OCTOBER_FIRST, OCTOBER_LAST );
+            assertStarts( events, "2026-10-05T10:00", "2026-10-13T14:00", "2026-10-19T10:00", "2026-10-20T10:00", "2026-10-26T10:00" );
+            assertEquals( "Standup moved", events.get( 1 ).getTitle() );
+        }
+    }
+
+    @Test
+    public void recurrenceIdMakesASingleEvent() throws IOException
+    {
+        String file = calendar(
+                "BEGIN:VEVENT",
+                "UID:standup",
+                "RECURRENCE-ID;VALUE=DATE:20261012",
+                "DTSTART;VALUE=DATE:20261013",
+                "RRULE:FREQ=DAILY",
+                "END:VEVENT" );
+        try ( ICalendarReader reader = reader( file ) )
+        {
+            assertTrue( reader.next() );
+            assertEquals( LocalDateTime.of( 2026, 10, 12, 0, 0 ), reader.getRecurrenceId() );
+            List<OGCalendarEvent> events = new ArrayList<>();
+            reader.expand( OCTOBER_FIRST, OCTOBER_LAST, events::add );
+            assertStarts( events, "2026-10-13T00:00" );
+            assertTrue( events.get( 0 ).isAllDay() );
+        }
+    }
+
+    @Test
+    public void utcSeriesKeepTheirWeekdayAcrossMidnight() throws IOException
+    {
+        String file = calendar(
+                "BEGIN:VEVENT",
+                "UID:late",
+                "DTSTART:20260105T233000Z",
+                "DTEND:20260106T000000Z",
+                "RRULE:FREQ=WEEKLY;BYDAY=MO;COUNT=3",
+                "END:VEVENT" );
+        try ( ICalendarReader reader = reader( file ) )
+        {
+            assertTrue( reader.next() );
+            List<OGCalendarEvent> events = new ArrayList<>();
+            reader.expand( LocalDate.of( 2026, 1, 1 ), LocalDate.of( 2026, 1, 31 ), events::add );
+            assertStarts( events, "2026-01-06T00:30", "2026-01-13T00:30", "2026-01-20T00:30" );
+        }
+    }
+
+    @Test
+    public void seriesAreExpandedInTheZoneOfTheirStart() throws IOException
+    {
+        String file = calendar(
+                "BEGIN:VEVENT",
+                "UID:evening",
+                "DTSTART;TZID=America/Los_Angeles:20261005T200000",
+                "DTEND;TZID=America/Los_Angeles:20261005T210000",
+                "RRULE:FREQ=WEEKLY;BYDAY=MO",
+                "EXDATE;VALUE=DATE:20261012",
+                "END:VEVENT" );
+        try ( ICalendarReader reader = reader( file ) )
+        {
+            assertTrue( reader.next() );
+            List<OGCalendarEvent> events = new ArrayList<>();
+            reader.expand( OCTOBER_FIRST, OCTOBER_LAST, events::add );
+            //Europe leaves daylight saving time a week before the US
+            assertStarts( events, "2026-10-06T05:00", "2026-10-20T05:00", "2026-10-27T04:00" );
+        }
+    }
+
+    @Test
+    public void daylightSavingChangesOfTheStartZoneAreHonoured() throws IOException
+    {
+        String file = calendar(
+                "BEGIN:VEVENT",
+                "UID:noon",
+                "DTSTART;TZID=America/New_York:20260302T120000",
+                "DTEND;TZID=America/New_York:20260302T130000",
+                "RRULE:FREQ=WEEKLY;BYDAY=MO",
+                "EXDATE;TZID=America/New_York:20260316T120000",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "UID:until",
+                "DTSTART;TZID=America/New_York:20260302T120000",
+                "DTEND;TZID=America/New_York:20260302T130000",
+                "RRULE:FREQ=WEEKLY;BYDAY=MO;UNTIL=20260323T160000Z",
+                "END:VEVENT" );
+        LocalDate first = LocalDate.of( 2026, 3, 1 );
+        LocalDate last = LocalDate.of( 2026, 4, 5 );
+        try ( ICalendarReader reader = reader( file ) )
+        {
+            assertTrue( reader.next() );
+            List<OGCalendarEvent> events = new ArrayList<>();
+            reader.expand( first, last, events::add );
+            //The US changes on March 8th, Europe on March 29th
+            assertStarts( events, "2026-03-02T18:00", "2026-03-09T17:00", "2026-03-23T17:00", "2026-03-30T18:00" );
+            assertTrue( reader.next() );
+            events.clear();
+            reader.expand( first, last, events::add );
+            assertStarts( events, "2026-03-02T18:00", "2026-03-09T17:00", "2026-03-16T17:00", "2026-03-23T17:00" );
+        }
+    }
+
+    @Test
+    public void readIntoAddsOnlyTheRequestedDays() throws IOException
+    {
+        List<OGCalendarEvent> written = new ArrayList<>();
+        for ( int i = 0; i < 3000; i++ )
+        {
+            LocalDateTime start = LocalDateTime.of( 2026, 1, 1, 8, 0 ).plusHours( 6L * i );
+            written.add( new OGCalendarEvent( "Event " + i, start, start.plusHours( 1 ) ) );
+        }
+        OGCalendarEventStore store = new OGCalendarEventStore();
+        try ( ICalendarReader reader = reader( write( written ) ) )
+        {
+            assertEquals( 31 * 4, reader.readInto( store, OCTOBER_FIRST, OCTOBER_LAST ) );
+        }
+        assertEquals( 31 * 4, store.size() );
+        assertTrue( store.getEvents( OCTOBER_FIRST.minusDays( 1 ) ).isEmpty() );
+        assertTrue( store.getEvents( OCTOBER_LAST.plusDays( 1 ) ).isEmpty() );
+    }
+
+    private static void assertStarts( List<OGCalendarEvent> events, String... starts )
+    {
+        List<String> actual = new ArrayList<>();
+        for ( OGCalendarEvent event : events )
+        {
+            actual.add( event.getStart().toString() );
+        }
+        assertEquals( Arrays.asList( starts ), actual );
+    }
+
+    private static String calendar( String... lines )
+    {
+        return "BEGIN:VCALENDAR\r\nVERSION:2.0\r\n" + String.join( "\r\n", lines ) + "\r\nEND:VCALENDAR\r\n";
+    }
+
+    private static byte[] write( List<OGCalendarEvent> events ) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try ( ICalendarWriter writer = new ICalendarWriter( Channels.newChannel( out ) ) )
+        {
+            for ( OGCalendarEvent event : events )
+            {
+                writer.write( event );
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static ICalendarReader reader( String file )
+    {
+        return reader( file.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    private static ICalendarReader reader( byte[] file )
+    {
+        return new ICalendarReader( Channels.newChannel( new ByteArrayInputStream( file ) ), BERLIN );
+    }
+}
@@ -0,0 +1,125 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.function.Predicate;
+import javax.swing.JSpinner;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests how often an OGCalendar rebuilds its days
+ */
+public class OGCalendarTest
+{
+
+    private static final YearMonth OCTOBER = YearMonth.of( 2026, 10 );
+
+    private OGCalendar calendar;
+    private int rebuilds;
+
+    @Before
+    public void setUp()
+    {
+        calendar = new OGCalendar( OCTOBER );
+        calendar.setInstrumentation( new OGCalendarInstrumentation()
+        {
+            @Override
+            public void rebuilt( Component component, long nanos )
+            {
+                rebuilds++;
+            }
+        } );
+    }
+
+    @Test
+    public void limitsWithinTheMonthDoNotRebuild()
+    {
+        calendar.setMinimumDate( LocalDate.of( 2026, 10, 5 ) );
+        calendar.setMaximumDate( LocalDate.of( 2026, 10, 20 ) );
+        calendar.setMinimumDate( null );
+        assertEquals( 0, rebuilds );
+        assertEquals( OCTOBER, calendar.getCurrentDate() );
+        assertFalse( calendar.isSelectable( LocalDate.of( 2026, 10, 21 ) ) );
+        assertTrue( calendar.isSelectable( LocalDate.of( 2026, 10, 4 ) ) );
+    }
+
+    @Test
+    public void limitsOutsideOfTheMonthMoveIt()
+    {
+        calendar.setMaximumDate( LocalDate.of( 2026, 9, 30 ) );
+        assertEquals( 1, rebuilds );
+        assertEquals( YearMonth.of( 2026, 9 ), calendar.getCurrentDate() );
+    }
+
+    @Test
+    public void setLimitsRebuildsAtMostOnce()
+    {
+        Predicate<LocalDate> weekends = (day) -> day.getDayOfWeek().getValue() > 5;
+        calendar.setLimits( LocalDate.of( 2026, 10, 1 ), LocalDate.of( 2026, 10, 10 ), null );
+        //The new minimum is after the old maximum
+        calendar.setLimits( LocalDate.of( 2026, 10, 20 ), LocalDate.of( 2026, 10, 31 ), weekends );
+        calendar.setLimits( LocalDate.of( 2026, 10, 20 ), LocalDate.of( 2026, 10, 31 ), weekends );
+        assertEquals( 0, rebuilds );
+        assertFalse( calendar.isSelectable( LocalDate.of( 2026, 10, 24 ) ) );
+        assertTrue( calendar.isSelectable( LocalDate.of( 2026, 10, 23 ) ) );
+        calendar.setLimits( LocalDate.of( 2027, 1, 1 ), null, null );
+        assertEquals( 1, rebuilds );
+        assertEquals( YearMonth.of( 2027, 1 ), calendar.getCurrentDate() );
+        assertEquals( YearMonth.of( 2027, 1 ), calendar.clamp( OCTOBER ) );
+    }
+
+    @Test
+    public void navigationKeysStartFromTheMonthOfAPendingRefresh()
+    {
+        JSpinner years = find( find( calendar, OGYearChooser.class ), JSpinner.class );
+        OGDayChooser days = find( calendar, OGDayChooser.class );
+        //The first change is shown at once, the second one waits for the refresh delay
+        years.setValue( 2027 );
+        years.setValue( 2028 );
+        assertEquals( YearMonth.of( 2028, 10 ), calendar.getCurrentDate() );
+        KeyEvent pageDown = new KeyEvent( days, KeyEvent.KEY_PRESSED, System.currentTimeMillis(), 0, KeyEvent.VK_PAGE_DOWN, KeyEvent.CHAR_UNDEFINED );
+        for ( KeyListener listener : days.getKeyListeners() )
+        {
+            listener.keyPressed( pageDown );
+        }
+        days.getActionMap().get( "nextMonth" ).actionPerformed( new ActionEvent( days, ActionEvent.ACTION_PERFORMED, null ) );
+        assertEquals( YearMonth.of( 2028, 11 ), calendar.getCurrentDate() );
+        assertEquals( YearMonth.of( 2028, 11 ), days.getCurrentYearAndMonth() );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void setLimitsRejectsAMinimumAfterTheMaximum()
+    {
+        calendar.setLimits( LocalDate.of( 2026, 10, 20 ), LocalDate.of( 2026, 10, 10 ), null );
+    }
+
+    private static <T> T find( Container container, Class<T> type )
+    {
+        for ( Component component : container.getComponents() )
+        {
+            if ( type.isInstance( component ) )
+            {
+                return type.cast( component );
+            }
+            if ( component instanceof Container )
+            {
+                T found = find( (Container) component, type );
+                if ( found != null )
+                {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+}
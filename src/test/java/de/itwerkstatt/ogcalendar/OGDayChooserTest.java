@@ -0,0 +1,97 @@
+package de.itwerkstatt.ogcalendar;
+
+import de.itwerkstatt.ogcalendar.OGDayChooser.RenderMode;
+import java.awt.Color;
+import java.awt.event.MouseEvent;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests how often an OGDayChooser loads its decorations
+ */
+public class OGDayChooserTest
+{
+
+    private static final YearMonth OCTOBER = YearMonth.of( 2026, 10 );
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private OGDayChooser days;
+
+    @Test
+    public void decorationsOfShownMonthsAreKeptUntilRefreshed() throws Exception
+    {
+        SwingUtilities.invokeAndWait( () ->
+        {
+            days = new OGDayChooser( OCTOBER, RenderMode.PAINTED );
+            days.setSize( 350, 250 );
+            days.doLayout();
+            days.setDayDecorator( (from, to) -> decorate( from, to ) );
+        } );
+        awaitDecorations();
+        SwingUtilities.invokeAndWait( () ->
+        {
+            days.setCurrentYearAndMonth( OCTOBER.plusMonths( 1 ) );
+            assertNull( toolTip() );
+        } );
+        awaitDecorations();
+        assertEquals( 2, loads.get() );
+        //Going back shows the kept decorations without loading them
+        SwingUtilities.invokeAndWait( () ->
+        {
+            days.setCurrentYearAndMonth( OCTOBER );
+            assertNotNull( toolTip() );
+        } );
+        assertEquals( 2, loads.get() );
+        SwingUtilities.invokeAndWait( () -> days.refreshDecorations() );
+        awaitDecorations();
+        assertEquals( 3, loads.get() );
+        SwingUtilities.invokeAndWait( () -> days.setCurrentYearAndMonth( OCTOBER.plusMonths( 1 ) ) );
+        awaitDecorations();
+        assertEquals( 4, loads.get() );
+    }
+
+    private Map<LocalDate, DayDecoration> decorate( LocalDate from, LocalDate to )
+    {
+        loads.incrementAndGet();
+        Map<LocalDate, DayDecoration> decorations = new HashMap<>();
+        for ( LocalDate day = from; !day.isAfter( to ); day = day.plusDays( 1 ) )
+        {
+            decorations.put( day, new DayDecoration( Color.YELLOW, null, day.toString() ) );
+        }
+        return decorations;
+    }
+
+    /**
+     * Waits until the decorations of the current month are shown
+     * @throws Exception
+     */
+    private void awaitDecorations() throws Exception
+    {
+        String[] shown = new String[1];
+        for ( int i = 0; i < 500 && shown[0] == null; i++ )
+        {
+            Thread.sleep( 10 );
+            SwingUtilities.invokeAndWait( () -> shown[0] = toolTip() );
+        }
+        assertNotNull( "No decorations", shown[0] );
+    }
+
+    /**
+     * Returns the tooltip of the day in the middle of the chooser
+     * @return String
+     */
+    private String toolTip()
+    {
+        MouseEvent event = new MouseEvent( days, MouseEvent.MOUSE_MOVED, 0, 0, days.getWidth() / 2, days.getHeight() / 2, 0, false );
+        return days.getToolTipText( event );
+    }
+}
@@ -0,0 +1,49 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.time.Year;
+import java.time.YearMonth;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of OGMultiMonthCalendar at the ends of the supported range
+ */
+public class OGMultiMonthCalendarTest
+{
+
+    @Test
+    public void scrollingStopsAtTheLastMonths()
+    {
+        OGMultiMonthCalendar calendar = new OGMultiMonthCalendar( YearMonth.of( Year.MAX_VALUE, 6 ), 12, 4 );
+        YearMonth last = YearMonth.of( Year.MAX_VALUE, 1 );
+        assertEquals( last, calendar.getFirstMonth() );
+        calendar.scroll( 1 );
+        assertEquals( last, calendar.getFirstMonth() );
+        calendar.scroll( Integer.MAX_VALUE );
+        assertEquals( last, calendar.getFirstMonth() );
+        calendar.scroll( -1 );
+        assertEquals( YearMonth.of( Year.MAX_VALUE - 1, 12 ), calendar.getFirstMonth() );
+    }
+
+    @Test
+    public void scrollingStopsAtTheFirstMonth()
+    {
+        YearMonth first = YearMonth.of( Year.MIN_VALUE, 1 );
+        OGMultiMonthCalendar calendar = new OGMultiMonthCalendar( first, 3, 3 );
+        calendar.scroll( -1 );
+        assertEquals( first, calendar.getFirstMonth() );
+        calendar.scroll( Integer.MIN_VALUE );
+        assertEquals( first, calendar.getFirstMonth() );
+        calendar.scroll( 1 );
+        assertEquals( first.plusMonths( 1 ), calendar.getFirstMonth() );
+    }
+
+    @Test
+    public void setFirstMonthKeepsAllMonthsInTheRange()
+    {
+        OGMultiMonthCalendar calendar = new OGMultiMonthCalendar( YearMonth.of( 2026, 1 ), 6, 3 );
+        calendar.setFirstMonth( YearMonth.of( Year.MAX_VALUE, 12 ) );
+        assertEquals( YearMonth.of( Year.MAX_VALUE, 7 ), calendar.getFirstMonth() );
+    }
+}
@@ -0,0 +1,272 @@
+package de.itwerkstatt.ogcalendar;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of RecurrenceRule, mostly with the examples of RFC 5545 section
+ * 3.8.5.3
+ */
+public class RecurrenceRuleTest
+{
+
+    @Test
+    public void dailyForTenOccurrences()
+    {
+        assertDays( "FREQ=DAILY;COUNT=10", "1997-09-02",
+                "1997-09-02", "1997-09-03", "1997-09-04", "1997-09-05", "1997-09-06",
+                "1997-09-07", "1997-09-08", "1997-09-09", "1997-09-10", "1997-09-11" );
+    }
+
+    @Test
+    public void everyTenDaysFiveOccurrences()
+    {
+        assertDays( "FREQ=DAILY;INTERVAL=10;COUNT=5", "1997-09-02",
+                "1997-09-02", "1997-09-12", "1997-09-22", "1997-10-02", "1997-10-12" );
+    }
+
+    @Test
+    public void weeklyForTenOccurrences()
+    {
+        assertDays( "FREQ=WEEKLY;COUNT=10", "1997-09-02",
+                "1997-09-02", "1997-09-09", "1997-09-16", "1997-09-23", "1997-09-30",
+                "1997-10-07", "1997-10-14", "1997-10-21", "1997-10-28", "1997-11-04" );
+    }
+
+    @Test
+    public void weeklyOnTuesdayAndThursdayUntil()
+    {
+        //The rule has no times, the day of UNTIL is included
+        assertDays( "FREQ=WEEKLY;UNTIL=19971006T000000Z;WKST=SU;BYDAY=TU,TH", "1997-09-02",
+                "1997-09-02", "1997-09-04", "1997-09-09", "1997-09-11", "1997-09-16",
+                "1997-09-18", "1997-09-23", "1997-09-25", "1997-09-30", "1997-10-02" );
+        assertDays( "FREQ=WEEKLY;UNTIL=19971007;WKST=SU;BYDAY=TU,TH", "1997-09-02",
+                "1997-09-02", "1997-09-04", "1997-09-09", "1997-09-11", "1997-09-16",
+                "1997-09-18", "1997-09-23", "1997-09-25", "1997-09-30", "1997-10-02", "1997-10-07" );
+    }
+
+    @Test
+    public void everyOtherWeekOnMondayWednesdayAndFriday()
+    {
+        assertDays( "FREQ=WEEKLY;INTERVAL=2;UNTIL=19971223T000000Z;WKST=SU;BYDAY=MO,WE,FR", "1997-09-01",
+                "1997-09-01", "1997-09-03", "1997-09-05", "1997-09-15", "1997-09-17", "1997-09-19",
+                "1997-09-29", "1997-10-01", "1997-10-03", "1997-10-13", "1997-10-15", "1997-10-17",
+                "1997-10-27", "1997-10-29", "1997-10-31", "1997-11-10", "1997-11-12", "1997-11-14",
+                "1997-11-24", "1997-11-26", "1997-11-28", "1997-12-08", "1997-12-10", "1997-12-12",
+                "1997-12-22" );
+    }
+
+    @Test
+    public void weekStartChangesTheWeeksOfTheInterval()
+    {
+        assertDays( "FREQ=WEEKLY;INTERVAL=2;COUNT=4;BYDAY=TU,SU;WKST=MO", "1997-08-05",
+                "1997-08-05", "1997-08-10", "1997-08-19", "1997-08-24" );
+        assertDays( "FREQ=WEEKLY;INTERVAL=2;COUNT=4;BYDAY=TU,SU;WKST=SU", "1997-08-05",
+                "1997-08-05", "1997-08-17", "1997-08-19", "1997-08-31" );
+    }
+
+    @Test
+    public void monthlyOnTheFirstFriday()
+    {
+        assertDays( "FREQ=MONTHLY;COUNT=10;BYDAY=1FR", "1997-09-05",
+                "1997-09-05", "1997-10-03", "1997-11-07", "1997-12-05", "1998-01-02",
+                "1998-02-06", "1998-03-06", "1998-04-03", "1998-05-01", "1998-06-05" );
+    }
+
+    @Test
+    public void everyOtherMonthOnTheFirstAndLastSunday()
+    {
+        assertDays( "FREQ=MONTHLY;INTERVAL=2;COUNT=10;BYDAY=1SU,-1SU", "1997-09-07",
+                "1997-09-07", "1997-09-28", "1997-11-02", "1997-11-30", "1998-01-04",
+                "1998-01-25", "1998-03-01", "1998-03-29", "1998-05-03", "1998-05-31" );
+    }
+
+    @Test
+    public void monthlyOnTheSecondToLastMonday()
+    {
+        assertDays( "FREQ=MONTHLY;COUNT=6;BYDAY=-2MO", "1997-09-22",
+                "1997-09-22", "1997-10-20", "1997-11-17", "1997-12-22", "1998-01-19", "1998-02-16" );
+    }
+
+    @Test
+    public void monthlyOnTheThirdToLastDay()
+    {
+        assertDays( "FREQ=MONTHLY;BYMONTHDAY=-3", "1997-09-28", LocalDate.parse( "1997-09-01" ), LocalDate.parse( "1998-02-28" ),
+                "1997-09-28", "1997-10-29", "1997-11-28", "1997-12-29", "1998-01-29", "1998-02-26" );
+    }
+
+    @Test
+    public void monthlyOnTheSecondAndFifteenth()
+    {
+        assertDays( "FREQ=MONTHLY;COUNT=10;BYMONTHDAY=2,15", "1997-09-02",
+                "1997-09-02", "1997-09-15", "1997-10-02", "1997-10-15", "1997-11-02",
+                "1997-11-15", "1997-12-02", "1997-12-15", "1998-01-02", "1998-01-15" );
+    }
+
+    @Test
+    public void fridayTheThirteenth()
+    {
+        assertDays( "FREQ=MONTHLY;BYDAY=FR;BYMONTHDAY=13", "1997-09-02", LocalDate.parse( "1997-09-01" ), LocalDate.parse( "2000-12-31" ),
+                "1998-02-13", "1998-03-13", "1998-11-13", "1999-08-13", "2000-10-13" );
+    }
+
+    @Test
+    public void invalidDaysOfTheMonthAreSkipped()
+    {
+        assertDays( "FREQ=MONTHLY;BYMONTHDAY=15,30;COUNT=5", "2007-01-15",
+                "2007-01-15", "2007-01-30", "2007-02-15", "2007-03-15", "2007-03-30" );
+        assertDays( "FREQ=YEARLY;COUNT=2", "2024-02-29", "2024-02-29", "2028-02-29" );
+    }
+
+    @Test
+    public void yearlyInJuneAndJuly()
+    {
+        assertDays( "FREQ=YEARLY;COUNT=10;BYMONTH=6,7", "1997-06-10",
+                "1997-06-10", "1997-07-10", "1998-06-10", "1998-07-10", "1999-06-10",
+                "1999-07-10", "2000-06-10", "2000-07-10", "2001-06-10", "2001-07-10" );
+    }
+
+    @Test
+    public void twentiethMondayOfTheYear()
+    {
+        assertDays( "FREQ=YEARLY;BYDAY=20MO", "1997-05-19", LocalDate.parse( "1997-01-01" ), LocalDate.parse( "1999-12-31" ),
+                "1997-05-19", "1998-05-18", "1999-05-17" );
+    }
+
+    @Test
+    public void everyThursdayInMarch()
+    {
+        assertDays( "FREQ=YEARLY;BYMONTH=3;BYDAY=TH", "1997-03-13", LocalDate.parse( "1997-01-01" ), LocalDate.parse( "1999-12-31" ),
+                "1997-03-13", "1997-03-20", "1997-03-27", "1998-03-05", "1998-03-12", "1998-03-19",
+                "1998-03-26", "1999-03-04", "1999-03-11", "1999-03-18", "1999-03-25" );
+    }
+
+    @Test
+    public void presidentialElectionDay()
+    {
+        assertDays( "FREQ=YEARLY;INTERVAL=4;BYMONTH=11;BYDAY=TU;BYMONTHDAY=2,3,4,5,6,7,8", "1996-11-05",
+                LocalDate.parse( "1996-01-01" ), LocalDate.parse( "2004-12-31" ),
+                "1996-11-05", "2000-11-07", "2004-11-02" );
+    }
+
+    @Test
+    public void everyDayInJanuaryForThreeYears()
+    {
+        List<String> expected = new ArrayList<>();
+        for ( int year = 1998; year <= 2000; year++ )
+        {
+            for ( int day = 1; day <= 31; day++ )
+            {
+                expected.add( LocalDate.of( year, 1, day ).toString() );
+            }
+        }
+        assertDays( "FREQ=YEARLY;UNTIL=20000131T140000Z;BYMONTH=1;BYDAY=SU,MO,TU,WE,TH,FR,SA", "1998-01-01",
+                expected.toArray( new String[0] ) );
+    }
+
+    @Test
+    public void thirdInstanceOfTuesdayWednesdayOrThursday()
+    {
+        assertDays( "FREQ=MONTHLY;COUNT=3;BYDAY=TU,WE,TH;BYSETPOS=3", "1997-09-04",
+                "1997-09-04", "1997-10-07", "1997-11-06" );
+    }
+
+    @Test
+    public void secondToLastWeekdayOfTheMonth()
+    {
+        assertDays( "FREQ=MONTHLY;BYDAY=MO,TU,WE,TH,FR;BYSETPOS=-2", "1997-09-29", LocalDate.parse( "1997-09-01" ), LocalDate.parse( "1998-03-31" ),
+                "1997-09-29", "1997-10-30", "1997-11-27", "1997-12-30", "1998-01-29", "1998-02-26", "1998-03-30" );
+    }
+
+    @Test
+    public void countIsCountedFromTheStartAndNotFromTheRange()
+    {
+        RecurrenceRule rule = RecurrenceRule.parse( "FREQ=DAILY;COUNT=10", LocalDate.parse( "1997-09-02" ) );
+        assertEquals( dates( "1997-09-08", "1997-09-09", "1997-09-10", "1997-09-11" ),
+                days( rule.iterator( LocalDate.parse( "1997-09-08" ), LocalDate.parse( "1997-12-31" ) ) ) );
+        RecurrenceRule monthly = RecurrenceRule.parse( "FREQ=MONTHLY;COUNT=10;BYDAY=1FR", LocalDate.parse( "1997-09-05" ) );
+        assertEquals( dates( "1998-05-01", "1998-06-05" ),
+                days( monthly.iterator( LocalDate.parse( "1998-05-01" ), LocalDate.parse( "2000-12-31" ) ) ) );
+    }
+
+    @Test
+    public void occursOnAgreesWithTheIterator()
+    {
+        RecurrenceRule rule = RecurrenceRule.parse( "FREQ=MONTHLY;COUNT=6;BYDAY=-2MO", LocalDate.parse( "1997-09-22" ) );
+        List<LocalDate> days = days( rule.iterator( LocalDate.parse( "1997-01-01" ), LocalDate.parse( "1999-12-31" ) ) );
+        for ( LocalDate day = LocalDate.parse( "1997-01-01" ); day.getYear() < 2000; day = day.plusDays( 1 ) )
+        {
+            assertEquals( day.toString(), days.contains( day ), rule.occursOn( day ) );
+        }
+        assertFalse( rule.occursOn( LocalDate.parse( "1998-03-23" ) ) );
+        assertTrue( rule.occursOn( LocalDate.parse( "1998-02-16" ) ) );
+    }
+
+    @Test
+    public void streamReturnsTheDaysOfTheIterator()
+    {
+        RecurrenceRule rule = RecurrenceRule.parse( "FREQ=WEEKLY;BYDAY=MO,FR", LocalDate.parse( "2026-01-02" ) );
+        LocalDate from = LocalDate.parse( "2026-10-01" );
+        LocalDate to = LocalDate.parse( "2026-10-31" );
+        assertEquals( days( rule.iterator( from, to ) ), rule.stream( from, to ).collect( Collectors.toList() ) );
+        assertEquals( 9, rule.stream( from, to ).count() );
+    }
+
+    @Test
+    public void invalidRulesAreRejected()
+    {
+        String[] rules =
+        {
+            "INTERVAL=2", "FREQ=HOURLY", "FREQ=WEEKLY;BYSETPOS=1;BYDAY=MO", "FREQ=DAILY;INTERVAL=0",
+            "FREQ=MONTHLY;BYMONTHDAY=32", "FREQ=MONTHLY;BYDAY=XX", "FREQ=YEARLY;BYWEEKNO=20", "FREQ=DAILY;COUNT"
+        };
+        for ( String rule : rules )
+        {
+            try
+            {
+                RecurrenceRule.parse( rule, LocalDate.parse( "2026-01-01" ) );
+                throw new AssertionError( "Accepted " + rule );
+            }
+            catch ( IllegalArgumentException expected )
+            {
+                //expected
+            }
+        }
+    }
+
+    private static void assertDays( String rule, String start, String... expected )
+    {
+        LocalDate first = LocalDate.parse( start );
+        assertDays( rule, start, first, first.plusYears( 10 ), expected );
+    }
+
+    private static void assertDays( String rule, String start, LocalDate from, LocalDate to, String... expected )
+    {
+        RecurrenceRule parsed = RecurrenceRule.parse( rule, LocalDate.parse( start ) );
+        assertEquals( rule, dates( expected ), days( parsed.iterator( from, to ) ) );
+    }
+
+    private static List<LocalDate> days( Iterator<LocalDate> iterator )
+    {
+        List<LocalDate> days = new ArrayList<>();
+        while ( iterator.hasNext() )
+        {
+            days.add( iterator.next() );
+        }
+        return days;
+    }
+
+    private static List<LocalDate> dates( String... values )
+    {
+        return Arrays.stream( values ).map( LocalDate::parse ).collect( Collectors.toList() );
+    }
+}